@@ -0,0 +1,131 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.htmlunit.BrowserVersion;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Local Jetty server delivering the pages used by the benchmarks.
+ * <ul>
+ *   <li>{@code /blank} - an almost empty page</li>
+ *   <li>{@code /dom?size=n} - a page with n rows; the last row holds the elements
+ *       with the id, name, class and link text {@code target}</li>
+ *   <li>{@code /form} - a page with a styled box and a text area</li>
+ * </ul>
+ *
+ * @author agent (agent@local)
+ */
+public final class BenchmarkServer {
+
+    private final Server server_;
+
+    /**
+     * Starts a new server on a free port.
+     *
+     * @throws Exception if the server does not start
+     */
+    public BenchmarkServer() throws Exception {
+        server_ = new Server(0);
+        server_.setHandler(new PageHandler());
+        server_.start();
+    }
+
+    /**
+     * @param pathAndQuery the path including the query
+     * @return the url of the page
+     */
+    public String url(final String pathAndQuery) {
+        final int port = ((ServerConnector) server_.getConnectors()[0]).getLocalPort();
+        return "http://localhost:" + port + pathAndQuery;
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @throws Exception if the server does not stop
+     */
+    public void stop() throws Exception {
+        server_.stop();
+    }
+
+    /**
+     * @return a new driver with JavaScript enabled
+     */
+    public static HtmlUnitDriver newDriver() {
+        return new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+    }
+
+    static String domPage(final int size) {
+        final StringBuilder html = new StringBuilder(size * 160)
+                .append("<html><head><title>dom</title></head><body>");
+        for (int i = 0; i < size; i++) {
+            final String id = i == size - 1 ? "target" : "row" + i;
+            html.append("<div class='row ").append(id).append("'>")
+                .append("<a id='").append(id).append("' href='#").append(i).append("'>")
+                .append(i == size - 1 ? "target" : "link " + i).append("</a>")
+                .append("<span class='cell'>cell ").append(i).append("</span>")
+                .append("<input name='").append(id).append("' value='").append(i).append("'>")
+                .append("</div>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    static String formPage() {
+        return "<html><head><title>form</title><style>"
+                + "#box { position: absolute; left: 20px; top: 30px; width: 200px; height: 100px;"
+                + " color: rgb(10, 20, 30); font-size: 14px; }"
+                + "</style></head><body>"
+                + "<div id='box'>box</div>"
+                + "<textarea id='text'></textarea>"
+                + "<button id='button' onclick='this.textContent = \"clicked\"'>button</button>"
+                + "</body></html>";
+    }
+
+    private static final class PageHandler extends AbstractHandler {
+        @Override
+        public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                final HttpServletResponse response) throws IOException {
+            final String html;
+            if ("/dom".equals(target)) {
+                html = domPage(Integer.parseInt(request.getParameter("size")));
+            }
+            else if ("/form".equals(target)) {
+                html = formPage();
+            }
+            else {
+                html = "<html><head><title>blank</title></head><body></body></html>";
+            }
+
+            response.setContentType("text/html");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(html);
+            baseRequest.setHandled(true);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Driver construction, page loads and the overhead of a single command.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DriverBenchmark {
+
+    /** The number of rows of the loaded page; {@code 0} loads the blank page. */
+    @Param({"0", "1000"})
+    private int size_;
+
+    private BenchmarkServer server_;
+    private HtmlUnitDriver driver_;
+    private String url_;
+
+    /**
+     * Starts the server and the driver used by {@link #get()}.
+     *
+     * @throws Exception in case of error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server_ = new BenchmarkServer();
+        driver_ = BenchmarkServer.newDriver();
+        url_ = size_ == 0 ? server_.url("/blank") : server_.url("/dom?size=" + size_);
+    }
+
+    /**
+     * Stops the driver and the server.
+     *
+     * @throws Exception in case of error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        driver_.quit();
+        server_.stop();
+    }
+
+    /**
+     * Creates a driver and quits it right away.
+     */
+    @Benchmark
+    public void construct() {
+        BenchmarkServer.newDriver().quit();
+    }
+
+    /**
+     * Loads the page from the local server.
+     *
+     * @return the title
+     */
+    @Benchmark
+    public String get() {
+        driver_.get(url_);
+        return driver_.getTitle();
+    }
+
+    /**
+     * Clicks the button of the form page and reads its text; two commands
+     * doing almost no work themselves.
+     *
+     * @param page the loaded form page
+     * @return the text of the button
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String clickRoundTrip(final FormPage page) {
+        page.button_.click();
+        return page.button_.getText();
+    }
+
+    /**
+     * The form page loaded once for {@link DriverBenchmark#clickRoundTrip}.
+     */
+    @State(Scope.Benchmark)
+    public static class FormPage {
+        private BenchmarkServer server_;
+        private HtmlUnitDriver driver_;
+        private WebElement button_;
+
+        /**
+         * Starts the server and loads the page.
+         *
+         * @throws Exception in case of error
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            server_ = new BenchmarkServer();
+            driver_ = BenchmarkServer.newDriver();
+            driver_.get(server_.url("/form"));
+            button_ = driver_.findElement(By.id("button"));
+        }
+
+        /**
+         * Stops the driver and the server.
+         *
+         * @throws Exception in case of error
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            driver_.quit();
+            server_.stop();
+        }
+    }
+}
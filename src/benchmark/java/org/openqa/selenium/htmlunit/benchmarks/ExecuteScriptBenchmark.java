@@ -0,0 +1,155 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Round-trips of {@code executeScript} and {@code executeAsyncScript} with
+ * different argument and result shapes.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExecuteScriptBenchmark {
+
+    private static final int SEQUENTIAL_CALLS = 10_000;
+
+    /** The shape of the arguments and the result. */
+    @Param({"empty", "primitives", "element", "elementList", "map", "nestedList"})
+    private String shape_;
+
+    private BenchmarkServer server_;
+    private HtmlUnitDriver driver_;
+    private String script_;
+    private Object[] args_;
+
+    /**
+     * Loads the page and prepares the script.
+     *
+     * @throws Exception in case of error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server_ = new BenchmarkServer();
+        driver_ = BenchmarkServer.newDriver();
+        driver_.get(server_.url("/dom?size=100"));
+
+        switch (shape_) {
+            case "empty":
+                script_ = "return;";
+                args_ = new Object[0];
+                break;
+            case "primitives":
+                script_ = "return arguments[0] + arguments[1].length + (arguments[2] ? 1 : 0);";
+                args_ = new Object[] {42, "some string", true};
+                break;
+            case "element":
+                script_ = "return arguments[0].parentNode;";
+                args_ = new Object[] {driver_.findElement(By.id("target"))};
+                break;
+            case "elementList":
+                script_ = "return document.querySelectorAll('a');";
+                args_ = new Object[0];
+                break;
+            case "map":
+                final Map<String, Object> map = new HashMap<>();
+                map.put("number", 7);
+                map.put("text", "text");
+                map.put("list", Arrays.asList(1, 2, 3));
+                script_ = "var o = arguments[0]; o.sum = o.number + o.list.length; return o;";
+                args_ = new Object[] {map};
+                break;
+            case "nestedList":
+                script_ = "var r = []; for (var i = 0; i < 20; i++) { r.push([i, 'v' + i, {k: i}]); } return r;";
+                args_ = new Object[0];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape '" + shape_ + "'");
+        }
+    }
+
+    /**
+     * Stops the driver and the server.
+     *
+     * @throws Exception in case of error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        driver_.quit();
+        server_.stop();
+    }
+
+    /**
+     * @return the result of the script
+     */
+    @Benchmark
+    public Object executeScript() {
+        return driver_.executeScript(script_, args_);
+    }
+
+    /**
+     * @return the result of the script
+     */
+    @Benchmark
+    public Object executeAsyncScript() {
+        return driver_.executeAsyncScript("arguments[arguments.length - 1](arguments.length);", args_);
+    }
+
+    /**
+     * {@value #SEQUENTIAL_CALLS} sequential {@code executeAsyncScript} calls on the same page;
+     * the reported time is per call. Shows the per call overhead that remains once the
+     * harness is compiled (host object, unload listener, callback handoff).
+     *
+     * @return the result of the last script
+     */
+    @Benchmark
+    @OperationsPerInvocation(SEQUENTIAL_CALLS)
+    public Object executeAsyncScriptSequential() {
+        Object result = null;
+        for (int i = 0; i < SEQUENTIAL_CALLS; i++) {
+            result = driver_.executeAsyncScript("arguments[arguments.length - 1](arguments.length);", args_);
+        }
+        return result;
+    }
+}
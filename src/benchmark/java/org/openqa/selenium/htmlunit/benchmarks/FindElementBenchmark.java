@@ -0,0 +1,143 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Every {@link By} strategy on small, medium and huge pages. The single element
+ * lookups search the last row of the page, the list lookups match every row.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FindElementBenchmark {
+
+    /** The number of rows of the page. */
+    @Param({"10", "1000", "20000"})
+    private int size_;
+
+    /** The locator strategy. */
+    @Param({"id", "name", "className", "tagName", "cssSelector", "xpath", "linkText", "partialLinkText"})
+    private String strategy_;
+
+    private BenchmarkServer server_;
+    private HtmlUnitDriver driver_;
+    private By single_;
+    private By all_;
+
+    /**
+     * Loads the page.
+     *
+     * @throws Exception in case of error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server_ = new BenchmarkServer();
+        driver_ = BenchmarkServer.newDriver();
+        driver_.get(server_.url("/dom?size=" + size_));
+
+        switch (strategy_) {
+            case "id":
+                single_ = By.id("target");
+                all_ = By.id("target");
+                break;
+            case "name":
+                single_ = By.name("target");
+                all_ = By.name("target");
+                break;
+            case "className":
+                single_ = By.className("target");
+                all_ = By.className("row");
+                break;
+            case "tagName":
+                single_ = By.tagName("input");
+                all_ = By.tagName("div");
+                break;
+            case "cssSelector":
+                single_ = By.cssSelector("div.target > a");
+                all_ = By.cssSelector("div.row span.cell");
+                break;
+            case "xpath":
+                single_ = By.xpath("//div[@class='row target']/a");
+                all_ = By.xpath("//div/span[@class='cell']");
+                break;
+            case "linkText":
+                single_ = By.linkText("target");
+                all_ = By.linkText("target");
+                break;
+            case "partialLinkText":
+                single_ = By.partialLinkText("targ");
+                all_ = By.partialLinkText("link");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy '" + strategy_ + "'");
+        }
+    }
+
+    /**
+     * Stops the driver and the server.
+     *
+     * @throws Exception in case of error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        driver_.quit();
+        server_.stop();
+    }
+
+    /**
+     * @return the element found
+     */
+    @Benchmark
+    public WebElement findElement() {
+        return driver_.findElement(single_);
+    }
+
+    /**
+     * @return the number of elements found
+     */
+    @Benchmark
+    public int findElements() {
+        final List<WebElement> elements = driver_.findElements(all_);
+        return elements.size();
+    }
+}
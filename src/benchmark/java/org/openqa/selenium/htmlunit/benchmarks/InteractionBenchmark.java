@@ -0,0 +1,138 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.interactions.Actions;
+
+/**
+ * Element geometry and style, typing and the actions api.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InteractionBenchmark {
+
+    /** The number of characters typed by {@link #sendKeys()}. */
+    @Param({"100", "5000"})
+    private int length_;
+
+    private BenchmarkServer server_;
+    private HtmlUnitDriver driver_;
+    private WebElement box_;
+    private WebElement text_;
+    private WebElement button_;
+    private String keys_;
+
+    /**
+     * Loads the page.
+     *
+     * @throws Exception in case of error
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server_ = new BenchmarkServer();
+        driver_ = BenchmarkServer.newDriver();
+        driver_.get(server_.url("/form"));
+
+        box_ = driver_.findElement(By.id("box"));
+        text_ = driver_.findElement(By.id("text"));
+        button_ = driver_.findElement(By.id("button"));
+
+        final StringBuilder keys = new StringBuilder(length_);
+        for (int i = 0; i < length_; i++) {
+            keys.append((char) ('a' + i % 26));
+        }
+        keys_ = keys.toString();
+    }
+
+    /**
+     * Stops the driver and the server.
+     *
+     * @throws Exception in case of error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        driver_.quit();
+        server_.stop();
+    }
+
+    /**
+     * @return the rect of the box
+     */
+    @Benchmark
+    public Rectangle getRect() {
+        return box_.getRect();
+    }
+
+    /**
+     * @return the color of the box
+     */
+    @Benchmark
+    public String getCssValue() {
+        return box_.getCssValue("color");
+    }
+
+    /**
+     * Types a long string into the text area.
+     */
+    @Benchmark
+    public void sendKeys() {
+        text_.clear();
+        text_.sendKeys(keys_);
+    }
+
+    /**
+     * Performs a small action chain.
+     */
+    @Benchmark
+    public void actionsPerform() {
+        new Actions(driver_)
+            .moveToElement(box_)
+            .click(button_)
+            .click(text_)
+            .keyDown(Keys.SHIFT)
+            .sendKeys("ab")
+            .keyUp(Keys.SHIFT)
+            .perform();
+    }
+}
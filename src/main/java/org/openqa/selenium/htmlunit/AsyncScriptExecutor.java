@@ -21,7 +21,6 @@
 import java.util.concurrent.TimeUnit;
 
 import org.htmlunit.ScriptException;
-import org.htmlunit.ScriptResult;
 import org.htmlunit.corejs.javascript.Function;
 import org.htmlunit.corejs.javascript.NativeJavaObject;
 import org.htmlunit.corejs.javascript.lc.type.TypeInfo;
@@ -44,8 +43,59 @@
  */
 class AsyncScriptExecutor {
 
+    /**
+     * The harness around the user script; the source does not depend on the call,
+     * therefore it is compiled only once (see {@link CompiledScriptCache}).
+     * The host object, the timeout and the user function are passed as the first
+     * three arguments, followed by the script parameters.
+     */
+    private static final String HARNESS =
+            "let huDriverAsyncHarness = "
+            + "function(host, timeout, userFunction) {"
+            + "  var timeoutId;"
+
+            + "  var cleanUp = function() {"
+            + "    window.clearTimeout(timeoutId);"
+            + "    if (window.detachEvent) {"
+            + "      window.detachEvent('onunload', catchUnload);"
+            + "    } else {"
+            + "      window.removeEventListener('unload', catchUnload, false);"
+            + "    }"
+            + "  };"
+
+            + "  var catchUnload = function() {"
+            + "    cleanUp();"
+            + "    host.unload();"
+            + "  };"
+
+            // Convert the script parameters into an actual array, then add the callback object.
+            + "  var args = Array.prototype.slice.call(arguments, 3);"
+            + "  args.push(function(value) {"
+            + "    cleanUp();"
+            + "    host.callback(typeof value == 'undefined' ? null : value);"
+            + "  });"
+
+            // Add an event listener to trap unload events; page loads are not supported
+            // with async script execution.
+            + "  if (window.attachEvent) {"
+            + "    window.attachEvent('onunload', catchUnload);"
+            + "  } else {"
+            + "    window.addEventListener('unload', catchUnload, false);"
+            + "  }"
+
+            // Execute the user's script
+            + "  userFunction.apply(null, args);"
+
+            // Register our timeout for the script. If the script invokes the callback
+            // immediately (e.g. it's not really async), then this will still fire.
+            // That's OK because the host object should ignore the extra timeout.
+            + "  timeoutId = window.setTimeout(function() { host.timeout(); }, timeout);"
+            + "}; "
+            + "huDriverAsyncHarness;";
+
     private final HtmlPage page_;
     private final long timeoutMillis_;
+    private final VirtualClock virtualClock_;
     private AsyncScriptResult asyncResult_;
 
     /**
@@ -54,10 +104,12 @@ class AsyncScriptExecutor {
      * @param page          The page to inject the script into.
      * @param timeoutMillis How long to wait for the script to complete, in
      *                      milliseconds.
+     * @param virtualClock  The virtual clock advanced while waiting or {@code null}.
      */
-    AsyncScriptExecutor(final HtmlPage page, final long timeoutMillis) {
+    AsyncScriptExecutor(final HtmlPage page, final long timeoutMillis, final VirtualClock virtualClock) {
         page_ = page;
         timeoutMillis_ = timeoutMillis;
+        virtualClock_ = virtualClock;
     }
 
     void alertTriggered(final String message) {
@@ -75,17 +127,26 @@ void alertTriggered(final String message) {
     public Object execute(final String scriptBody, final Object[] parameters) {
         try {
             asyncResult_ = new AsyncScriptResult();
-            final Function function = createInjectedScriptFunction(scriptBody, asyncResult_);
+            final Function harness = (Function) CompiledScriptCache.execute(page_, HARNESS);
+            final Object userFunction = CompiledScriptCache.execute(page_,
+                    "let huDriverAsyncFoo = function() {" + scriptBody + "\n}; huDriverAsyncFoo;");
+
+            // harness(host, timeout, userFunction, ...parameters)
+            final Object[] harnessArgs = new Object[parameters.length + 3];
+            harnessArgs[0] = createHost(harness, asyncResult_);
+            harnessArgs[1] = Double.valueOf(timeoutMillis_);
+            harnessArgs[2] = userFunction;
+            System.arraycopy(parameters, 0, harnessArgs, 3, parameters.length);
 
             try {
-                page_.executeJavaScriptFunction(function, function, parameters, page_.getDocumentElement());
+                page_.executeJavaScriptFunction(harness, harness, harnessArgs, page_.getDocumentElement());
             }
             catch (final ScriptException e) {
                 throw new WebDriverException(e);
             }
 
             try {
-                return asyncResult_.waitForResult(timeoutMillis_);
+                return asyncResult_.waitForResult(timeoutMillis_, virtualClock_);
             }
             catch (final InterruptedException e) {
                 throw new WebDriverException(e);
@@ -96,63 +157,11 @@ public Object execute(final String scriptBody, final Object[] parameters) {
         }
     }
 
-    private Function createInjectedScriptFunction(final String userScript, final AsyncScriptResult asyncResult) {
-        final String script =
-                "let huDriverAsyncFoo = "
-                + "function() {"
-                + "  var self = this, timeoutId;"
-
-                + "  var cleanUp = function() {"
-                + "    window.clearTimeout(timeoutId);"
-                + "    if (window.detachEvent) {"
-                + "      window.detachEvent('onunload', catchUnload);"
-                + "    } else {"
-                + "      window.removeEventListener('unload', catchUnload, false);"
-                + "    }"
-                + "  };"
-
-                + "  var self = this, timeoutId, catchUnload = function() {"
-                + "    cleanUp();"
-                + "    self.host.unload();"
-                + "  };"
-
-                // Convert arguments into an actual array, then add the callback object.
-                + "  arguments = Array.prototype.slice.call(arguments, 0);"
-                + "  arguments.push(function(value) {"
-                + "    cleanUp();"
-                + "    self.host.callback(typeof value == 'undefined' ? null : value);"
-                + "  });"
-
-                // Add an event listener to trap unload events; page loads are not supported
-                // with async script execution.
-                + "  if (window.attachEvent) {"
-                + "    window.attachEvent('onunload', catchUnload);"
-                + "  } else {"
-                + "    window.addEventListener('unload', catchUnload, false);"
-                + "  }"
-
-                // Execute the user's script
-                + "  (function() {" + userScript + "}).apply(null, arguments);"
-
-                // Register our timeout for the script. If the script invokes the callback
-                // immediately (e.g. it's not really async), then this will still fire.
-                // That's OK because the host object should ignore the extra timeout.
-                + "  timeoutId = window.setTimeout(function() { self.host.timeout(); }, " + timeoutMillis_ + ");"
-                + "}; "
-                + "huDriverAsyncFoo;";
-
-        // Compile our script.
-        final ScriptResult result = page_.executeJavaScript(script);
-        final Function function = (Function) result.getJavaScriptResult();
-
-        // Finally, update the script with the callback host object.
+    private static NativeJavaObject createHost(final Function scope, final AsyncScriptResult asyncResult) {
         final TypeInfo staticType = TypeInfoFactory
-                                    .getOrElse(function, TypeInfoFactory.GLOBAL)
+                                    .getOrElse(scope, TypeInfoFactory.GLOBAL)
                                     .create(AsyncScriptResult.class);
-        final NativeJavaObject nativeJavaObject = new NativeJavaObject(function, asyncResult, staticType);
-        function.put("host", function, nativeJavaObject);
-
-        return function;
+        return new NativeJavaObject(scope, asyncResult, staticType);
     }
 
     /**
@@ -175,15 +184,34 @@ public static class AsyncScriptResult {
 
         /**
          * Waits for the script to signal it is done by calling {@link #callback(Object)
-         * callback}.
+         * callback}. With a virtual clock the timers of the page, including the timeout
+         * of the harness, are run in order first; the time advanced counts against the
+         * timeout.
          *
          * @return The script result.
          * @throws InterruptedException If this thread is interrupted before a result is
          *                              ready.
          */
-        Object waitForResult(final long timeoutMillis) throws InterruptedException {
+        Object waitForResult(final long timeoutMillis, final VirtualClock virtualClock)
+                throws InterruptedException {
             final long startTimeNanos = System.nanoTime();
-            latch_.await();
+            if (virtualClock != null) {
+                long virtualRemaining = timeoutMillis;
+                while (latch_.getCount() > 0) {
+                    final long advanced = virtualClock.runNextJob(virtualRemaining);
+                    if (advanced == VirtualClock.NO_JOB) {
+                        break;
+                    }
+                    virtualRemaining -= advanced;
+                }
+            }
+            final long waitStartNanos = System.nanoTime();
+            try {
+                latch_.await();
+            }
+            finally {
+                CommandTimer.waited(waitStartNanos);
+            }
             if (isTimeout_) {
                 final long elapsedTimeNanos = System.nanoTime() - startTimeNanos;
                 final long elapsedTimeMillis = TimeUnit.NANOSECONDS.toMillis(elapsedTimeNanos);
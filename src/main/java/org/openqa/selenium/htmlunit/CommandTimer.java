@@ -0,0 +1,151 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.htmlunit.metrics.DriverMetrics;
+import org.openqa.selenium.htmlunit.metrics.NoOpDriverMetrics;
+
+/**
+ * Measures the commands of a driver and reports them to its {@link DriverMetrics}
+ * and as {@link DriverEvents.CommandEvent} to the flight recorder.
+ * The timers of the commands running on a thread are kept in a thread local stack;
+ * this way code deep inside a command (waits, cache lookups) can report to the
+ * command without passing the timer around.
+ *
+ * @author agent (agent@local)
+ */
+final class CommandTimer {
+
+    private static final ThreadLocal<CommandTimer> CURRENT = new ThreadLocal<>();
+
+    private final DriverMetrics metrics_;
+    private final CommandTimer outer_;
+    private final AtomicLong waitNanos_ = new AtomicLong();
+
+    private CommandTimer(final DriverMetrics metrics, final CommandTimer outer) {
+        metrics_ = metrics;
+        outer_ = outer;
+    }
+
+    /**
+     * Runs the command and reports it to the metrics.
+     *
+     * @param <T> the result type
+     * @param metrics the metrics
+     * @param command the name of the command
+     * @param work the command
+     * @return the result of the command
+     */
+    static <T> T measure(final DriverMetrics metrics, final String command, final Supplier<T> work) {
+        final DriverEvents.CommandEvent event = new DriverEvents.CommandEvent();
+        if (metrics == NoOpDriverMetrics.INSTANCE && !event.isEnabled()) {
+            return work.get();
+        }
+
+        event.begin();
+        final CommandTimer outer = CURRENT.get();
+        final CommandTimer timer = new CommandTimer(metrics, outer);
+        CURRENT.set(timer);
+        boolean failed = true;
+        final long start = System.nanoTime();
+        try {
+            final T result = work.get();
+            failed = false;
+            return result;
+        }
+        finally {
+            final long total = System.nanoTime() - start;
+            CURRENT.set(outer);
+            final long wait = Math.min(total, timer.waitNanos_.get());
+            metrics.commandCompleted(command, total - wait, wait, failed);
+            event.commit(command, wait, failed);
+        }
+    }
+
+    /**
+     * Runs the command and reports it to the metrics.
+     *
+     * @param metrics the metrics
+     * @param command the name of the command
+     * @param work the command
+     */
+    static void measure(final DriverMetrics metrics, final String command, final Runnable work) {
+        measure(metrics, command, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Adds the time since the given start to the wait time of all commands running on
+     * this thread.
+     *
+     * @param startNanos the start of the wait ({@link System#nanoTime()})
+     */
+    static void waited(final long startNanos) {
+        CommandTimer timer = CURRENT.get();
+        if (timer == null) {
+            return;
+        }
+        final long nanos = System.nanoTime() - startNanos;
+        while (timer != null) {
+            timer.waitNanos_.addAndGet(nanos);
+            timer = timer.outer_;
+        }
+    }
+
+    /**
+     * Reports a cache lookup to the metrics of the command running on this thread.
+     *
+     * @param cache the name of the cache
+     * @param hit whether the value was found
+     */
+    static void cacheAccessed(final String cache, final boolean hit) {
+        final CommandTimer timer = CURRENT.get();
+        if (timer != null) {
+            timer.metrics_.cacheAccessed(cache, hit);
+        }
+    }
+
+    /**
+     * Wraps the task to report to the commands running on the calling thread
+     * when run on another thread.
+     *
+     * @param task the task
+     * @return the wrapped task
+     */
+    static Runnable propagate(final Runnable task) {
+        final CommandTimer timer = CURRENT.get();
+        if (timer == null) {
+            return task;
+        }
+        return () -> {
+            final CommandTimer previous = CURRENT.get();
+            CURRENT.set(timer);
+            try {
+                task.run();
+            }
+            finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,153 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.Objects;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.corejs.javascript.Script;
+import org.htmlunit.corejs.javascript.Scriptable;
+import org.htmlunit.html.HtmlPage;
+import org.htmlunit.javascript.AbstractJavaScriptEngine;
+import org.htmlunit.javascript.JavaScriptEngine;
+
+/**
+ * JVM wide cache of the compiled scripts used by
+ * {@link HtmlUnitDriver#executeScript(String, Object...)}. Frameworks send the same
+ * few scripts (atoms like isDisplayed or getAttribute) over and over again; with this
+ * cache every script is compiled only once per {@link BrowserVersion}. The compiled
+ * scripts are not bound to a scope; every call only evaluates the script in the scope
+ * of the current page to get the function. The least recently used entries are evicted.
+ * <p>
+ * The maximum size defaults to {@value #DEFAULT_MAX_SIZE} and can be changed using
+ * the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or {@link #setMaxSize(int)}.
+ *
+ * @author agent (agent@local)
+ */
+public final class CompiledScriptCache {
+
+    /** The default maximum number of cached scripts. */
+    public static final int DEFAULT_MAX_SIZE = 200;
+
+    /** The system property to configure the maximum number of cached scripts. */
+    public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.scriptCacheSize";
+
+    private static final String SOURCE_NAME = "injected script";
+
+    private static final LruCache<Key, Script> CACHE =
+            new LruCache<>("compiledScript", Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private CompiledScriptCache() {
+    }
+
+    /**
+     * Evaluates the source in the scope of the page the same way
+     * {@link HtmlPage#executeJavaScript(String)} does, but compiles the source only
+     * if it is not already cached.
+     *
+     * @param page the page
+     * @param source the source
+     * @return the result of the evaluation
+     */
+    static Object execute(final HtmlPage page, final String source) {
+        final AbstractJavaScriptEngine<?> engine = page.getWebClient().getJavaScriptEngine();
+        if (!(engine instanceof JavaScriptEngine)) {
+            return page.executeJavaScript(source).getJavaScriptResult();
+        }
+
+        final JavaScriptEngine javaScriptEngine = (JavaScriptEngine) engine;
+        final Scriptable scope = page.getEnclosingWindow().getScriptableObject();
+        final BrowserVersion browserVersion = page.getWebClient().getBrowserVersion();
+
+        final Script script = CACHE.get(new Key(source, browserVersion),
+                key -> javaScriptEngine.compile(page, scope, key.source_, SOURCE_NAME, 1));
+        if (script == null) {
+            // compile errors are already reported by the engine
+            return null;
+        }
+        return javaScriptEngine.execute(page, scope, script);
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return the number of lookups that had to compile the script
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return the number of cached scripts
+     */
+    public static int getSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * @return the maximum number of cached scripts
+     */
+    public static int getMaxSize() {
+        return CACHE.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of cached scripts.
+     *
+     * @param maxSize the maximum number of cached scripts; {@code 0} disables the cache
+     */
+    public static void setMaxSize(final int maxSize) {
+        CACHE.setMaxSize(maxSize);
+    }
+
+    /**
+     * Removes all cached scripts and resets the counters.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static final class Key {
+        private final String source_;
+        private final BrowserVersion browserVersion_;
+
+        Key(final String source, final BrowserVersion browserVersion) {
+            source_ = source;
+            browserVersion_ = browserVersion;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return source_.equals(other.source_) && browserVersion_.equals(other.browserVersion_);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source_, browserVersion_);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.css.CssStyleSheet;
+import org.htmlunit.cssparser.parser.CSSErrorHandler;
+import org.htmlunit.cssparser.parser.CSSException;
+import org.htmlunit.cssparser.parser.CSSOMParser;
+import org.htmlunit.cssparser.parser.CSSParseException;
+import org.htmlunit.cssparser.parser.javacc.CSS3Parser;
+import org.htmlunit.cssparser.parser.selector.Selector;
+import org.htmlunit.cssparser.parser.selector.SelectorList;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+
+/**
+ * JVM wide cache of parsed CSS selectors used by the css selector and class name
+ * locators. {@link DomNode#querySelectorAll(String)} parses the selector string
+ * on every call; the same few selectors used by page objects are therefore
+ * parsed over and over again. The cache is keyed by the selector string and the
+ * {@link BrowserVersion} and evicts the least recently used entries.
+ * <p>
+ * The maximum size defaults to {@value #DEFAULT_MAX_SIZE} and can be changed using
+ * the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or {@link #setMaxSize(int)}.
+ *
+ * @author agent (agent@local)
+ */
+public final class CssSelectorCache {
+
+    /** The default maximum number of cached selectors. */
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    /** The system property to configure the maximum number of cached selectors. */
+    public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.cssSelectorCacheSize";
+
+    private static final LruCache<Key, SelectorList> CACHE =
+            new LruCache<>("cssSelector", Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private CssSelectorCache() {
+    }
+
+    /**
+     * Returns the elements below the given node matching the selectors, the same
+     * way {@link DomNode#querySelectorAll(String)} does.
+     *
+     * @param root the node to search in
+     * @param selectors the selectors
+     * @param firstOnly whether to stop at the first match
+     * @return the matching elements in document order
+     * @throws CSSException if the selectors are invalid
+     */
+    static List<DomElement> select(final DomNode root, final String selectors, final boolean firstOnly) {
+        final Predicate<DomElement> matcher = matcher(root, selectors);
+
+        final List<DomElement> result = new ArrayList<>();
+        for (final DomElement element : root.getDomElementDescendants()) {
+            if (matcher.test(element)) {
+                result.add(element);
+                if (firstOnly) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a predicate testing if an element below the given node is selected by
+     * the selectors; used to evaluate many selectors in one walk over the descendants.
+     *
+     * @param root the node to search in
+     * @param selectors the selectors
+     * @return the predicate
+     * @throws CSSException if the selectors are invalid
+     */
+    static Predicate<DomElement> matcher(final DomNode root, final String selectors) {
+        final BrowserVersion browserVersion = root.getPage().getWebClient().getBrowserVersion();
+        final SelectorList selectorList = CACHE.get(new Key(selectors, browserVersion), CssSelectorCache::parse);
+        if (selectorList == null) {
+            return element -> false;
+        }
+        // validation depends on the node (e.g. document mode), only the parsing is cached
+        CssStyleSheet.validateSelectors(selectorList, root);
+
+        return element -> {
+            for (final Selector selector : selectorList) {
+                if (CssStyleSheet.selects(browserVersion, selector, element, null, true, true)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static SelectorList parse(final Key key) {
+        final CSSOMParser parser = new CSSOMParser(new CSS3Parser());
+        final ErrorHandler errorHandler = new ErrorHandler();
+        parser.setErrorHandler(errorHandler);
+        try {
+            final SelectorList selectorList = parser.parseSelectors(key.selectors_);
+            if (errorHandler.error_ != null) {
+                throw new CSSException("Invalid selectors: '" + key.selectors_ + "'", errorHandler.error_);
+            }
+            return selectorList;
+        }
+        catch (final IOException e) {
+            throw new CSSException("Error parsing CSS selectors from '" + key.selectors_ + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return the number of lookups that had to parse the selectors
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return the number of cached selectors
+     */
+    public static int getSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * @return the maximum number of cached selectors
+     */
+    public static int getMaxSize() {
+        return CACHE.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of cached selectors.
+     *
+     * @param maxSize the maximum number of cached selectors; {@code 0} disables the cache
+     */
+    public static void setMaxSize(final int maxSize) {
+        CACHE.setMaxSize(maxSize);
+    }
+
+    /**
+     * Removes all cached selectors and resets the counters.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static final class Key {
+        private final String selectors_;
+        private final BrowserVersion browserVersion_;
+
+        Key(final String selectors, final BrowserVersion browserVersion) {
+            selectors_ = selectors;
+            browserVersion_ = browserVersion;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return selectors_.equals(other.selectors_) && browserVersion_.equals(other.browserVersion_);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(selectors_, browserVersion_);
+        }
+    }
+
+    private static final class ErrorHandler implements CSSErrorHandler {
+        private CSSParseException error_;
+
+        @Override
+        public void warning(final CSSParseException exception) {
+            // ignore
+        }
+
+        @Override
+        public void error(final CSSParseException exception) {
+            error_ = exception;
+        }
+
+        @Override
+        public void fatalError(final CSSParseException exception) {
+            error_ = exception;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.htmlunit.Page;
+import org.htmlunit.SgmlPage;
+import org.htmlunit.WebClient;
+import org.htmlunit.WebWindowEvent;
+import org.htmlunit.WebWindowListener;
+import org.htmlunit.html.CharacterDataChangeEvent;
+import org.htmlunit.html.CharacterDataChangeListener;
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+import org.htmlunit.html.HtmlAttributeChangeEvent;
+import org.htmlunit.html.HtmlAttributeChangeListener;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * Supports the implicit wait of the driver. Instead of re-running the condition
+ * in fixed intervals, the waiter listens for changes of the watched page (nodes
+ * added or removed, attribute or text changes) and for new content of any window;
+ * the condition is only evaluated again if something has changed.
+ * <p>
+ * Pages not being a {@link SgmlPage} do not report changes, for them the waiter
+ * falls back to polling. Changes not reported by HtmlUnit as DOM mutation (e.g.
+ * style sheet rules modified by script) are picked up by a slow periodic recheck.
+ * <p>
+ * The listeners are only registered while waiting, because notifying them slows
+ * down every DOM modification.
+ *
+ * @author agent (agent@local)
+ */
+@SuppressWarnings("serial")
+final class DomChangeWaiter implements AutoCloseable, WebWindowListener,
+        DomChangeListener, HtmlAttributeChangeListener, CharacterDataChangeListener {
+
+    /** The polling interval used for pages not reporting changes. */
+    static final long POLL_INTERVAL = 200;
+
+    /** The interval used to recheck the condition even if no change was reported. */
+    static final long RECHECK_INTERVAL = 1_000;
+
+    private final transient WebClient webClient_;
+    private final transient Lock lock_ = new ReentrantLock();
+    private final transient Condition changed_ = lock_.newCondition();
+    private long changeCount_;
+    private transient SgmlPage page_;
+
+    /**
+     * Creates a new waiter.
+     *
+     * @param webClient the client to listen for window content changes
+     */
+    DomChangeWaiter(final WebClient webClient) {
+        webClient_ = webClient;
+        webClient_.addWebWindowListener(this);
+    }
+
+    /**
+     * Starts watching the given page; a page watched before is released.
+     * Has to be called before evaluating the condition, the returned value
+     * has to be passed to {@link #awaitChange(long, long)} afterwards.
+     *
+     * @param page the page the condition is evaluated on; might be {@code null}
+     * @return the change count seen before evaluating the condition
+     */
+    long watch(final Page page) {
+        if (page != page_) {
+            unwatch();
+            if (page instanceof SgmlPage) {
+                page_ = (SgmlPage) page;
+                page_.addDomChangeListener(this);
+                page_.addCharacterDataChangeListener(this);
+                if (page_ instanceof HtmlPage) {
+                    ((HtmlPage) page_).addHtmlAttributeChangeListener(this);
+                }
+            }
+        }
+
+        lock_.lock();
+        try {
+            return changeCount_;
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Waits until something has changed since the given change count was seen, the
+     * recheck (or polling) interval has elapsed or the given time is over.
+     *
+     * @param seenChangeCount the value returned by {@link #watch(Page)}
+     * @param maxWaitMillis the maximum time to wait
+     */
+    void awaitChange(final long seenChangeCount, final long maxWaitMillis) {
+        final long interval = page_ != null ? RECHECK_INTERVAL : POLL_INTERVAL;
+        long nanos = TimeUnit.MILLISECONDS.toNanos(Math.min(interval, maxWaitMillis));
+
+        lock_.lock();
+        try {
+            while (changeCount_ == seenChangeCount && nanos > 0) {
+                nanos = changed_.awaitNanos(nanos);
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * Removes all listeners.
+     */
+    @Override
+    public void close() {
+        unwatch();
+        webClient_.removeWebWindowListener(this);
+    }
+
+    private void unwatch() {
+        if (page_ != null) {
+            page_.removeDomChangeListener(this);
+            page_.removeCharacterDataChangeListener(this);
+            if (page_ instanceof HtmlPage) {
+                ((HtmlPage) page_).removeHtmlAttributeChangeListener(this);
+            }
+            page_ = null;
+        }
+    }
+
+    private void changed() {
+        lock_.lock();
+        try {
+            changeCount_++;
+            changed_.signalAll();
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+
+    @Override
+    public void webWindowOpened(final WebWindowEvent event) {
+        // nothing to do
+    }
+
+    @Override
+    public void webWindowContentChanged(final WebWindowEvent event) {
+        changed();
+    }
+
+    @Override
+    public void webWindowClosed(final WebWindowEvent event) {
+        changed();
+    }
+
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeAdded(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        changed();
+    }
+
+    @Override
+    public void characterDataChanged(final CharacterDataChangeEvent event) {
+        changed();
+    }
+}
@@ -0,0 +1,61 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+
+/**
+ * Counts the nodes removed from the page this is registered at. An element can
+ * only get detached from the page by removing the element itself or one of its
+ * ancestors; as long as the detach epoch is the same, an element found attached
+ * before is still attached. This allows the driver to skip the walk up to the page
+ * for the staleness check of elements used again and again.
+ * <p>
+ * Adding nodes does not change the epoch; an element reattached after being
+ * detached was never recorded as attached.
+ *
+ * @author agent (agent@local)
+ */
+@SuppressWarnings("serial")
+final class DomDetachTracker implements DomChangeListener {
+
+    /** Epoch value never returned by {@link #getDetachEpoch()}. */
+    static final long NO_EPOCH = -1;
+
+    private final AtomicLong detachEpoch_ = new AtomicLong();
+
+    /**
+     * @return the number of node removals seen so far
+     */
+    long getDetachEpoch() {
+        return detachEpoch_.get();
+    }
+
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        // can't detach anything
+    }
+
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        detachEpoch_.incrementAndGet();
+    }
+}
@@ -0,0 +1,312 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.net.URL;
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import org.htmlunit.Page;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * The Java Flight Recorder events of the driver. All events are in the category
+ * <b>Selenium / HtmlUnitDriver</b> and named {@code org.openqa.selenium.htmlunit.*};
+ * enable them e.g. with {@code -XX:StartFlightRecording} and a settings file
+ * or in JDK Mission Control.
+ * <p>
+ * The events are cheap as long as no recording is running; the fields are only
+ * filled in if the event is committed.
+ *
+ * @author agent (agent@local)
+ */
+final class DriverEvents {
+
+    private static final int MAX_TEXT_LENGTH = 256;
+
+    private DriverEvents() {
+    }
+
+    /**
+     * A driver command measured by the {@link CommandTimer}.
+     */
+    @Name("org.openqa.selenium.htmlunit.Command")
+    @Label("Driver Command")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    @Description("A WebDriver command; nested commands show up as nested events")
+    static final class CommandEvent extends Event {
+        @Name("command")
+        @Label("Command")
+        private String command_;
+
+        @Name("wait")
+        @Label("Wait")
+        @Description("The part of the duration spent waiting for the page, timers or scripts")
+        @Timespan
+        private long wait_;
+
+        @Name("failed")
+        @Label("Failed")
+        private boolean failed_;
+
+        void commit(final String command, final long waitNanos, final boolean failed) {
+            end();
+            if (shouldCommit()) {
+                command_ = command;
+                wait_ = waitNanos;
+                failed_ = failed;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A task handed to the executor of the driver (see {@link HtmlUnitDriver#runAsync(Runnable)}).
+     */
+    @Name("org.openqa.selenium.htmlunit.AsyncTask")
+    @Label("Driver Async Task")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    @Description("A task run by the executor of the driver, including the wait for the previous one")
+    static final class AsyncTaskEvent extends Event {
+        @Name("pageLoadStrategy")
+        @Label("Page Load Strategy")
+        private String pageLoadStrategy_;
+
+        @Name("gateWait")
+        @Label("Gate Wait")
+        @Description("The time spent waiting for the previous task to finish")
+        @Timespan
+        private long gateWait_;
+
+        @Name("failed")
+        @Label("Failed")
+        private boolean failed_;
+
+        void commit(final String pageLoadStrategy, final long gateWaitNanos, final boolean failed) {
+            end();
+            if (shouldCommit()) {
+                pageLoadStrategy_ = pageLoadStrategy;
+                gateWait_ = gateWaitNanos;
+                failed_ = failed;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The load of a page.
+     */
+    @Name("org.openqa.selenium.htmlunit.Navigation")
+    @Label("Navigation")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    static final class NavigationEvent extends Event {
+        @Name("url")
+        @Label("URL")
+        private String url_;
+
+        @Name("statusCode")
+        @Label("Status Code")
+        private int statusCode_;
+
+        void commit(final URL url, final HtmlUnitDriver driver) {
+            end();
+            if (shouldCommit()) {
+                url_ = url.toExternalForm();
+                final Page page = pageOf(driver);
+                statusCode_ = page == null ? 0 : page.getWebResponse().getStatusCode();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A single lookup of a locator; an implicit wait might run many of them for one command.
+     */
+    @Name("org.openqa.selenium.htmlunit.Locate")
+    @Label("Locate Elements")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    static final class LocateEvent extends Event {
+        @Name("locatorType")
+        @Label("Locator Type")
+        private String locatorType_;
+
+        @Name("selector")
+        @Label("Selector")
+        private String selector_;
+
+        @Name("resultCount")
+        @Label("Result Count")
+        private int resultCount_;
+
+        @Name("url")
+        @Label("Page URL")
+        private String url_;
+
+        void commit(final By locator, final Object result, final HtmlUnitDriver driver) {
+            end();
+            if (shouldCommit()) {
+                locatorType_ = locator.getClass().getSimpleName();
+                selector_ = truncate(locator.toString());
+                if (result instanceof List) {
+                    resultCount_ = ((List<?>) result).size();
+                }
+                else {
+                    resultCount_ = result == null ? 0 : 1;
+                }
+                url_ = urlOf(driver);
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The execution of a script passed to the driver.
+     */
+    @Name("org.openqa.selenium.htmlunit.ExecuteScript")
+    @Label("Execute Script")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    static final class ScriptEvent extends Event {
+        @Name("async")
+        @Label("Async")
+        private boolean async_;
+
+        @Name("script")
+        @Label("Script")
+        @Description("The script, truncated to " + MAX_TEXT_LENGTH + " characters")
+        private String script_;
+
+        @Name("scriptLength")
+        @Label("Script Length")
+        private int scriptLength_;
+
+        @Name("argumentCount")
+        @Label("Argument Count")
+        private int argumentCount_;
+
+        @Name("url")
+        @Label("Page URL")
+        private String url_;
+
+        void commit(final boolean async, final String script, final Object[] args, final HtmlUnitDriver driver) {
+            end();
+            if (shouldCommit()) {
+                async_ = async;
+                script_ = truncate(script);
+                scriptLength_ = script.length();
+                argumentCount_ = args == null ? 0 : args.length;
+                url_ = urlOf(driver);
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The implicit wait of a find command.
+     */
+    @Name("org.openqa.selenium.htmlunit.ImplicitWait")
+    @Label("Implicit Wait")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    static final class ImplicitWaitEvent extends Event {
+        @Name("timeout")
+        @Label("Timeout")
+        @Timespan(Timespan.MILLISECONDS)
+        private long timeout_;
+
+        @Name("attempts")
+        @Label("Attempts")
+        private int attempts_;
+
+        @Name("found")
+        @Label("Found")
+        private boolean found_;
+
+        void commit(final long timeoutMillis, final int attempts, final boolean found) {
+            end();
+            if (shouldCommit()) {
+                timeout_ = timeoutMillis;
+                attempts_ = attempts;
+                found_ = found;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A dialog (alert, confirm, prompt, beforeunload) blocking the page script until handled.
+     */
+    @Name("org.openqa.selenium.htmlunit.Dialog")
+    @Label("Dialog")
+    @Category({"Selenium", "HtmlUnitDriver"})
+    static final class DialogEvent extends Event {
+        @Name("type")
+        @Label("Type")
+        private String type_;
+
+        @Name("message")
+        @Label("Message")
+        private String message_;
+
+        @Name("accepted")
+        @Label("Accepted")
+        private boolean accepted_;
+
+        @Name("url")
+        @Label("Page URL")
+        private String url_;
+
+        void commit(final String type, final String message, final boolean accepted, final Page page) {
+            end();
+            if (shouldCommit()) {
+                type_ = type;
+                message_ = truncate(message);
+                accepted_ = accepted;
+                url_ = page == null ? null : page.getUrl().toExternalForm();
+                commit();
+            }
+        }
+    }
+
+    private static Page pageOf(final HtmlUnitDriver driver) {
+        try {
+            return driver.getCurrentWindow().lastPage();
+        }
+        catch (final WebDriverException e) {
+            // session or window already closed
+            return null;
+        }
+    }
+
+    private static String urlOf(final HtmlUnitDriver driver) {
+        final Page page = pageOf(driver);
+        return page == null ? null : page.getUrl().toExternalForm();
+    }
+
+    private static String truncate(final String text) {
+        if (text == null || text.length() <= MAX_TEXT_LENGTH) {
+            return text;
+        }
+        return text.substring(0, MAX_TEXT_LENGTH);
+    }
+}
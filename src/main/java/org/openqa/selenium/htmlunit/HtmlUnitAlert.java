@@ -47,7 +47,7 @@ public class HtmlUnitAlert implements Alert {
     private final HtmlUnitDriver driver_;
 
     /** Holds the current alert state and message. */
-    private AlertHolder holder_;
+    private volatile AlertHolder holder_;
 
     /** Indicates whether the driver is quitting. */
     private boolean quitting_;
@@ -58,6 +58,9 @@ public class HtmlUnitAlert implements Alert {
     /** Condition used to signal when an alert is available. */
     private final Condition condition_ = lock_.newCondition();
 
+    /** Incremented (guarded by {@link #lock_}) every time the waiting handler is released. */
+    private long releaseCount_;
+
     /** The {@link WebWindow} currently associated with alert events. */
     private WebWindow webWindow_;
 
@@ -85,7 +88,7 @@ private void alertHandler(final Page page, final String message) {
         }
         webWindow_ = page.getEnclosingWindow();
         holder_ = new AlertHolder(message);
-        awaitCondition();
+        awaitCondition("alert", page, holder_);
     }
 
     private boolean confirmHandler(final Page page, final String message) {
@@ -95,16 +98,33 @@ private boolean confirmHandler(final Page page, final String message) {
         webWindow_ = page.getEnclosingWindow();
         holder_ = new AlertHolder(message);
         final AlertHolder localHolder = holder_;
-        awaitCondition();
+        awaitCondition("confirm", page, localHolder);
         return localHolder.isAccepted();
     }
 
+    private void awaitCondition(final String type, final Page page, final AlertHolder holder) {
+        final DriverEvents.DialogEvent event = new DriverEvents.DialogEvent();
+        event.begin();
+        try {
+            awaitCondition();
+        }
+        finally {
+            event.commit(type, holder.message_, holder.isAccepted(), page);
+        }
+    }
+
     private void awaitCondition() {
         lock_.lock();
         try {
             if (driver_.isProcessAlert()) {
+                final long releaseCount = releaseCount_;
                 try {
-                    condition_.await(5, TimeUnit.SECONDS);
+                    // the command might run on a pooled or virtual thread; loop
+                    // to survive spurious wakeups until the alert is handled
+                    long nanos = TimeUnit.SECONDS.toNanos(5);
+                    while (releaseCount == releaseCount_ && nanos > 0) {
+                        nanos = condition_.awaitNanos(nanos);
+                    }
                 }
                 catch (final InterruptedException e) {
                     throw new RuntimeException(e);
@@ -123,7 +143,7 @@ private String promptHandler(final Page page, final String message, final String
         webWindow_ = page.getEnclosingWindow();
         holder_ = new PromptHolder(message, defaultMessage);
         final PromptHolder localHolder = (PromptHolder) holder_;
-        awaitCondition();
+        awaitCondition("prompt", page, localHolder);
         return localHolder.value_;
     }
 
@@ -134,7 +154,7 @@ private boolean onbeforeunloadHandler(final Page page, final String returnValue)
         webWindow_ = page.getEnclosingWindow();
         holder_ = new AlertHolder(returnValue);
         final AlertHolder localHolder = holder_;
-        awaitCondition();
+        awaitCondition("beforeunload", page, localHolder);
         return localHolder.isAccepted();
     }
 
@@ -173,11 +193,13 @@ public void handleBrowserCapabilities(final Capabilities capabilities) {
     public void dismiss() {
         lock_.lock();
         try {
+            // reset before releasing the handler, the script might raise the next alert right away
+            holder_ = null;
+            releaseCount_++;
             condition_.signal();
         }
         finally {
             lock_.unlock();
-            holder_ = null;
         }
     }
 
@@ -186,11 +208,12 @@ public void accept() {
         lock_.lock();
         try {
             holder_.accept();
+            holder_ = null;
+            releaseCount_++;
             condition_.signal();
         }
         finally {
             lock_.unlock();
-            holder_ = null;
         }
     }
 
@@ -216,12 +239,13 @@ public void sendKeys(final String keysToSend) {
     void close() {
         lock_.lock();
         try {
+            holder_ = null;
+            releaseCount_++;
             condition_.signal();
             setAutoAccept(true);
         }
         finally {
             lock_.unlock();
-            holder_ = null;
         }
     }
 
@@ -316,6 +340,7 @@ void sendKeys(String keysToSend) {
 
         @Override
         void accept() {
+            super.accept();
             if (value_ == null) {
                 value_ = defaultMessage_;
             }
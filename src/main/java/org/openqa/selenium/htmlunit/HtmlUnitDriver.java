@@ -27,12 +27,15 @@
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -40,12 +43,16 @@
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import javax.net.ssl.SSLHandshakeException;
 
@@ -76,6 +83,7 @@
 import org.htmlunit.html.HtmlElement;
 import org.htmlunit.html.HtmlPage;
 import org.htmlunit.javascript.HtmlUnitScriptable;
+import org.htmlunit.javascript.background.JavaScriptJobManager;
 import org.htmlunit.javascript.host.Element;
 import org.htmlunit.javascript.host.Location;
 import org.htmlunit.javascript.host.html.DocumentProxy;
@@ -101,7 +109,10 @@
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.WrapsElement;
 import org.openqa.selenium.htmlunit.logging.HtmlUnitLogs;
+import org.openqa.selenium.htmlunit.metrics.DriverMetrics;
+import org.openqa.selenium.htmlunit.metrics.NoOpDriverMetrics;
 import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+import org.openqa.selenium.htmlunit.options.HtmlUnitOption;
 import org.openqa.selenium.htmlunit.w3.Action;
 import org.openqa.selenium.htmlunit.w3.Algorithms;
 import org.openqa.selenium.interactions.Interactive;
@@ -132,8 +143,6 @@
  */
 public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabilities, Interactive {
 
-    private static final int sleepTime = 200;
-
     private WebClient webClient_;
     private final HtmlUnitAlert alert_;
     private HtmlUnitWindow currentWindow_;
@@ -143,7 +152,18 @@ public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabil
     private AsyncScriptExecutor asyncScriptExecutor_;
     private PageLoadStrategy pageLoadStrategy_ = PageLoadStrategy.NORMAL;
     private final ElementsMap elementsMap_ = new ElementsMap();
+    private final Map<SgmlPage, DomDetachTracker> detachTrackers_ = new WeakHashMap<>();
+    /** The origins of all pages loaded since the last {@link #reset()}; their local storage is cleared there. */
+    private final Map<String, URL> storageOrigins_ = new ConcurrentHashMap<>();
     private final Options options_;
+    private final HtmlUnitDriverOptions driverOptions_;
+    private final VirtualClock virtualClock_;
+    private final InFlightWebConnection webConnection_;
+    private volatile DriverMetrics metrics_ = NoOpDriverMetrics.INSTANCE;
+    private final long memoryBudget_;
+    /** Set if a page was loaded since the last check of the memory budget. */
+    private volatile boolean pageChangedSinceMemoryCheck_;
+    private final AtomicInteger commandsSinceMemoryCheck_ = new AtomicInteger();
 
     private final HtmlUnitElementFinder elementFinder_;
     private HtmlUnitInputProcessor inputProcessor_ = new HtmlUnitInputProcessor(this);
@@ -158,14 +178,31 @@ public class HtmlUnitDriver implements WebDriver, JavascriptExecutor, HasCapabil
     public static final String JAVASCRIPT_ENABLED = "javascriptEnabled";
 
     /**
-     * The Lock for the {@link #mainCondition_}, which waits at the end of
-     * {@link #runAsync(Runnable)} till either and alert is triggered, or
-     * {@link Runnable} finishes.
+     * Only one synchronous command is processed at a time; the gate is fair, therefore
+     * waiting commands are processed in FIFO order. The permit is taken by
+     * {@link #runAsync(Runnable)} and given back by the executor thread as soon as
+     * the command is done.
+     */
+    private final Semaphore commandGate_ = new Semaphore(1, true);
+
+    /** The commands checked against the {@link HtmlUnitOption#MEMORY_BUDGET memory budget}. */
+    private static final Set<String> MEMORY_CHECKED_COMMANDS = new HashSet<>(Arrays.asList(
+            "get", "back", "forward", "refresh", "executeScript", "executeAsyncScript", "perform",
+            "element.click", "element.sendKeys", "element.submit"));
+
+    /**
+     * The memory budget is checked after every command loading a page; otherwise only every
+     * this many of the {@link #MEMORY_CHECKED_COMMANDS} because the check walks all pages.
+     */
+    private static final int MEMORY_CHECK_INTERVAL = 20;
+
+    /** The interval used by {@link #waitForIdle(Duration)} to check for alerts. */
+    private static final long IDLE_RECHECK_INTERVAL = 100;
+    /**
+     * The completion of the running synchronous command; completed early if the
+     * command triggers an alert.
      */
-    private final Lock conditionLock_ = new ReentrantLock();
-    private final Condition mainCondition_ = conditionLock_.newCondition();
-    private boolean runAsyncRunning_;
-    private RuntimeException exception_;
+    private volatile CompletableFuture<Void> currentCommand_;
     private final ExecutorService defaultExecutor_;
     private Executor executor_;
 
@@ -226,12 +263,29 @@ public HtmlUnitDriver(final Capabilities desiredCapabilities, final Capabilities
      *                     session
      */
     public HtmlUnitDriver(final Capabilities capabilities) {
-        final HtmlUnitDriverOptions driverOptions = new HtmlUnitDriverOptions(capabilities);
-        webClient_ = newWebClient(driverOptions.getWebClientVersion());
+        driverOptions_ = new HtmlUnitDriverOptions(capabilities);
+        memoryBudget_ = driverOptions_.getMemoryBudget();
+        final String executorMode = driverOptions_.getExecutorMode();
+        if (HtmlUnitExecutors.DEDICATED.equals(executorMode)) {
+            defaultExecutor_ = Executors.newCachedThreadPool();
+            executor_ = defaultExecutor_;
+        }
+        else {
+            // the shared executors are not owned by this driver
+            defaultExecutor_ = null;
+            executor_ = HtmlUnitExecutors.getExecutor(executorMode);
+        }
 
-        setAcceptInsecureCerts(Boolean.FALSE != driverOptions.getCapability(ACCEPT_INSECURE_CERTS));
+        webClient_ = newWebClient(driverOptions_.getWebClientVersion());
+        virtualClock_ = driverOptions_.isVirtualClock() ? new VirtualClock(this) : null;
+        HttpArchive.install(webClient_, driverOptions_.getHttpArchiveMode(), driverOptions_.getHttpArchive());
+        SharedResponseCache.install(webClient_, driverOptions_.getSharedResponseCache());
+        if (driverOptions_.isSharedScriptCache()) {
+            SharedScriptCache.install(webClient_);
+        }
+        webConnection_ = new InFlightWebConnection(webClient_);
 
-        final String pageLoadStrategyString = (String) driverOptions.getCapability(PAGE_LOAD_STRATEGY);
+        final String pageLoadStrategyString = (String) driverOptions_.getCapability(PAGE_LOAD_STRATEGY);
         if ("none".equals(pageLoadStrategyString)) {
             pageLoadStrategy_ = PageLoadStrategy.NONE;
         }
@@ -239,23 +293,18 @@ else if ("eager".equals(pageLoadStrategyString)) {
             pageLoadStrategy_ = PageLoadStrategy.EAGER;
         }
 
+        applyClientOptions();
         final WebClientOptions clientOptions = webClient_.getOptions();
-        driverOptions.applyOptions(clientOptions);
 
-        setProxySettings(Proxy.extractFrom(driverOptions));
-
-        webClient_.setRefreshHandler(new WaitingRefreshHandler());
+        webClient_.setRefreshHandler(virtualClock_ != null ? virtualClock_ : new WaitingRefreshHandler());
         webClient_.setClipboardHandler(new AwtClipboardHandler());
 
         elementFinder_ = new HtmlUnitElementFinder();
 
         alert_ = new HtmlUnitAlert(this);
-        alert_.handleBrowserCapabilities(driverOptions);
+        alert_.handleBrowserCapabilities(driverOptions_);
         currentWindow_ = new HtmlUnitWindow(webClient_.getCurrentWindow());
 
-        defaultExecutor_ = Executors.newCachedThreadPool();
-        executor_ = defaultExecutor_;
-
         // Now put us on the home page, like a real browser
         get(clientOptions.getHomePage());
 
@@ -275,7 +324,10 @@ public void webWindowOpened(final WebWindowEvent webWindowEvent) {
 
             @Override
             public void webWindowContentChanged(final WebWindowEvent event) {
+                pageChangedSinceMemoryCheck_ = true;
+                rememberStorageOrigin(event.getNewPage());
                 elementsMap_.remove(event.getOldPage());
+                releaseDetachTracker(event.getOldPage());
                 if (event.getWebWindow() != currentWindow_.getWebWindow()) {
                     return;
                 }
@@ -287,6 +339,7 @@ public void webWindowContentChanged(final WebWindowEvent event) {
             @Override
             public void webWindowClosed(final WebWindowEvent event) {
                 elementsMap_.remove(event.getOldPage());
+                releaseDetachTracker(event.getOldPage());
 
                 // the last window is gone
                 if (getWebClient().getTopLevelWindows().size() == 0) {
@@ -314,6 +367,62 @@ public void webWindowClosed(final WebWindowEvent event) {
         modifyWebClient(webClient_);
     }
 
+    /**
+     * Applies the options this driver was created with to the underlying {@link WebClient}.
+     */
+    private void applyClientOptions() {
+        setAcceptInsecureCerts(Boolean.FALSE != driverOptions_.getCapability(ACCEPT_INSECURE_CERTS));
+        driverOptions_.applyOptions(webClient_.getOptions());
+        setProxySettings(Proxy.extractFrom(driverOptions_));
+    }
+
+    /**
+     * Resets this driver to a state equivalent to a freshly constructed one, without
+     * tearing down the underlying {@link WebClient}.
+     *
+     * <p>All windows are replaced by a single new window showing the home page, cookies,
+     * the local storage of all visited origins and the credentials are removed, pending
+     * alerts are closed, keyboard and mouse state is discarded, known elements are
+     * forgotten, and timeouts as well as the {@link WebClient} options are restored to
+     * the values the driver was created with.</p>
+     *
+     * <p>This is intended for pooling drivers (see {@link HtmlUnitDriverPool}); a reset
+     * is much cheaper than constructing a new driver.</p>
+     *
+     * @throws NoSuchSessionException if the driver has already been quit
+     */
+    public void reset() {
+        final WebClient webClient = getWebClient();
+        alert_.close();
+
+        final List<TopLevelWindow> oldWindows = new ArrayList<>(webClient.getTopLevelWindows());
+        openNewWindow();
+        for (final TopLevelWindow window : oldWindows) {
+            window.close();
+        }
+
+        webClient.getCookieManager().clearCookies();
+        for (final URL origin : storageOrigins_.values()) {
+            webClient.getStorageHolder().getLocalStorage(origin).clear();
+        }
+        storageOrigins_.clear();
+        webClient.getCredentialsProvider().clear();
+        elementsMap_.clear();
+        releaseDetachTrackers();
+        ((HtmlUnitTimeouts) options_.timeouts()).reset();
+        applyClientOptions();
+
+        resetInputState();
+        get(webClient.getOptions().getHomePage());
+    }
+
+    private void rememberStorageOrigin(final Page page) {
+        if (page != null && page.getUrl() != null) {
+            final URL url = page.getUrl();
+            storageOrigins_.putIfAbsent(url.getProtocol() + "://" + url.getHost(), url);
+        }
+    }
+
     /**
      * @return to process or not to proceed
      */
@@ -324,12 +433,10 @@ boolean isProcessAlert() {
             asyncScriptExecutor_.alertTriggered(text);
             return false;
         }
-        conditionLock_.lock();
-        try {
-            mainCondition_.signal();
-        }
-        finally {
-            conditionLock_.unlock();
+        // hand the control back to the caller waiting in runAsync()
+        final CompletableFuture<Void> command = currentCommand_;
+        if (command != null) {
+            command.complete(null);
         }
         return true;
     }
@@ -349,13 +456,14 @@ boolean isProcessAlert() {
      *       asynchronously and this method returns immediately.</li>
      *
      *   <li><b>Any other strategy</b> — the calling thread waits until the task
-     *       completes. The method blocks using an internal condition variable
-     *       until the executed runnable signals completion.</li>
+     *       completes or triggers an alert. The method blocks on a completion
+     *       future created for every task.</li>
      * </ul>
      *
      * <p>Only one synchronous operation (i.e., one operation requiring waiting)
      * may run at a time. If another such operation is already executing, the
-     * calling thread waits until the previous task finishes.</p>
+     * calling thread waits until the previous task finishes; waiting callers
+     * are served in FIFO order.</p>
      *
      * <p>Any {@link RuntimeException} thrown by the task is captured and
      * re-thrown on the calling thread after the task completes, preserving
@@ -367,47 +475,63 @@ boolean isProcessAlert() {
     protected void runAsync(final Runnable r) {
         final boolean loadStrategyWait = pageLoadStrategy_ != PageLoadStrategy.NONE;
 
+        final DriverEvents.AsyncTaskEvent event = new DriverEvents.AsyncTaskEvent();
+        event.begin();
+
+        final CompletableFuture<Void> command = new CompletableFuture<>();
+        long gateWait = 0;
         if (loadStrategyWait) {
-            while (runAsyncRunning_) {
-                try {
-                    Thread.sleep(10);
-                }
-                catch (final InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-            conditionLock_.lock();
-            runAsyncRunning_ = true;
+            final long waitStart = System.nanoTime();
+            commandGate_.acquireUninterruptibly();
+            gateWait = System.nanoTime() - waitStart;
+            CommandTimer.waited(waitStart);
+            currentCommand_ = command;
         }
 
-        exception_ = null;
+        final Runnable task = CommandTimer.propagate(r);
         final Runnable wrapped = () -> {
             try {
-                r.run();
+                task.run();
             }
             catch (final RuntimeException e) {
-                exception_ = e;
+                command.completeExceptionally(e);
             }
             finally {
-                conditionLock_.lock();
-                try {
-                    runAsyncRunning_ = false;
-                    mainCondition_.signal();
-                }
-                finally {
-                    conditionLock_.unlock();
+                command.complete(null);
+                if (loadStrategyWait) {
+                    currentCommand_ = null;
+                    commandGate_.release();
                 }
             }
         };
-        executor_.execute(wrapped);
 
-        if (loadStrategyWait && runAsyncRunning_) {
-            mainCondition_.awaitUninterruptibly();
-            conditionLock_.unlock();
-        }
+        boolean failed = true;
+        try {
+            try {
+                executor_.execute(wrapped);
+            }
+            catch (final RuntimeException e) {
+                if (loadStrategyWait) {
+                    currentCommand_ = null;
+                    commandGate_.release();
+                }
+                throw e;
+            }
 
-        if (exception_ != null) {
-            throw exception_;
+            // without waiting we can only report failures of
+            // commands the executor has already finished
+            if (loadStrategyWait || command.isDone()) {
+                try {
+                    command.join();
+                }
+                catch (final CompletionException e) {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            failed = false;
+        }
+        finally {
+            event.commit(pageLoadStrategy_.toString(), gateWait, failed);
         }
     }
 
@@ -427,6 +551,7 @@ protected void runAsync(final Runnable r) {
      */
     public void click(final DomElement element, final boolean directClick) {
         runAsync(() -> mouse_.click(element, directClick));
+        waitForIdleAfterCommand();
     }
 
     /**
@@ -441,6 +566,7 @@ public void click(final DomElement element, final boolean directClick) {
      */
     public void doubleClick(final DomElement element) {
         runAsync(() -> mouse_.doubleClick(element));
+        waitForIdleAfterCommand();
     }
 
     /**
@@ -513,6 +639,7 @@ public void submit(final HtmlUnitWebElement element) {
      */
     public void sendKeys(final HtmlUnitWebElement element, final CharSequence... value) {
         runAsync(() -> keyboard_.sendKeys(element, true, value));
+        waitForIdleAfterCommand();
     }
 
     /**
@@ -732,21 +859,32 @@ public void setAutoProxy(final String autoProxyUrl) {
 
     @Override
     public Capabilities getCapabilities() {
-        return new HtmlUnitDriverOptions(getBrowserVersion()).importOptions(webClient_.getOptions());
+        final HtmlUnitDriverOptions capabilities =
+                new HtmlUnitDriverOptions(getBrowserVersion()).importOptions(webClient_.getOptions());
+        for (final HtmlUnitOption option : HtmlUnitOption.values()) {
+            if (option.isDriverOption()) {
+                final String key = option.getCapabilityKey();
+                capabilities.setCapability(key, driverOptions_.getCapability(key));
+            }
+        }
+        return capabilities;
     }
 
     @Override
     public void get(final String url) {
-        final URL fullUrl;
-        try {
-            // this takes care of data: and about:
-            fullUrl = UrlUtils.toUrlUnsafe(url);
-        }
-        catch (final Exception e) {
-            throw new WebDriverException(e);
-        }
+        measure("get", () -> {
+            final URL fullUrl;
+            try {
+                // this takes care of data: and about:
+                fullUrl = UrlUtils.toUrlUnsafe(url);
+            }
+            catch (final Exception e) {
+                throw new WebDriverException(e);
+            }
 
-        runAsync(() -> get(fullUrl));
+            runAsync(() -> get(fullUrl));
+            waitForIdleAfterCommand();
+        });
     }
 
     /**
@@ -756,6 +894,17 @@ public void get(final String url) {
      * @param fullUrl The URL to visit
      */
     protected void get(final URL fullUrl) {
+        final DriverEvents.NavigationEvent event = new DriverEvents.NavigationEvent();
+        event.begin();
+        try {
+            load(fullUrl);
+        }
+        finally {
+            event.commit(fullUrl, this);
+        }
+    }
+
+    private void load(final URL fullUrl) {
         getAlert().close();
         getAlert().setAutoAccept(false);
         try {
@@ -827,29 +976,27 @@ public String getTitle() {
 
     @Override
     public WebElement findElement(final By by) {
-        alert_.ensureUnlocked();
-        return implicitlyWaitFor(() -> elementFinder_.findElement(this, by));
+        return measure("findElement", () -> {
+            alert_.ensureUnlocked();
+            return implicitlyWaitFor(() -> elementFinder_.findElement(this, by));
+        });
     }
 
     @Override
     public List<WebElement> findElements(final By by) {
-        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
-        if (implicitWait < sleepTime) {
-            return elementFinder_.findElements(this, by);
-        }
-
-        final long end = System.currentTimeMillis() + implicitWait;
-        List<WebElement> found;
-        do {
-            found = elementFinder_.findElements(this, by);
-            if (!found.isEmpty()) {
-                return found;
-            }
-            sleepQuietly(sleepTime);
-        }
-        while (System.currentTimeMillis() < end);
+        return measure("findElements", () -> implicitlyWaitForElements(() -> elementFinder_.findElements(this, by)));
+    }
 
-        return found;
+    /**
+     * Returns the number of elements matching the given selector. This is the same as
+     * {@code findElements(by).size()}, including the implicit wait, but the found
+     * elements are neither wrapped nor registered.
+     *
+     * @param by the locating mechanism to use
+     * @return the number of matching elements; {@code 0} if none are found before timeout
+     */
+    public int countElements(final By by) {
+        return findElements(by).size();
     }
 
     /**
@@ -866,18 +1013,19 @@ public List<WebElement> findElements(final By by) {
      * @throws NoSuchElementException if the element cannot be found within the implicit wait
      */
     public WebElement findElement(final HtmlUnitWebElement element, final By by) {
-        alert_.ensureUnlocked();
-        return implicitlyWaitFor(() -> elementFinder_.findElement(element, by));
+        return measure("findElement", () -> {
+            alert_.ensureUnlocked();
+            return implicitlyWaitFor(() -> elementFinder_.findElement(element, by));
+        });
     }
 
     /**
      * Locates all {@link WebElement}s matching the given selector within the provided
      * search context.
      * <p>
-     * If the configured implicit wait timeout exceeds the driver's polling interval,
-     * the method repeatedly searches until at least one element is found or the timeout
-     * expires. If the timeout is shorter than the polling interval, the search is
-     * performed only once.
+     * If an implicit wait timeout is configured, the search is repeated every time the
+     * page has changed until at least one element is found or the timeout expires.
+     * Without implicit wait timeout, the search is performed only once.
      * </p>
      *
      * @param element the search context, typically an {@link HtmlUnitWebElement}
@@ -885,23 +1033,98 @@ public WebElement findElement(final HtmlUnitWebElement element, final By by) {
      * @return a list of all matching elements; may be empty if none are found before timeout
      */
     public List<WebElement> findElements(final HtmlUnitWebElement element, final By by) {
-        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
-        if (implicitWait < sleepTime) {
-            return elementFinder_.findElements(element, by);
-        }
+        return measure("findElements",
+            () -> implicitlyWaitForElements(() -> elementFinder_.findElements(element, by)));
+    }
 
-        final long end = System.currentTimeMillis() + implicitWait;
-        List<WebElement> found;
-        do {
-            found = elementFinder_.findElements(element, by);
-            if (!found.isEmpty()) {
-                return found;
+    /**
+     * Finds the elements for all the given locators at once. The locators using the id,
+     * name, tag name, class name or css selector strategy are evaluated together in a
+     * single walk over the page; all others are evaluated one by one.
+     * <p>
+     * If an implicit wait timeout is configured, the search is repeated every time the
+     * page has changed until at least one element is found for every locator or the
+     * timeout expires.
+     * </p>
+     *
+     * @param locators the locators by names chosen by the caller
+     * @return the matching elements by the names of the locators, in the order of the
+     *         given map; the list of a locator not matching anything is empty
+     */
+    public Map<String, List<WebElement>> findAll(final Map<String, By> locators) {
+        return measure("findAll", () -> {
+            alert_.ensureUnlocked();
+            return implicitlyWaitUntil(() -> elementFinder_.findAll(this, null, locators), HtmlUnitDriver::allFound);
+        });
+    }
+
+    /**
+     * Same as {@link #findAll(Map)}, but searches within the provided element only.
+     *
+     * @param element the search context, typically an {@link HtmlUnitWebElement}
+     * @param locators the locators by names chosen by the caller
+     * @return the matching elements by the names of the locators, in the order of the
+     *         given map; the list of a locator not matching anything is empty
+     */
+    public Map<String, List<WebElement>> findAll(final HtmlUnitWebElement element, final Map<String, By> locators) {
+        return measure("findAll", () -> {
+            alert_.ensureUnlocked();
+            assertElementNotStale(element);
+            return implicitlyWaitUntil(() -> elementFinder_.findAll(this, element, locators),
+                    HtmlUnitDriver::allFound);
+        });
+    }
+
+    private static boolean allFound(final Map<String, List<WebElement>> found) {
+        for (final List<WebElement> elements : found.values()) {
+            if (elements.isEmpty()) {
+                return false;
             }
-            sleepQuietly(sleepTime);
         }
-        while (System.currentTimeMillis() < end);
+        return true;
+    }
 
-        return found;
+    private List<WebElement> implicitlyWaitForElements(final Supplier<List<WebElement>> finder) {
+        return implicitlyWaitUntil(finder, found -> !found.isEmpty());
+    }
+
+    private <X> X implicitlyWaitUntil(final Supplier<X> finder, final Predicate<X> done) {
+        final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
+        if (implicitWait <= 0) {
+            return finder.get();
+        }
+
+        final DriverEvents.ImplicitWaitEvent event = new DriverEvents.ImplicitWaitEvent();
+        event.begin();
+        int attempts = 0;
+        boolean success = false;
+        long end = System.currentTimeMillis() + implicitWait;
+        try (DomChangeWaiter waiter = new DomChangeWaiter(getWebClient())) {
+            while (true) {
+                final long changeCount = waiter.watch(getPageForImplicitWait());
+                final X found = finder.get();
+                attempts++;
+                success = done.test(found);
+                final long remaining = end - System.currentTimeMillis();
+                if (success || remaining <= 0) {
+                    return found;
+                }
+
+                final long advanced = runNextTimer(remaining);
+                if (advanced == VirtualClock.NO_JOB) {
+                    final long waitStart = System.nanoTime();
+                    waiter.awaitChange(changeCount, remaining);
+                    CommandTimer.waited(waitStart);
+                }
+                else {
+                    // the time advanced counts against the implicit wait
+                    end -= advanced;
+                }
+            }
+        }
+        finally {
+            event.commit(implicitWait, attempts, success);
+        }
     }
 
     @Override
@@ -941,28 +1164,19 @@ public void close() {
     public void quit() {
         // closing the web client while some async processes are running
         // will produce strange effects; therefore wait until they are done
-        while (runAsyncRunning_) {
-            try {
-                Thread.sleep(10);
-            }
-            catch (final InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-
-        conditionLock_.lock();
-        runAsyncRunning_ = true;
+        commandGate_.acquireUninterruptibly();
         try {
             if (webClient_ != null) {
                 alert_.close();
                 webClient_.close();
                 webClient_ = null;
             }
-            defaultExecutor_.shutdown();
+            if (defaultExecutor_ != null) {
+                defaultExecutor_.shutdown();
+            }
         }
         finally {
-            runAsyncRunning_ = false;
-            conditionLock_.unlock();
+            commandGate_.release();
         }
     }
 
@@ -986,18 +1200,32 @@ public String getWindowHandle() {
     }
 
     @Override
-    public Object executeScript(String script, final Object... args) {
+    public Object executeScript(final String script, final Object... args) {
+        return measure("executeScript", () -> executeScriptImpl(script, args));
+    }
+
+    private Object executeScriptImpl(final String script, final Object... args) {
+        final DriverEvents.ScriptEvent event = new DriverEvents.ScriptEvent();
+        event.begin();
+        try {
+            return runScript(script, args);
+        }
+        finally {
+            event.commit(false, script, args, this);
+        }
+    }
+
+    private Object runScript(String script, final Object... args) {
         final HtmlPage page = getPageToInjectScriptInto();
 
         script = "let huDriverFoo = function() {" + script + "\n}; huDriverFoo;";
-        ScriptResult result = page.executeJavaScript(script);
-        final Object function = result.getJavaScriptResult();
+        final Object function = CompiledScriptCache.execute(page, script);
 
         final Object[] parameters = convertScriptArgs(page, args);
 
         try {
-            result = page.executeJavaScriptFunction(function, getCurrentWindow().getWebWindow().getScriptableObject(),
-                    parameters, page.getDocumentElement());
+            final ScriptResult result = page.executeJavaScriptFunction(function,
+                    getCurrentWindow().getWebWindow().getScriptableObject(), parameters, page.getDocumentElement());
 
             return parseNativeJavascriptResult(result);
         }
@@ -1007,11 +1235,27 @@ public Object executeScript(String script, final Object... args) {
     }
 
     @Override
-    public Object executeAsyncScript(final String script, Object... args) {
+    public Object executeAsyncScript(final String script, final Object... args) {
+        return measure("executeAsyncScript", () -> executeAsyncScriptImpl(script, args));
+    }
+
+    private Object executeAsyncScriptImpl(final String script, final Object... args) {
+        final DriverEvents.ScriptEvent event = new DriverEvents.ScriptEvent();
+        event.begin();
+        try {
+            return runAsyncScript(script, args);
+        }
+        finally {
+            event.commit(true, script, args, this);
+        }
+    }
+
+    private Object runAsyncScript(final String script, Object... args) {
         final HtmlPage page = getPageToInjectScriptInto();
         args = convertScriptArgs(page, args);
 
-        asyncScriptExecutor_ = new AsyncScriptExecutor(page, options_.timeouts().getScriptTimeout().toMillis());
+        asyncScriptExecutor_ = new AsyncScriptExecutor(page, options_.timeouts().getScriptTimeout().toMillis(),
+                virtualClock_);
         try {
             final Object result = asyncScriptExecutor_.execute(script, args);
 
@@ -1081,7 +1325,7 @@ private Object parseArgumentIntoJavascriptParameter(final Scriptable scope, Obje
 
         if (arg instanceof HtmlUnitWebElement) {
             final HtmlUnitWebElement webElement = (HtmlUnitWebElement) arg;
-            assertElementNotStale(webElement.getElement());
+            assertElementNotStale(webElement);
             return webElement.getElement().getScriptableObject();
         }
         else if (arg instanceof HtmlElement) {
@@ -1175,6 +1419,34 @@ else if (arg instanceof Map<?, ?>) {
      *                                        or belongs to a different page
      */
     protected void assertElementNotStale(final DomElement element) {
+        assertElementOnCurrentPage(element);
+        assertElementAttached(element);
+    }
+
+    /**
+     * Same as {@link #assertElementNotStale(DomElement)} for the element wrapped by the
+     * given {@link HtmlUnitWebElement}, but walks the DOM only if nodes were removed from
+     * the page since the element was found attached the last time.
+     *
+     * @param webElement the element to validate; must not be {@code null}
+     * @throws StaleElementReferenceException if the element is detached, removed,
+     *                                        or belongs to a different page
+     */
+    void assertElementNotStale(final HtmlUnitWebElement webElement) {
+        final DomElement element = webElement.getElement();
+        assertElementOnCurrentPage(element);
+
+        // read the epoch before walking; a removal while walking forces the next check to walk again
+        final long detachEpoch = getDetachTracker(element.getPage()).getDetachEpoch();
+        if (webElement.getAttachedEpoch() == detachEpoch) {
+            return;
+        }
+
+        assertElementAttached(element);
+        webElement.setAttachedEpoch(detachEpoch);
+    }
+
+    private void assertElementOnCurrentPage(final DomElement element) {
         final SgmlPage elementPage = element.getPage();
         final Page lastPage = getCurrentWindow().lastPage();
 
@@ -1183,7 +1455,9 @@ protected void assertElementNotStale(final DomElement element) {
                 "Element appears to be stale. Did you navigate away from the page that contained it? "
                 + "And is the current window focused the same as the one holding this element?");
         }
+    }
 
+    private static void assertElementAttached(final DomElement element) {
         // We need to walk the DOM to determine if the element is actually attached
         DomNode parentElement = element;
         while (parentElement != null && !(parentElement instanceof SgmlPage)) {
@@ -1197,6 +1471,37 @@ protected void assertElementNotStale(final DomElement element) {
         }
     }
 
+    private DomDetachTracker getDetachTracker(final SgmlPage page) {
+        synchronized (detachTrackers_) {
+            return detachTrackers_.computeIfAbsent(page, k -> {
+                final DomDetachTracker tracker = new DomDetachTracker();
+                k.addDomChangeListener(tracker);
+                return tracker;
+            });
+        }
+    }
+
+    private void releaseDetachTracker(final Page page) {
+        final DomDetachTracker tracker;
+        synchronized (detachTrackers_) {
+            tracker = detachTrackers_.remove(page);
+        }
+        if (tracker != null) {
+            ((SgmlPage) page).removeDomChangeListener(tracker);
+        }
+    }
+
+    private void releaseDetachTrackers() {
+        final List<Entry<SgmlPage, DomDetachTracker>> trackers;
+        synchronized (detachTrackers_) {
+            trackers = new ArrayList<>(detachTrackers_.entrySet());
+            detachTrackers_.clear();
+        }
+        for (final Entry<SgmlPage, DomDetachTracker> entry : trackers) {
+            entry.getKey().removeDomChangeListener(entry.getValue());
+        }
+    }
+
     /**
      * Returns the driver's keyboard implementation.
      *
@@ -1403,6 +1708,13 @@ public HtmlUnitWebElement toWebElement(final String elementId) {
         return getElementsMap().getWebElement(elementId);
     }
 
+    /**
+     * @return the element finder; using it directly bypasses the implicit wait
+     */
+    HtmlUnitElementFinder getElementFinder() {
+        return elementFinder_;
+    }
+
     /**
      * Indicates whether JavaScript execution is enabled in the underlying {@link WebClient}.
      *
@@ -1467,8 +1779,9 @@ public boolean isAcceptInsecureCerts() {
      *   <li>or the implicit wait timeout expires.</li>
      * </ul>
      *
-     * <p>If the implicit wait timeout is shorter than the configured sleep interval,
-     * the condition is evaluated only once.</p>
+     * <p>While waiting, the condition is evaluated again every time the current page
+     * has changed (see {@link DomChangeWaiter}); pages not reporting changes are polled.
+     * Without implicit wait timeout the condition is evaluated only once.</p>
      *
      * @param <X>       the return type of the condition
      * @param condition the operation to evaluate until it succeeds or times out
@@ -1480,7 +1793,7 @@ public boolean isAcceptInsecureCerts() {
     protected <X> X implicitlyWaitFor(final Callable<X> condition) {
         final long implicitWait = options_.timeouts().getImplicitWaitTimeout().toMillis();
 
-        if (implicitWait < sleepTime) {
+        if (implicitWait <= 0) {
             try {
                 return condition.call();
             }
@@ -1492,29 +1805,51 @@ protected <X> X implicitlyWaitFor(final Callable<X> condition) {
             }
         }
 
-        final long end = System.currentTimeMillis() + implicitWait;
+        final DriverEvents.ImplicitWaitEvent event = new DriverEvents.ImplicitWaitEvent();
+        event.begin();
+        int attempts = 0;
+        boolean success = false;
+        long end = System.currentTimeMillis() + implicitWait;
         Exception lastException = null;
 
-        do {
-            X toReturn = null;
-            try {
-                toReturn = condition.call();
-            }
-            catch (final Exception e) {
-                lastException = e;
-            }
+        try (DomChangeWaiter waiter = new DomChangeWaiter(getWebClient())) {
+            while (true) {
+                final long changeCount = waiter.watch(getPageForImplicitWait());
 
-            if (toReturn instanceof Boolean && !(Boolean) toReturn) {
-                continue;
-            }
+                X toReturn = null;
+                attempts++;
+                try {
+                    toReturn = condition.call();
+                }
+                catch (final Exception e) {
+                    lastException = e;
+                }
 
-            if (toReturn != null) {
-                return toReturn;
-            }
+                if (toReturn != null && !(toReturn instanceof Boolean && !(Boolean) toReturn)) {
+                    success = true;
+                    return toReturn;
+                }
 
-            sleepQuietly(sleepTime);
+                final long remaining = end - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                // the condition is evaluated again as soon as the page has changed
+                final long advanced = runNextTimer(remaining);
+                if (advanced == VirtualClock.NO_JOB) {
+                    final long waitStart = System.nanoTime();
+                    waiter.awaitChange(changeCount, remaining);
+                    CommandTimer.waited(waitStart);
+                }
+                else {
+                    // the time advanced counts against the implicit wait
+                    end -= advanced;
+                }
+            }
+        }
+        finally {
+            event.commit(implicitWait, attempts, success);
         }
-        while (System.currentTimeMillis() < end);
 
         if (lastException != null) {
             if (lastException instanceof RuntimeException) {
@@ -1526,6 +1861,229 @@ protected <X> X implicitlyWaitFor(final Callable<X> condition) {
         return null;
     }
 
+    /**
+     * With the virtual clock, the time advances to the next timer of the pages instead of
+     * waiting for it.
+     *
+     * @param maxMillis the maximum time to advance
+     * @return the time advanced or {@link VirtualClock#NO_JOB} if the caller has to wait
+     */
+    private long runNextTimer(final long maxMillis) {
+        if (virtualClock_ == null) {
+            return VirtualClock.NO_JOB;
+        }
+        return virtualClock_.runNextJob(maxMillis);
+    }
+
+    /**
+     * Advances the virtual clock by the given duration; the timers (setTimeout,
+     * setInterval) of all windows becoming due are run in order before this returns.
+     *
+     * @param duration the time to advance
+     * @throws IllegalStateException if the driver was not created with the virtual clock
+     * @see org.openqa.selenium.htmlunit.options.HtmlUnitOption#VIRTUAL_CLOCK
+     */
+    public void advanceTime(final Duration duration) {
+        if (virtualClock_ == null) {
+            throw new IllegalStateException("The virtual clock is not enabled for this driver");
+        }
+        alert_.ensureUnlocked();
+        virtualClock_.advance(duration.toMillis());
+    }
+
+    /**
+     * Waits until the current window is idle: no JavaScript job (timers, asynchronous
+     * XMLHttpRequests) of the window or its frames is pending and no request of the
+     * {@link WebClient} is in progress. The waiting thread is notified by the job
+     * managers and the connection, the state is not polled. With the virtual clock,
+     * the timers are run at once; the time advanced counts against the timeout.
+     * <p>
+     * A page using setInterval or polling endlessly never gets idle; the wait ends
+     * with the timeout. If an alert is open the wait ends immediately.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if the window is idle, {@code false} if the wait timed out
+     *         or ended because of an alert
+     * @see org.openqa.selenium.htmlunit.options.HtmlUnitOption#WAIT_FOR_IDLE_TIMEOUT
+     */
+    public boolean waitForIdle(final Duration timeout) {
+        return measure("waitForIdle", () -> {
+            final long waitStart = System.nanoTime();
+            try {
+                return awaitIdle(timeout);
+            }
+            finally {
+                CommandTimer.waited(waitStart);
+            }
+        });
+    }
+
+    private boolean awaitIdle(final Duration timeout) {
+        long end = System.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            if (alert_.isLocked()) {
+                // the running job waits for the alert to be handled
+                return false;
+            }
+
+            long remaining = end - System.currentTimeMillis();
+            if (!webConnection_.awaitIdle(remaining)) {
+                return false;
+            }
+
+            final JavaScriptJobManager busyManager = getBusyJobManager();
+            if (busyManager == null && webConnection_.awaitIdle(0)) {
+                return true;
+            }
+
+            remaining = end - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            final long advanced = runNextTimer(remaining);
+            if (advanced != VirtualClock.NO_JOB) {
+                end -= advanced;
+            }
+            else if (busyManager != null) {
+                // the slices allow us to notice alerts blocking the jobs
+                busyManager.waitForJobs(Math.min(remaining, IDLE_RECHECK_INTERVAL));
+            }
+        }
+    }
+
+    /**
+     * @return a job manager of the current window or one of its frames having pending jobs
+     */
+    private JavaScriptJobManager getBusyJobManager() {
+        final WebWindow topWindow = getCurrentWindow().getWebWindow().getTopWindow();
+        for (final WebWindow window : getWebClient().getWebWindows()) {
+            if (window.getTopWindow() == topWindow) {
+                final JavaScriptJobManager manager = window.getJobManager();
+                if (manager != null && manager.getJobCount() > 0) {
+                    return manager;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits for the current window to get idle if configured
+     * (see {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#WAIT_FOR_IDLE_TIMEOUT}).
+     */
+    private void waitForIdleAfterCommand() {
+        final long timeout = driverOptions_.getWaitForIdleTimeout();
+        if (timeout > 0 && pageLoadStrategy_ != PageLoadStrategy.NONE) {
+            waitForIdle(Duration.ofMillis(timeout));
+        }
+    }
+
+    private Page getPageForImplicitWait() {
+        final HtmlUnitWindow window = currentWindow_;
+        if (window == null) {
+            return null;
+        }
+        return window.lastPage();
+    }
+
+    /**
+     * Returns the metrics the commands of this driver are reported to.
+     *
+     * @return the metrics; {@link NoOpDriverMetrics#INSTANCE} by default
+     */
+    public DriverMetrics getMetrics() {
+        return metrics_;
+    }
+
+    /**
+     * Sets the metrics the commands of this driver are reported to. One instance
+     * might be shared by many drivers.
+     *
+     * @param metrics the metrics; {@code null} disables the reporting
+     */
+    public void setMetrics(final DriverMetrics metrics) {
+        metrics_ = metrics == null ? NoOpDriverMetrics.INSTANCE : metrics;
+    }
+
+    /**
+     * Runs the command and reports it to the {@link #getMetrics() metrics}.
+     *
+     * @param <T> the result type
+     * @param command the name of the command
+     * @param work the command
+     * @return the result of the command
+     */
+    <T> T measure(final String command, final Supplier<T> work) {
+        final T result = CommandTimer.measure(metrics_, command, work);
+        if (memoryBudget_ > 0 && MEMORY_CHECKED_COMMANDS.contains(command) && isMemoryCheckDue()) {
+            enforceMemoryBudget();
+        }
+        return result;
+    }
+
+    /**
+     * Runs the command and reports it to the {@link #getMetrics() metrics}.
+     *
+     * @param command the name of the command
+     * @param work the command
+     */
+    void measure(final String command, final Runnable work) {
+        measure(command, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the estimated memory retained by the pages of this driver: the DOM of all
+     * windows and frames, the web element wrappers, the history and the cached responses.
+     * The estimate walks all pages; call it between the commands of the session.
+     *
+     * @return the current usage
+     * @throws NoSuchSessionException if the session has been closed
+     */
+    public SessionMemoryUsage getMemoryUsage() {
+        return MemoryAccounting.measure(getWebClient(), elementsMap_, memoryBudget_);
+    }
+
+    private boolean isMemoryCheckDue() {
+        if (pageChangedSinceMemoryCheck_ || commandsSinceMemoryCheck_.incrementAndGet() >= MEMORY_CHECK_INTERVAL) {
+            pageChangedSinceMemoryCheck_ = false;
+            commandsSinceMemoryCheck_.set(0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called after commands that may have loaded or grown pages. If the usage exceeds the
+     * {@link HtmlUnitOption#MEMORY_BUDGET memory budget} the cached responses are dropped; if
+     * this does not help the driver quits to free its memory without affecting other sessions
+     * in this JVM.
+     * Must not be called from inside {@link #runAsync(Runnable)} because quitting waits
+     * for the command gate.
+     */
+    private void enforceMemoryBudget() {
+        final WebClient webClient = webClient_;
+        if (webClient == null) {
+            return;
+        }
+
+        SessionMemoryUsage usage = MemoryAccounting.measure(webClient, elementsMap_, memoryBudget_);
+        if (!usage.isOverBudget()) {
+            return;
+        }
+
+        MemoryAccounting.trim(webClient);
+        usage = MemoryAccounting.measure(webClient, elementsMap_, memoryBudget_);
+        if (!usage.isOverBudget()) {
+            return;
+        }
+
+        quit();
+        throw new WebDriverException("The session exceeded its memory budget and has been closed (" + usage + ")");
+    }
+
     /**
      * Returns the underlying {@link WebClient} used by this driver.
      *
@@ -1560,26 +2118,26 @@ private final class HtmlUnitNavigation implements Navigation {
 
         @Override
         public void back() {
-            runAsync(() -> {
+            measure("back", () -> runAsync(() -> {
                 try {
                     getCurrentWindow().getWebWindow().getHistory().back();
                 }
                 catch (final IOException e) {
                     throw new WebDriverException(e);
                 }
-            });
+            }));
         }
 
         @Override
         public void forward() {
-            runAsync(() -> {
+            measure("forward", () -> runAsync(() -> {
                 try {
                     getCurrentWindow().getWebWindow().getHistory().forward();
                 }
                 catch (final IOException e) {
                     throw new WebDriverException(e);
                 }
-            });
+            }));
         }
 
         @Override
@@ -1595,7 +2153,7 @@ public void to(final URL url) {
         @Override
         public void refresh() {
             if (getCurrentWindow().lastPage() instanceof HtmlPage) {
-                runAsync(() -> {
+                measure("refresh", () -> runAsync(() -> {
                     try {
                         ((HtmlPage) getCurrentWindow().lastPage()).refresh();
                     }
@@ -1605,7 +2163,7 @@ public void refresh() {
                     catch (final IOException e) {
                         throw new WebDriverException(e);
                     }
-                });
+                }));
             }
         }
     }
@@ -1615,14 +2173,6 @@ public Options manage() {
         return options_;
     }
 
-    private static void sleepQuietly(final long ms) {
-        try {
-            Thread.sleep(ms);
-        }
-        catch (final InterruptedException ignored) {
-        }
-    }
-
     private enum PageLoadStrategy {
         NORMAL, EAGER, NONE
     }
@@ -1633,18 +2183,38 @@ private enum PageLoadStrategy {
      *
      * <p>The mapping is stored per {@link SgmlPage}, allowing elements to be reused
      * across driver operations and ensuring that each DOM element has a stable,
-     * unique {@code HtmlUnitWebElement} representation for the lifetime of its page.</p>
+     * unique {@code HtmlUnitWebElement} representation for the lifetime of its page.
+     * The lookup by id uses an open addressing table keyed by the primitive id.</p>
      *
      * <p>Element wrappers are automatically removed when the associated page is removed,
-     * preventing memory leaks. Page-level maps are stored in a {@link WeakHashMap},
-     * allowing them to be reclaimed when their pages are no longer referenced.</p>
+     * preventing memory leaks. The number of wrappers can be limited; if the limit is
+     * reached, the least recently used wrapper is evicted. An evicted wrapper still works
+     * for everyone holding it, but its id is no longer known; finding the element again
+     * creates a new wrapper with a new id. The maximum size defaults to unlimited and can
+     * be changed using the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or
+     * {@link #setMaxSize(int)}.</p>
+     *
+     * <p>All methods are thread safe.</p>
      */
     protected static class ElementsMap {
 
-        private final Map<SgmlPage, Map<DomElement, HtmlUnitWebElement>> elementsMapByPage_;
-        private final Map<String, HtmlUnitWebElement> elementsMapById_;
+        /** The default maximum number of wrappers (unlimited). */
+        public static final int DEFAULT_MAX_SIZE = Integer.MAX_VALUE;
+
+        /** The system property to configure the maximum number of wrappers. */
+        public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.elementsMapMaxSize";
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final Map<SgmlPage, Map<DomElement, Mapping>> mappingsByPage_;
+        private Mapping[] mappingsById_;
+        private int size_;
+        private int maxSize_;
         private int idCounter_;
 
+        /** Sentinel of the usage list; next is the most, previous the least recently used. */
+        private final Mapping usage_;
+
         /**
          * Creates a new, empty {@code ElementsMap}.
          *
@@ -1652,9 +2222,20 @@ protected static class ElementsMap {
          * internal lookup structures for both page-based mappings and global ID-based lookup.</p>
          */
         public ElementsMap() {
-            elementsMapByPage_ = new WeakHashMap<>();
-            elementsMapById_ = new HashMap<>();
+            this(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+        }
+
+        /**
+         * Creates a new, empty {@code ElementsMap} holding at most the given number of wrappers.
+         *
+         * @param maxSize the maximum number of wrappers; has to be positive
+         */
+        public ElementsMap(final int maxSize) {
+            mappingsByPage_ = new WeakHashMap<>();
+            mappingsById_ = new Mapping[INITIAL_CAPACITY];
+            usage_ = new Mapping(null, null);
             idCounter_ = 0;
+            setMaxSize(maxSize);
         }
 
         /**
@@ -1672,18 +2253,41 @@ public ElementsMap() {
          * @param element the DOM element to wrap; must not be {@code null}
          * @return the existing or newly created {@link HtmlUnitWebElement}
          */
-        public HtmlUnitWebElement addIfAbsent(final HtmlUnitDriver driver, final DomElement element) {
-            final Map<DomElement, HtmlUnitWebElement> pageMap =
-                    elementsMapByPage_.computeIfAbsent(element.getPage(), k -> new HashMap<>());
+        public synchronized HtmlUnitWebElement addIfAbsent(final HtmlUnitDriver driver, final DomElement element) {
+            final Map<DomElement, Mapping> pageMap =
+                    mappingsByPage_.computeIfAbsent(element.getPage(), k -> new IdentityHashMap<>());
 
-            HtmlUnitWebElement e = pageMap.get(element);
-            if (e == null) {
+            Mapping mapping = pageMap.get(element);
+            if (mapping == null) {
                 idCounter_++;
-                e = new HtmlUnitWebElement(driver, idCounter_, element);
-                pageMap.put(element, e);
-                elementsMapById_.put(Integer.toString(idCounter_), e);
+                mapping = new Mapping(new HtmlUnitWebElement(driver, idCounter_, element), pageMap);
+                pageMap.put(element, mapping);
+                putById(mapping);
+                mapping.linkAfter(usage_);
+
+                while (size_ > maxSize_) {
+                    remove(usage_.previous_);
+                }
+            }
+            else {
+                mapping.unlink();
+                mapping.linkAfter(usage_);
             }
-            return e;
+            return mapping.webElement_;
+        }
+
+        /**
+         * Removes all element mappings.
+         *
+         * <p>The id counter is not reset; therefore ids handed out before are never
+         * reused for other elements.</p>
+         */
+        public synchronized void clear() {
+            mappingsByPage_.clear();
+            mappingsById_ = new Mapping[INITIAL_CAPACITY];
+            size_ = 0;
+            usage_.next_ = usage_;
+            usage_.previous_ = usage_;
         }
 
         /**
@@ -1695,11 +2299,13 @@ public HtmlUnitWebElement addIfAbsent(final HtmlUnitDriver driver, final DomElem
          * @param page the page whose element mappings should be removed;
          *             may be {@code null}, in which case nothing is removed
          */
-        public void remove(final Page page) {
-            final Map<DomElement, HtmlUnitWebElement> pageMap = elementsMapByPage_.remove(page);
+        public synchronized void remove(final Page page) {
+            final Map<DomElement, Mapping> pageMap = mappingsByPage_.remove(page);
             if (pageMap != null) {
-                pageMap.values().forEach(element ->
-                        elementsMapById_.remove(Integer.toString(element.getId())));
+                for (final Mapping mapping : pageMap.values()) {
+                    removeById(mapping.webElement_.getId());
+                    mapping.unlink();
+                }
             }
         }
 
@@ -1714,13 +2320,156 @@ public void remove(final Page page) {
          * @return the associated {@link HtmlUnitWebElement}; never {@code null}
          * @throws StaleElementReferenceException if no element is registered under the given ID
          */
-        public HtmlUnitWebElement getWebElement(final String elementId) {
-            final HtmlUnitWebElement webElement = elementsMapById_.get(elementId);
-            if (webElement == null) {
+        public synchronized HtmlUnitWebElement getWebElement(final String elementId) {
+            Mapping mapping = null;
+            try {
+                mapping = getById(Integer.parseInt(elementId));
+            }
+            catch (final NumberFormatException e) {
+                // not one of our ids
+            }
+
+            if (mapping == null) {
                 throw new StaleElementReferenceException(
                         "Failed finding web element associated with identifier: " + elementId);
             }
-            return webElement;
+            mapping.unlink();
+            mapping.linkAfter(usage_);
+            return mapping.webElement_;
+        }
+
+        /**
+         * @return the number of wrappers
+         */
+        public synchronized int size() {
+            return size_;
+        }
+
+        /**
+         * @return the maximum number of wrappers
+         */
+        public synchronized int getMaxSize() {
+            return maxSize_;
+        }
+
+        /**
+         * Sets the maximum number of wrappers; the least recently used wrappers
+         * exceeding the new size are evicted.
+         *
+         * @param maxSize the maximum number of wrappers; has to be positive
+         */
+        public synchronized void setMaxSize(final int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            maxSize_ = maxSize;
+            while (size_ > maxSize_) {
+                remove(usage_.previous_);
+            }
+        }
+
+        private void remove(final Mapping mapping) {
+            removeById(mapping.webElement_.getId());
+            mapping.unlink();
+            mapping.pageMap_.remove(mapping.webElement_.getElement());
+        }
+
+        private static int indexFor(final int id, final int mask) {
+            // ids are sequential; spread them over the table
+            return (id * 0x9E3779B9) >>> 7 & mask;
+        }
+
+        private Mapping getById(final int id) {
+            final int mask = mappingsById_.length - 1;
+            int i = indexFor(id, mask);
+            Mapping mapping = mappingsById_[i];
+            while (mapping != null && mapping.webElement_.getId() != id) {
+                i = (i + 1) & mask;
+                mapping = mappingsById_[i];
+            }
+            return mapping;
+        }
+
+        private void putById(final Mapping mapping) {
+            // keep the load factor below 0.5
+            if ((size_ + 1) * 2 > mappingsById_.length) {
+                final Mapping[] old = mappingsById_;
+                mappingsById_ = new Mapping[old.length * 2];
+                for (final Mapping m : old) {
+                    if (m != null) {
+                        insertById(m);
+                    }
+                }
+            }
+            insertById(mapping);
+            size_++;
+        }
+
+        private void insertById(final Mapping mapping) {
+            final int mask = mappingsById_.length - 1;
+            int i = indexFor(mapping.webElement_.getId(), mask);
+            while (mappingsById_[i] != null) {
+                i = (i + 1) & mask;
+            }
+            mappingsById_[i] = mapping;
+        }
+
+        private void removeById(final int id) {
+            final int mask = mappingsById_.length - 1;
+            int i = indexFor(id, mask);
+            while (mappingsById_[i] != null && mappingsById_[i].webElement_.getId() != id) {
+                i = (i + 1) & mask;
+            }
+            if (mappingsById_[i] == null) {
+                return;
+            }
+
+            // backward shift deletion; move up all following entries of the probe sequence
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                final Mapping mapping = mappingsById_[j];
+                if (mapping == null) {
+                    break;
+                }
+                final int home = indexFor(mapping.webElement_.getId(), mask);
+                final boolean stays = i <= j ? i < home && home <= j : i < home || home <= j;
+                if (!stays) {
+                    mappingsById_[i] = mapping;
+                    i = j;
+                }
+            }
+            mappingsById_[i] = null;
+            size_--;
+        }
+
+        /**
+         * One wrapper; also a node of the usage list.
+         */
+        private static final class Mapping {
+            private final HtmlUnitWebElement webElement_;
+            private final Map<DomElement, Mapping> pageMap_;
+            private Mapping previous_ = this;
+            private Mapping next_ = this;
+
+            Mapping(final HtmlUnitWebElement webElement, final Map<DomElement, Mapping> pageMap) {
+                webElement_ = webElement;
+                pageMap_ = pageMap;
+            }
+
+            void linkAfter(final Mapping mapping) {
+                previous_ = mapping;
+                next_ = mapping.next_;
+                next_.previous_ = this;
+                mapping.next_ = this;
+            }
+
+            void unlink() {
+                previous_.next_ = next_;
+                next_.previous_ = previous_;
+                previous_ = this;
+                next_ = this;
+            }
         }
     }
 
@@ -1734,6 +2483,22 @@ public void perform(final Collection<Sequence> sequences) {
         // Let actions by tick be the result of trying to extract an action sequence
         // given input state, and parameters.
         final List<List<Action>> actionsByTick = Algorithms.extractActionSequence(sequences);
+        measure("perform", () -> dispatchActions(actionsByTick));
+    }
+
+    /**
+     * Performs the actions given in the wire format of the W3C
+     * <a href="https://www.w3.org/TR/webdriver/#perform-actions">perform actions</a> command.
+     *
+     * @param actionSequences the action sequences; element origins have to be resolved
+     *        to the {@link HtmlUnitWebElement}s of this driver already
+     */
+    public void performActions(final List<Map<String, Object>> actionSequences) {
+        final List<List<Action>> actionsByTick = Algorithms.extractEncodedActionSequence(actionSequences);
+        measure("perform", () -> dispatchActions(actionsByTick));
+    }
+
+    private void dispatchActions(final List<List<Action>> actionsByTick) {
 
         // If the current browsing context is no longer open, return error with error
         // code no such window.
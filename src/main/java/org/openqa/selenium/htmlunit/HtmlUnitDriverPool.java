@@ -0,0 +1,478 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * A pool of {@link HtmlUnitDriver} instances.
+ * <p>
+ * Creating a driver is expensive: a new {@link org.htmlunit.WebClient} has to be set up,
+ * the options have to be applied and the home page has to be loaded. For test setups
+ * creating and quitting many drivers this pool hands out already existing drivers instead.
+ * When a driver is {@link #release(HtmlUnitDriver) released}, it is {@link HtmlUnitDriver#reset() reset}
+ * and kept for the next {@link #borrow(Capabilities) borrow} using the same capabilities.
+ * <p>
+ * Drivers are keyed by the normalized {@link HtmlUnitDriverOptions} built from the requested
+ * capabilities, therefore capabilities resulting in the same options (including the
+ * {@link org.htmlunit.BrowserVersion}) share the same drivers.
+ *
+ * <p>Example usage:
+ *
+ * <pre><code>
+ * try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+ *     HtmlUnitDriver driver = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX));
+ *     try {
+ *         driver.get("https://www.htmlunit.org/");
+ *     }
+ *     finally {
+ *         pool.release(driver);
+ *     }
+ * }
+ * </code></pre>
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitDriverPool implements AutoCloseable {
+
+    /** Default maximum number of drivers (borrowed and idle) managed by a pool. */
+    public static final int DEFAULT_MAX_TOTAL = 8;
+
+    /** Default maximum number of idle drivers kept per key. */
+    public static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
+
+    /** Default time an idle driver is kept before it gets evicted. */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    /** Default time {@link #borrow(Capabilities)} waits for a driver if the pool is exhausted. */
+    public static final Duration DEFAULT_BORROW_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int maxTotal_;
+    private final int maxIdlePerKey_;
+    private final long idleTimeoutNanos_;
+    private final long borrowTimeoutNanos_;
+
+    private final Lock lock_ = new ReentrantLock();
+    private final Condition available_ = lock_.newCondition();
+
+    private final Map<Object, Deque<IdleDriver>> idleDrivers_ = new HashMap<>();
+    private final Map<HtmlUnitDriver, Object> borrowedDrivers_ = new IdentityHashMap<>();
+    private int totalCount_;
+    private boolean closed_;
+
+    private final AtomicLong borrowCount_ = new AtomicLong();
+    private final AtomicLong createdCount_ = new AtomicLong();
+    private final AtomicLong evictedCount_ = new AtomicLong();
+    private final AtomicLong totalBorrowNanos_ = new AtomicLong();
+    private final AtomicLong maxBorrowNanos_ = new AtomicLong();
+
+    /**
+     * Creates a new pool using the default limits.
+     */
+    public HtmlUnitDriverPool() {
+        this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_IDLE_PER_KEY, DEFAULT_IDLE_TIMEOUT, DEFAULT_BORROW_TIMEOUT);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param maxTotal the maximum number of drivers (borrowed and idle) managed by this pool
+     * @param maxIdlePerKey the maximum number of idle drivers kept per key
+     * @param idleTimeout the time an idle driver is kept before it gets evicted
+     * @param borrowTimeout the time {@link #borrow(Capabilities)} waits if the pool is exhausted
+     */
+    public HtmlUnitDriverPool(final int maxTotal, final int maxIdlePerKey,
+            final Duration idleTimeout, final Duration borrowTimeout) {
+        if (maxTotal < 1) {
+            throw new IllegalArgumentException("maxTotal has to be positive");
+        }
+        if (maxIdlePerKey < 0) {
+            throw new IllegalArgumentException("maxIdlePerKey must not be negative");
+        }
+        maxTotal_ = maxTotal;
+        maxIdlePerKey_ = maxIdlePerKey;
+        idleTimeoutNanos_ = idleTimeout.toNanos();
+        borrowTimeoutNanos_ = borrowTimeout.toNanos();
+    }
+
+    /**
+     * Returns an idle driver matching the given capabilities or creates a new one.
+     * If the pool is exhausted, this waits up to the borrow timeout for a driver
+     * to be released.
+     *
+     * @param capabilities the capabilities the driver has to be created with
+     * @return the driver; has to be given back using {@link #release(HtmlUnitDriver)}
+     * @throws WebDriverException if no driver became available in time
+     */
+    public HtmlUnitDriver borrow(final Capabilities capabilities) {
+        final long start = System.nanoTime();
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions(capabilities);
+        final Object key = normalize(options.asMap());
+
+        final List<HtmlUnitDriver> toQuit = new ArrayList<>();
+        HtmlUnitDriver driver = null;
+        lock_.lock();
+        try {
+            collectExpired(start, toQuit);
+
+            long remaining = borrowTimeoutNanos_;
+            while (true) {
+                if (closed_) {
+                    throw new IllegalStateException("Pool is closed");
+                }
+
+                final Deque<IdleDriver> idle = idleDrivers_.get(key);
+                if (idle != null && !idle.isEmpty()) {
+                    driver = idle.pollFirst().driver_;
+                    break;
+                }
+
+                if (totalCount_ >= maxTotal_ && evictOldestIdle(toQuit)) {
+                    totalCount_--;
+                }
+                if (totalCount_ < maxTotal_) {
+                    totalCount_++;
+                    break;
+                }
+
+                if (remaining <= 0) {
+                    throw new WebDriverException("Timed out waiting for a pooled driver after "
+                            + TimeUnit.NANOSECONDS.toMillis(borrowTimeoutNanos_) + "ms");
+                }
+                remaining = available_.awaitNanos(remaining);
+            }
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException(e);
+        }
+        finally {
+            lock_.unlock();
+            quitAll(toQuit);
+        }
+
+        if (driver == null) {
+            try {
+                driver = createDriver(options);
+                createdCount_.incrementAndGet();
+            }
+            catch (final RuntimeException e) {
+                lock_.lock();
+                try {
+                    totalCount_--;
+                    available_.signal();
+                }
+                finally {
+                    lock_.unlock();
+                }
+                throw e;
+            }
+        }
+
+        lock_.lock();
+        try {
+            borrowedDrivers_.put(driver, key);
+        }
+        finally {
+            lock_.unlock();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        borrowCount_.incrementAndGet();
+        totalBorrowNanos_.addAndGet(elapsed);
+        maxBorrowNanos_.accumulateAndGet(elapsed, Math::max);
+        return driver;
+    }
+
+    /**
+     * Gives a borrowed driver back to the pool. The driver is reset and kept for
+     * reuse; if the reset fails, the pool is closed or there are already enough idle
+     * drivers for this key, the driver is quit instead.
+     *
+     * @param driver the driver to release
+     * @throws IllegalArgumentException if the driver was not borrowed from this pool
+     */
+    public void release(final HtmlUnitDriver driver) {
+        final Object key;
+        final boolean closed;
+        lock_.lock();
+        try {
+            key = borrowedDrivers_.remove(driver);
+            closed = closed_;
+        }
+        finally {
+            lock_.unlock();
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("The driver was not borrowed from this pool");
+        }
+
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                driver.reset();
+            }
+            catch (final RuntimeException e) {
+                reusable = false;
+            }
+        }
+
+        lock_.lock();
+        try {
+            if (reusable && !closed_) {
+                final Deque<IdleDriver> idle = idleDrivers_.computeIfAbsent(key, k -> new ArrayDeque<>());
+                if (idle.size() < maxIdlePerKey_) {
+                    idle.addFirst(new IdleDriver(driver, System.nanoTime()));
+                    available_.signalAll();
+                    return;
+                }
+            }
+            totalCount_--;
+            available_.signalAll();
+        }
+        finally {
+            lock_.unlock();
+        }
+        quitQuietly(driver);
+    }
+
+    /**
+     * Quits all drivers idle for longer than the idle timeout. This is done
+     * automatically on every {@link #borrow(Capabilities) borrow}, but may also
+     * be called periodically to free resources while the pool is not used.
+     *
+     * @return the number of evicted drivers
+     */
+    public int evictIdle() {
+        final List<HtmlUnitDriver> toQuit = new ArrayList<>();
+        lock_.lock();
+        try {
+            collectExpired(System.nanoTime(), toQuit);
+        }
+        finally {
+            lock_.unlock();
+        }
+        quitAll(toQuit);
+        return toQuit.size();
+    }
+
+    /**
+     * Quits all idle drivers; drivers currently borrowed are quit when released.
+     * The pool can not be used afterwards.
+     */
+    @Override
+    public void close() {
+        final List<HtmlUnitDriver> toQuit = new ArrayList<>();
+        lock_.lock();
+        try {
+            closed_ = true;
+            for (final Deque<IdleDriver> idle : idleDrivers_.values()) {
+                for (final IdleDriver idleDriver : idle) {
+                    toQuit.add(idleDriver.driver_);
+                }
+            }
+            idleDrivers_.clear();
+            totalCount_ -= toQuit.size();
+            available_.signalAll();
+        }
+        finally {
+            lock_.unlock();
+        }
+        quitAll(toQuit);
+    }
+
+    /**
+     * Creates a new driver for the pool. Child classes can override this to
+     * create customized drivers.
+     *
+     * @param options the options for the new driver
+     * @return the new driver
+     */
+    protected HtmlUnitDriver createDriver(final HtmlUnitDriverOptions options) {
+        return new HtmlUnitDriver(options);
+    }
+
+    /**
+     * @return the number of drivers (borrowed and idle) managed by this pool
+     */
+    public int getTotalCount() {
+        lock_.lock();
+        try {
+            return totalCount_;
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * @return the number of idle drivers
+     */
+    public int getIdleCount() {
+        lock_.lock();
+        try {
+            int count = 0;
+            for (final Deque<IdleDriver> idle : idleDrivers_.values()) {
+                count += idle.size();
+            }
+            return count;
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+
+    /**
+     * @return the number of successful {@link #borrow(Capabilities)} calls
+     */
+    public long getBorrowCount() {
+        return borrowCount_.get();
+    }
+
+    /**
+     * @return the number of drivers created by this pool
+     */
+    public long getCreatedCount() {
+        return createdCount_.get();
+    }
+
+    /**
+     * @return the number of idle drivers evicted by this pool
+     */
+    public long getEvictedCount() {
+        return evictedCount_.get();
+    }
+
+    /**
+     * @return the average time spent in successful {@link #borrow(Capabilities)} calls
+     */
+    public Duration getAverageBorrowLatency() {
+        final long count = borrowCount_.get();
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(totalBorrowNanos_.get() / count);
+    }
+
+    /**
+     * @return the longest time spent in a successful {@link #borrow(Capabilities)} call
+     */
+    public Duration getMaxBorrowLatency() {
+        return Duration.ofNanos(maxBorrowNanos_.get());
+    }
+
+    private void collectExpired(final long now, final List<HtmlUnitDriver> toQuit) {
+        final Iterator<Deque<IdleDriver>> idleIterator = idleDrivers_.values().iterator();
+        while (idleIterator.hasNext()) {
+            final Deque<IdleDriver> idle = idleIterator.next();
+            // the oldest entries are at the end
+            while (!idle.isEmpty() && now - idle.peekLast().since_ >= idleTimeoutNanos_) {
+                toQuit.add(idle.pollLast().driver_);
+                totalCount_--;
+                evictedCount_.incrementAndGet();
+            }
+            if (idle.isEmpty()) {
+                idleIterator.remove();
+            }
+        }
+    }
+
+    private boolean evictOldestIdle(final List<HtmlUnitDriver> toQuit) {
+        Deque<IdleDriver> oldest = null;
+        for (final Deque<IdleDriver> idle : idleDrivers_.values()) {
+            if (!idle.isEmpty() && (oldest == null || idle.peekLast().since_ - oldest.peekLast().since_ < 0)) {
+                oldest = idle;
+            }
+        }
+        if (oldest == null) {
+            return false;
+        }
+        toQuit.add(oldest.pollLast().driver_);
+        evictedCount_.incrementAndGet();
+        return true;
+    }
+
+    private static void quitAll(final List<HtmlUnitDriver> drivers) {
+        for (final HtmlUnitDriver driver : drivers) {
+            quitQuietly(driver);
+        }
+    }
+
+    private static void quitQuietly(final HtmlUnitDriver driver) {
+        try {
+            driver.quit();
+        }
+        catch (final RuntimeException e) {
+            // ignore, the driver is gone anyway
+        }
+    }
+
+    /**
+     * Converts the options map into a form usable as map key; nested maps get
+     * a stable order and arrays are compared by content.
+     */
+    private static Object normalize(final Object value) {
+        if (value instanceof Map) {
+            final Map<String, Object> normalized = new TreeMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                normalized.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+            }
+            return normalized;
+        }
+        if (value instanceof Object[]) {
+            final List<Object> normalized = new ArrayList<>();
+            for (final Object o : (Object[]) value) {
+                normalized.add(normalize(o));
+            }
+            return normalized;
+        }
+        if (value instanceof char[]) {
+            return Arrays.toString((char[]) value);
+        }
+        return value;
+    }
+
+    private static final class IdleDriver {
+        private final HtmlUnitDriver driver_;
+        private final long since_;
+
+        IdleDriver(final HtmlUnitDriver driver, final long since) {
+            driver_ = driver;
+            since_ = since;
+        }
+    }
+}
@@ -23,19 +23,23 @@
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import org.htmlunit.Page;
 import org.htmlunit.SgmlPage;
 import org.htmlunit.cssparser.parser.CSSException;
 import org.htmlunit.html.DomElement;
 import org.htmlunit.html.DomNode;
-import org.htmlunit.html.DomNodeList;
-import org.htmlunit.html.HtmlAnchor;
 import org.htmlunit.html.HtmlElement;
 import org.htmlunit.html.HtmlPage;
+import org.htmlunit.javascript.host.DOMRect;
 import org.openqa.selenium.By;
 import org.openqa.selenium.By.Remotable.Parameters;
 import org.openqa.selenium.InvalidSelectorException;
@@ -74,6 +78,9 @@ public class HtmlUnitElementFinder {
         }
     }
 
+    /** Tag names which can be used as css type selector. */
+    private static final Pattern SIMPLE_TAG_NAME_PATTERN = Pattern.compile("[a-zA-Z][a-zA-Z0-9-]*|\\*");
+
     private final Map<Class<? extends By>, HtmlUnitElementLocator> finders_ = new HashMap<>();
 
     HtmlUnitElementFinder() {
@@ -98,11 +105,13 @@ public class HtmlUnitElementFinder {
      * @throws NoSuchElementException if no matching element is found
      */
     public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
-        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
-        if (elementLocator == null) {
-            return locator.findElement(driver);
-        }
-        return elementLocator.findElement(driver, locator);
+        return locate(driver, locator, () -> {
+            final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+            if (elementLocator == null) {
+                return locator.findElement(driver);
+            }
+            return elementLocator.findElement(driver, locator);
+        });
     }
 
     /**
@@ -113,11 +122,13 @@ public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
      * @return a {@link List} of matching {@link WebElement} instances; may be empty if none found
      */
     public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
-        if (elementLocator == null) {
-            return locator.findElements(driver);
-        }
-        return elementLocator.findElements(driver, locator);
+        return locate(driver, locator, () -> {
+            final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+            if (elementLocator == null) {
+                return locator.findElements(driver);
+            }
+            return elementLocator.findElements(driver, locator);
+        });
     }
 
     /**
@@ -129,11 +140,13 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
      * @throws NoSuchElementException if no matching element is found
      */
     public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
-        final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
-        if (elementLocator == null) {
-            return locator.findElement(element);
-        }
-        return elementLocator.findElement(element, locator);
+        return locate(element.getDriver(), locator, () -> {
+            final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+            if (elementLocator == null) {
+                return locator.findElement(element);
+            }
+            return elementLocator.findElement(element, locator);
+        });
     }
 
     /**
@@ -144,11 +157,139 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
      * @return a {@link List} of matching child {@link WebElement} instances; may be empty if none found
      */
     public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
+        return locate(element.getDriver(), locator, () -> {
+            final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
+            if (elementLocator == null) {
+                return locator.findElements(element);
+            }
+            return elementLocator.findElements(element, locator);
+        });
+    }
+
+    private static <T> T locate(final HtmlUnitDriver driver, final By locator, final Supplier<T> finder) {
+        final DriverEvents.LocateEvent event = new DriverEvents.LocateEvent();
+        event.begin();
+        T result = null;
+        try {
+            result = CommandTimer.measure(driver.getMetrics(), locateCommand(locator), finder);
+            return result;
+        }
+        finally {
+            event.commit(locator, result, driver);
+        }
+    }
+
+    /**
+     * @param locator the locator
+     * @return the name the lookup is reported as, e.g. {@code locate.ByCssSelector}
+     */
+    private static String locateCommand(final By locator) {
+        final String name = locator.getClass().getSimpleName();
+        return name.isEmpty() ? "locate.By" : "locate." + name;
+    }
+
+    /**
+     * Finds the elements for all the given locators. The locators using the id, name,
+     * tag name, class name or css selector strategy are evaluated together in one walk
+     * over the elements; all other locators are evaluated one by one.
+     *
+     * @param driver  the {@link HtmlUnitDriver} to search with
+     * @param context the element to search in or {@code null} to search the current page
+     * @param locators the locators by the names chosen by the caller
+     * @return the matching {@link WebElement}s by the names of the locators, in the order of the given map
+     */
+    Map<String, List<WebElement>> findAll(final HtmlUnitDriver driver, final HtmlUnitWebElement context,
+            final Map<String, By> locators) {
+        DomNode root = null;
+        if (context != null) {
+            root = context.getElement();
+        }
+        else if (driver.getCurrentWindow().lastPage() instanceof SgmlPage) {
+            root = (SgmlPage) driver.getCurrentWindow().lastPage();
+        }
+
+        final Map<String, List<WebElement>> result = new LinkedHashMap<>();
+        final Map<String, Predicate<DomElement>> matchers = new LinkedHashMap<>();
+        for (final Map.Entry<String, By> entry : locators.entrySet()) {
+            final By locator = entry.getValue();
+            final Predicate<DomElement> matcher = root == null ? null : toMatcher(root, locator);
+            if (matcher == null) {
+                result.put(entry.getKey(),
+                        context == null ? findElements(driver, locator) : findElements(context, locator));
+            }
+            else {
+                // reserve the position
+                result.put(entry.getKey(), null);
+                matchers.put(entry.getKey(), matcher);
+            }
+        }
+
+        if (!matchers.isEmpty()) {
+            final Map<String, List<DomElement>> found = new HashMap<>();
+            for (final String name : matchers.keySet()) {
+                found.put(name, new ArrayList<>());
+            }
+
+            for (final DomElement element : root.getDomElementDescendants()) {
+                for (final Map.Entry<String, Predicate<DomElement>> entry : matchers.entrySet()) {
+                    if (entry.getValue().test(element)) {
+                        found.get(entry.getKey()).add(element);
+                    }
+                }
+            }
+
+            for (final Map.Entry<String, List<DomElement>> entry : found.entrySet()) {
+                result.put(entry.getKey(), convertRawDomElementsToWebElements(driver, entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a predicate selecting the same elements below the root as the locator does.
+     *
+     * @return the predicate or {@code null} if the locator has to be evaluated on its own
+     */
+    private Predicate<DomElement> toMatcher(final DomNode root, final By locator) {
         final HtmlUnitElementLocator elementLocator = finders_.get(locator.getClass());
-        if (elementLocator == null) {
-            return locator.findElements(element);
+        final boolean pageRoot = root instanceof SgmlPage;
+
+        if (elementLocator instanceof FindByID || elementLocator instanceof FindByName) {
+            if (pageRoot && !(root instanceof HtmlPage)) {
+                return null;
+            }
+            final String attributeName = elementLocator instanceof FindByID ? "id" : "name";
+            final String value = HtmlUnitElementLocator.getValue(locator);
+            return element -> element.hasAttribute(attributeName) && value.equals(element.getAttribute(attributeName));
+        }
+
+        String selectors = null;
+        if (elementLocator instanceof FindByTagName) {
+            final String name = HtmlUnitElementLocator.getValue(locator);
+            if (SIMPLE_TAG_NAME_PATTERN.matcher(name).matches()) {
+                selectors = name;
+            }
+        }
+        else if (elementLocator instanceof FindByClassName) {
+            final String value = HtmlUnitElementLocator.getValue(locator);
+            if (value.indexOf(' ') == -1) {
+                selectors = "." + value;
+            }
+        }
+        else if (elementLocator instanceof FindByCssSelector) {
+            selectors = HtmlUnitElementLocator.getValue(locator);
+        }
+
+        if (selectors == null) {
+            return null;
+        }
+        try {
+            return CssSelectorCache.matcher(root, selectors);
+        }
+        catch (final CSSException e) {
+            // the locator reports the error on its own
+            return null;
         }
-        return elementLocator.findElements(element, locator);
     }
 
     /**
@@ -189,13 +330,18 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
         @Override
         public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
             final String id = getValue(locator);
-            return new FindByXPath().findElement(element, By.xpath(".//*[@id = '" + id + "']"));
+            final List<DomElement> allElements = findDescendantsByAttribute(element.getElement(), "id", id, true);
+            if (allElements.isEmpty()) {
+                throw new NoSuchElementException("Unable to locate element with ID: '" + id + "'");
+            }
+            return element.getDriver().toWebElement(allElements.get(0));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String id = getValue(locator);
-            return new FindByXPath().findElements(element, By.xpath(".//*[@id = '" + id + "']"));
+            final List<DomElement> allElements =
+                    findDescendantsByAttribute(element.getElement(), "id", getValue(locator), false);
+            return convertRawDomElementsToWebElements(element.getDriver(), allElements);
         }
     }
 
@@ -220,8 +366,9 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String name = getValue(locator);
-            return new FindByXPath().findElements(element, By.xpath(".//*[@name = '" + name + "']"));
+            final List<DomElement> allElements =
+                    findDescendantsByAttribute(element.getElement(), "name", getValue(locator), false);
+            return convertRawDomElementsToWebElements(element.getDriver(), allElements);
         }
     }
 
@@ -240,30 +387,14 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                 throw new IllegalStateException("Cannot find links for " + lastPage);
             }
 
-            final String expectedText = getValue(locator);
-            final List<HtmlAnchor> anchors = ((HtmlPage) lastPage).getAnchors();
-
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlAnchor anchor : anchors) {
-                if (expectedText.equals(anchor.asNormalizedText())) {
-                    toReturn.add(driver.toWebElement(anchor));
-                }
-            }
-            return toReturn;
+            final List<DomElement> found = LinkTextIndex.of((HtmlPage) lastPage).findByText(getValue(locator), null);
+            return convertRawDomElementsToWebElements(driver, found);
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String expectedText = getValue(locator);
-            final List<? extends HtmlElement> htmlElements = element.getElement().getElementsByTagName("a");
-
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final DomElement e : htmlElements) {
-                if (expectedText.equals(e.asNormalizedText())) {
-                    toReturn.add(element.getDriver().toWebElement(e));
-                }
-            }
-            return toReturn;
+            final List<DomElement> found = findLinks(element.getElement(), getValue(locator), false);
+            return convertRawDomElementsToWebElements(element.getDriver(), found);
         }
     }
 
@@ -283,29 +414,15 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                 throw new IllegalStateException("Cannot find links for " + lastPage);
             }
 
-            final String expectedText = getValue(locator);
-            final List<HtmlAnchor> anchors = ((HtmlPage) lastPage).getAnchors();
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlAnchor anchor : anchors) {
-                if (anchor.asNormalizedText().contains(expectedText)) {
-                    toReturn.add(driver.toWebElement(anchor));
-                }
-            }
-            return toReturn;
+            final List<DomElement> found =
+                    LinkTextIndex.of((HtmlPage) lastPage).findByPartialText(getValue(locator), null);
+            return convertRawDomElementsToWebElements(driver, found);
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final String expectedText = getValue(locator);
-            final DomNodeList<HtmlElement> anchors = element.getElement().getElementsByTagName("a");
-
-            final List<WebElement> toReturn = new ArrayList<>();
-            for (final HtmlElement anchor : anchors) {
-                if (anchor.asNormalizedText().contains(expectedText)) {
-                    toReturn.add(element.getDriver().toWebElement(anchor));
-                }
-            }
-            return toReturn;
+            final List<DomElement> found = findLinks(element.getElement(), getValue(locator), true);
+            return convertRawDomElementsToWebElements(element.getDriver(), found);
         }
     }
 
@@ -334,14 +451,26 @@ private String checkValue(final By locator) {
             return value;
         }
 
+        @Override
+        public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
+            return FindByCssSelector.findElement(driver, getLastPage(driver), "." + checkValue(locator));
+        }
+
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            return new FindByCssSelector().findElements(driver, By.cssSelector("." + checkValue(locator)));
+            return FindByCssSelector.findElements(driver, getLastPage(driver), "." + checkValue(locator));
+        }
+
+        @Override
+        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
+            return FindByCssSelector.findElement(element.getDriver(), element.getElement(),
+                    "." + checkValue(locator));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            return new FindByCssSelector().findElements(element, By.cssSelector("." + checkValue(locator)));
+            return FindByCssSelector.findElements(element.getDriver(), element.getElement(),
+                    "." + checkValue(locator));
         }
     }
 
@@ -357,88 +486,44 @@ public static class FindByCssSelector extends HtmlUnitElementLocator {
 
         @Override
         public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
-            final DomNode node;
-
-            try {
-                node = getLastPage(driver).querySelector(getValue(locator));
-            }
-            catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
-            }
-
-            if (node instanceof DomElement) {
-                return driver.toWebElement((DomElement) node);
-            }
-
-            throw new NoSuchElementException("Returned node (" + node + ") was not a DOM element");
+            return findElement(driver, getLastPage(driver), getValue(locator));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
-            final DomNodeList<DomNode> allNodes;
-
-            try {
-                allNodes = getLastPage(driver).querySelectorAll(getValue(locator));
-            }
-            catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
-            }
-
-            final List<WebElement> toReturn = new ArrayList<>();
-
-            for (final DomNode node : allNodes) {
-                if (node instanceof DomElement) {
-                    toReturn.add(driver.toWebElement((DomElement) node));
-                }
-                else {
-                    throw new NoSuchElementException("Returned node was not a DOM element");
-                }
-            }
+            return findElements(driver, getLastPage(driver), getValue(locator));
+        }
 
-            return toReturn;
+        @Override
+        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
+            return findElement(element.getDriver(), element.getElement(), getValue(locator));
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            final DomNodeList<DomNode> allNodes;
-
-            try {
-                allNodes = element.getElement().querySelectorAll(getValue(locator));
-            }
-            catch (final CSSException ex) {
-                throw new NoSuchElementException("Unable to locate element using css", ex);
-            }
-
-            final List<WebElement> toReturn = new ArrayList<>();
+            return findElements(element.getDriver(), element.getElement(), getValue(locator));
+        }
 
-            for (final DomNode node : allNodes) {
-                if (node instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) node));
-                }
-                else {
-                    throw new NoSuchElementException("Returned node was not a DOM element");
-                }
+        static WebElement findElement(final HtmlUnitDriver driver, final DomNode root, final String selectors) {
+            final List<DomElement> elements = select(root, selectors, true);
+            if (elements.isEmpty()) {
+                throw new NoSuchElementException("Returned node (null) was not a DOM element");
             }
-
-            return toReturn;
+            return driver.toWebElement(elements.get(0));
         }
 
-        @Override
-        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
-            final DomNode node;
+        static List<WebElement> findElements(final HtmlUnitDriver driver, final DomNode root,
+                final String selectors) {
+            return convertRawDomElementsToWebElements(driver, select(root, selectors, false));
+        }
 
+        private static List<DomElement> select(final DomNode root, final String selectors, final boolean firstOnly) {
             try {
-                node = element.getElement().querySelector(getValue(locator));
+                return CssSelectorCache.select(root, selectors, firstOnly);
             }
             catch (final CSSException ex) {
                 throw new NoSuchElementException("Unable to locate element using css", ex);
             }
-
-            if (node instanceof DomElement) {
-                return element.getDriver().toWebElement((DomElement) node);
-            }
-
-            throw new NoSuchElementException("Returned node (" + node + ") was not a DOM element");
         }
     }
 
@@ -477,15 +562,7 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                 return Collections.emptyList();
             }
 
-            final NodeList allElements = lastPage.getElementsByTagName(name);
-            final List<WebElement> toReturn = new ArrayList<>(allElements.getLength());
-            for (int i = 0; i < allElements.getLength(); i++) {
-                final Node item = allElements.item(i);
-                if (item instanceof DomElement) {
-                    toReturn.add(driver.toWebElement((DomElement) item));
-                }
-            }
-            return toReturn;
+            return convertRawDomElementsToWebElements(driver, onlyElements(lastPage.getElementsByTagName(name)));
         }
 
         @Override
@@ -501,14 +578,19 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
             final NodeList allElements = element.getElement().getElementsByTagName(getValue(locator));
-            final List<WebElement> toReturn = new ArrayList<>(allElements.getLength());
-            for (int i = 0; i < allElements.getLength(); i++) {
-                final Node item = allElements.item(i);
+            return convertRawDomElementsToWebElements(element.getDriver(), onlyElements(allElements));
+        }
+
+        private static List<DomElement> onlyElements(final NodeList nodes) {
+            final int length = nodes.getLength();
+            final List<DomElement> elements = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                final Node item = nodes.item(i);
                 if (item instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) item));
+                    elements.add((DomElement) item);
                 }
             }
-            return toReturn;
+            return elements;
         }
     }
 
@@ -529,7 +611,7 @@ public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
             final String value = getValue(locator);
 
             try {
-                node = lastPage.getFirstByXPath(value);
+                node = XPathExpressionCache.getFirstByXPath(lastPage, value);
             }
             catch (final Exception ex) {
                 // The xpath expression cannot be evaluated, so the expression is invalid
@@ -560,14 +642,14 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
             final String value = getValue(locator);
             final List<?> nodes;
             try {
-                nodes = lastPage.getByXPath(value);
+                nodes = XPathExpressionCache.getByXPath(lastPage, value);
             }
             catch (final RuntimeException ex) {
                 // The xpath expression cannot be evaluated, so the expression is invalid
                 throw new InvalidSelectorException(String.format(INVALIDXPATHERROR, value), ex);
             }
 
-            final List<WebElement> toReturn = new ArrayList<>(nodes.size());
+            final List<DomElement> found = new ArrayList<>(nodes.size());
             for (final Object node : nodes) {
                 // There exist elements in the nodes list which could not be converted to
                 // WebElements.
@@ -577,10 +659,10 @@ public List<WebElement> findElements(final HtmlUnitDriver driver, final By locat
                     // information in the exception. We can throw the exception immediately.
                     throw new InvalidSelectorException(String.format(INVALIDSELECTIONERROR, value, node.getClass()));
                 }
-                toReturn.add(driver.toWebElement((DomElement) node));
+                found.add((DomElement) node);
             }
 
-            return toReturn;
+            return convertRawDomElementsToWebElements(driver, found);
         }
 
         @Override
@@ -588,7 +670,7 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
             final String value = getValue(locator);
             final Object node;
             try {
-                node = element.getElement().getFirstByXPath(value);
+                node = XPathExpressionCache.getFirstByXPath(element.getElement(), value);
             }
             catch (final Exception ex) {
                 // The xpath expression cannot be evaluated, so the expression is invalid
@@ -611,20 +693,19 @@ public WebElement findElement(final HtmlUnitWebElement element, final By locator
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
             final String value = getValue(locator);
-            final List<WebElement> toReturn = new ArrayList<>();
-
             final List<?> domElements;
             try {
-                domElements = element.getElement().getByXPath(value);
+                domElements = XPathExpressionCache.getByXPath(element.getElement(), value);
             }
             catch (final Exception ex) {
                 // The xpath expression cannot be evaluated, so the expression is invalid
                 throw new InvalidSelectorException(String.format(INVALIDXPATHERROR, value), ex);
             }
 
+            final List<DomElement> found = new ArrayList<>(domElements.size());
             for (final Object e : domElements) {
                 if (e instanceof DomElement) {
-                    toReturn.add(element.getDriver().toWebElement((DomElement) e));
+                    found.add((DomElement) e);
                 }
                 else {
                     // The xpath selector selected something different than a WebElement. The
@@ -634,7 +715,7 @@ public List<WebElement> findElements(final HtmlUnitWebElement element, final By
                             String.format(INVALIDSELECTIONERROR, value, e.getClass().toString()));
                 }
             }
-            return toReturn;
+            return convertRawDomElementsToWebElements(element.getDriver(), found);
         }
     }
 
@@ -746,38 +827,315 @@ protected static String getValue(final By locator) {
 
     /**
      * Converts a list of raw {@link DomElement} objects into {@link WebElement} instances
-     * using the provided {@link HtmlUnitDriver}.
+     * using the provided {@link HtmlUnitDriver}. The elements are wrapped on first access
+     * (see {@link LazyWebElementList}).
      *
      * @param driver the driver used to convert DOM elements into WebElements
-     * @param nodes the list of {@link DomElement} objects to convert
+     * @param nodes the list of {@link DomElement} objects to convert; not copied
      * @return a list of corresponding {@link WebElement} objects
      */
     private static List<WebElement> convertRawDomElementsToWebElements(
             final HtmlUnitDriver driver, final List<DomElement> nodes) {
-        final List<WebElement> toReturn = new ArrayList<>(nodes.size());
+        return new LazyWebElementList(driver, nodes);
+    }
 
-        for (final DomElement node : nodes) {
-            toReturn.add(driver.toWebElement(node));
+    /**
+     * Returns the {@link DomElement}s of a list returned by the element finder
+     * without wrapping the elements not wrapped so far.
+     *
+     * @param found the list returned by one of the finder methods
+     * @return the elements
+     */
+    static List<DomElement> toDomElements(final List<WebElement> found) {
+        final List<DomElement> result = new ArrayList<>(found.size());
+        if (found instanceof LazyWebElementList) {
+            final LazyWebElementList lazy = (LazyWebElementList) found;
+            for (int i = 0; i < lazy.size(); i++) {
+                result.add(lazy.getDomElement(i));
+            }
+        }
+        else {
+            for (final WebElement webElement : found) {
+                result.add(((HtmlUnitWebElement) webElement).getElement());
+            }
         }
+        return result;
+    }
 
-        return toReturn;
+    /**
+     * Finds the anchors inside the given element having the given text. Uses the
+     * {@link LinkTextIndex} of the page; only pages other than {@link HtmlPage}
+     * are searched by computing the text of every anchor.
+     *
+     * @param root the element to search in
+     * @param text the expected text
+     * @param partial whether the anchor text has only to contain the expected text
+     * @return the matching anchors in document order
+     */
+    private static List<DomElement> findLinks(final DomElement root, final String text, final boolean partial) {
+        if (root.getPage() instanceof HtmlPage) {
+            final LinkTextIndex index = LinkTextIndex.of((HtmlPage) root.getPage());
+            return partial ? index.findByPartialText(text, root) : index.findByText(text, root);
+        }
+
+        final List<DomElement> found = new ArrayList<>();
+        for (final HtmlElement anchor : root.getElementsByTagName("a")) {
+            final String anchorText = anchor.asNormalizedText();
+            if (partial ? anchorText.contains(text) : text.equals(anchorText)) {
+                found.add(anchor);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Walks the descendants of the given node and collects the elements having
+     * the given attribute value. Used for the element scoped id and name lookups;
+     * this is a lot cheaper than building and evaluating a XPath expression.
+     *
+     * @param root the node to search in
+     * @param attributeName the attribute name
+     * @param value the expected attribute value
+     * @param firstOnly whether to stop at the first match
+     * @return the matching elements in document order
+     */
+    private static List<DomElement> findDescendantsByAttribute(final DomNode root,
+            final String attributeName, final String value, final boolean firstOnly) {
+        final List<DomElement> result = new ArrayList<>();
+        for (final DomElement element : root.getDomElementDescendants()) {
+            if (element.hasAttribute(attributeName) && value.equals(element.getAttribute(attributeName))) {
+                result.add(element);
+                if (firstOnly) {
+                    break;
+                }
+            }
+        }
+        return result;
     }
 
     /**
      * Locator implementation that handles {@link RelativeBy} selectors for
      * finding elements relative to other elements.
+     * <p>
+     * The above, below, left, right and near filters are evaluated in Java using the
+     * client rects of the elements (the same HtmlUnit layout data
+     * {@code getBoundingClientRect()} returns); results are sorted by the distance to
+     * the anchor of the last filter like the JavaScript atom does. Everything else
+     * (e.g. the straight filters or a disabled JavaScript support) falls back to the atom.
      */
     public static class FindByRelativeLocator extends HtmlUnitElementLocator {
 
+        private static final int DEFAULT_NEAR_DISTANCE = 50;
+
+        @Override
+        public WebElement findElement(final HtmlUnitDriver driver, final By locator) {
+            final List<WebElement> toReturn = findElements(driver, locator);
+            if (toReturn.isEmpty()) {
+                throw new NoSuchElementException("Cannot locate an element using " + locator);
+            }
+            return toReturn.get(0);
+        }
+
         @Override
         public List<WebElement> findElements(final HtmlUnitDriver driver, final By locator) {
+            final List<WebElement> found = findNative(driver, null, locator);
+            if (found != null) {
+                return found;
+            }
             // Executes a JavaScript snippet to find elements according to the relative locator
-            return (List<WebElement>) driver.executeScript(FIND_ELEMENTS_JS, asParameter(locator));
+            return findByAtom(driver, asParameter(locator));
+        }
+
+        @Override
+        public WebElement findElement(final HtmlUnitWebElement element, final By locator) {
+            final List<WebElement> toReturn = findElements(element, locator);
+            if (toReturn.isEmpty()) {
+                throw new NoSuchElementException("Cannot locate an element using " + locator);
+            }
+            return toReturn.get(0);
         }
 
         @Override
         public List<WebElement> findElements(final HtmlUnitWebElement element, final By locator) {
-            return null;
+            final HtmlUnitDriver driver = element.getDriver();
+            final List<WebElement> found = findNative(driver, element, locator);
+            if (found != null) {
+                return found;
+            }
+            // the atom searches the root locator inside the (optional) second argument
+            return findByAtom(driver, asParameter(locator), element);
+        }
+
+        /**
+         * Evaluates the relative locator using the Selenium atom.
+         */
+        @SuppressWarnings("unchecked")
+        private static List<WebElement> findByAtom(final HtmlUnitDriver driver, final Object... args) {
+            return (List<WebElement>) driver.executeScript(FIND_ELEMENTS_JS, args);
+        }
+
+        /**
+         * Evaluates the relative locator in Java.
+         *
+         * @return the matching elements or {@code null} if the locator is not supported natively
+         */
+        private static List<WebElement> findNative(final HtmlUnitDriver driver,
+                final HtmlUnitWebElement context, final By locator) {
+            if (!driver.isJavascriptEnabled()) {
+                return null;
+            }
+
+            final Map<?, ?> params = (Map<?, ?>) ((RelativeBy) locator).getRemoteParameters().value();
+            final List<Filter> filters = new ArrayList<>();
+            for (final Object filter : (List<?>) params.get("filters")) {
+                final Map<?, ?> filterMap = (Map<?, ?>) filter;
+                final String kind = String.valueOf(filterMap.get("kind"));
+                final List<?> args = (List<?>) filterMap.get("args");
+                if (!Filter.isSupported(kind) || args.isEmpty()) {
+                    return null;
+                }
+
+                final DomElement anchor = resolve(driver, args.get(0));
+                if (anchor == null) {
+                    return null;
+                }
+                int distance = DEFAULT_NEAR_DISTANCE;
+                if (args.size() > 1 && args.get(1) instanceof Number) {
+                    distance = ((Number) args.get(1)).intValue();
+                }
+                filters.add(new Filter(kind, anchor, getClientRect(anchor), distance));
+            }
+
+            final List<DomElement> candidates = findRoots(driver, context, params.get("root"));
+            if (candidates == null) {
+                return null;
+            }
+
+            final List<DomElement> matches = new ArrayList<>();
+            final Map<DomElement, double[]> rects = new HashMap<>();
+            for (final DomElement candidate : candidates) {
+                final double[] rect = getClientRect(candidate);
+                boolean accepted = true;
+                for (final Filter filter : filters) {
+                    if (!filter.accepts(candidate, rect)) {
+                        accepted = false;
+                        break;
+                    }
+                }
+                if (accepted) {
+                    matches.add(candidate);
+                    rects.put(candidate, rect);
+                }
+            }
+
+            if (!filters.isEmpty()) {
+                final double[] anchorRect = filters.get(filters.size() - 1).anchorRect_;
+                matches.sort(Comparator.comparingDouble(e -> centerDistance(anchorRect, rects.get(e))));
+            }
+            return convertRawDomElementsToWebElements(driver, matches);
+        }
+
+        /**
+         * Finds the elements matching the root of the relative locator.
+         *
+         * @return the found elements or {@code null} if the root is not supported natively
+         */
+        private static List<DomElement> findRoots(final HtmlUnitDriver driver,
+                final HtmlUnitWebElement context, final Object root) {
+            if (root instanceof HtmlUnitWebElement) {
+                return Collections.singletonList(((HtmlUnitWebElement) root).getElement());
+            }
+
+            final By by = toBy(root);
+            if (by == null) {
+                return null;
+            }
+            final List<WebElement> found;
+            if (context == null) {
+                found = driver.getElementFinder().findElements(driver, by);
+            }
+            else {
+                found = driver.getElementFinder().findElements(context, by);
+            }
+
+            return toDomElements(found);
+        }
+
+        /**
+         * Resolves the anchor of a filter; anchors are always searched in the whole page.
+         *
+         * @return the anchor element or {@code null} if the anchor is not supported natively
+         * @throws NoSuchElementException if the anchor locator does not match any element
+         */
+        private static DomElement resolve(final HtmlUnitDriver driver, final Object anchor) {
+            if (anchor instanceof HtmlUnitWebElement) {
+                return ((HtmlUnitWebElement) anchor).getElement();
+            }
+
+            final By by = toBy(anchor);
+            if (by == null) {
+                return null;
+            }
+            final List<WebElement> found = driver.getElementFinder().findElements(driver, by);
+            if (found.isEmpty()) {
+                throw new NoSuchElementException("No element has been found by " + by);
+            }
+            return ((HtmlUnitWebElement) found.get(0)).getElement();
+        }
+
+        /**
+         * Converts the {@code {using: value}} map produced by {@link RelativeLocator} back into a {@link By}.
+         *
+         * @return the locator or {@code null} if the strategy is unknown
+         */
+        private static By toBy(final Object locator) {
+            if (!(locator instanceof Map) || ((Map<?, ?>) locator).size() != 1) {
+                return null;
+            }
+            final Map.Entry<?, ?> entry = ((Map<?, ?>) locator).entrySet().iterator().next();
+            if (!(entry.getValue() instanceof String)) {
+                return null;
+            }
+
+            final String value = (String) entry.getValue();
+            switch (String.valueOf(entry.getKey())) {
+                case "id":
+                    return By.id(value);
+                case "name":
+                    return By.name(value);
+                case "class name":
+                    return By.className(value);
+                case "css selector":
+                    return By.cssSelector(value);
+                case "link text":
+                    return By.linkText(value);
+                case "partial link text":
+                    return By.partialLinkText(value);
+                case "tag name":
+                    return By.tagName(value);
+                case "xpath":
+                    return By.xpath(value);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return the client rect as {@code [left, top, width, height]}
+         */
+        private static double[] getClientRect(final DomElement element) {
+            final Object scriptable = element.getScriptableObject();
+            if (!(scriptable instanceof org.htmlunit.javascript.host.Element)) {
+                return new double[4];
+            }
+            final DOMRect rect = ((org.htmlunit.javascript.host.Element) scriptable).getBoundingClientRect();
+            return new double[] {rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()};
+        }
+
+        private static double centerDistance(final double[] rect1, final double[] rect2) {
+            final double x = rect1[0] + Math.max(1, rect1[2]) / 2 - (rect2[0] + Math.max(1, rect2[2]) / 2);
+            final double y = rect1[1] + Math.max(1, rect1[3]) / 2 - (rect2[1] + Math.max(1, rect2[3]) / 2);
+            return Math.sqrt(x * x + y * y);
         }
 
         /**
@@ -790,5 +1148,51 @@ private static Object asParameter(final By locator) {
             final Parameters params = ((RelativeBy) locator).getRemoteParameters();
             return Map.of(params.using(), params.value());
         }
+
+        /**
+         * A single filter of a relative locator with the already resolved anchor.
+         */
+        private static final class Filter {
+            private final String kind_;
+            private final DomElement anchor_;
+            private final double[] anchorRect_;
+            private final int distance_;
+
+            Filter(final String kind, final DomElement anchor, final double[] anchorRect, final int distance) {
+                kind_ = kind;
+                anchor_ = anchor;
+                anchorRect_ = anchorRect;
+                distance_ = distance;
+            }
+
+            static boolean isSupported(final String kind) {
+                return "above".equals(kind) || "below".equals(kind)
+                        || "left".equals(kind) || "right".equals(kind) || "near".equals(kind);
+            }
+
+            boolean accepts(final DomElement candidate, final double[] rect) {
+                final double[] anchor = anchorRect_;
+                switch (kind_) {
+                    case "above":
+                        return rect[1] + rect[3] < anchor[1];
+                    case "below":
+                        return anchor[1] + anchor[3] < rect[1];
+                    case "left":
+                        return rect[0] + rect[2] < anchor[0];
+                    case "right":
+                        return anchor[0] + anchor[2] < rect[0];
+                    case "near":
+                        if (candidate == anchor_) {
+                            return false;
+                        }
+                        return anchor[0] - distance_ <= rect[0] + rect[2]
+                                && rect[0] <= anchor[0] + anchor[2] + distance_
+                                && anchor[1] - distance_ <= rect[1] + rect[3]
+                                && rect[1] <= anchor[1] + anchor[3] + distance_;
+                    default:
+                        return false;
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,133 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.htmlunit.options.HtmlUnitOption;
+
+/**
+ * The JVM wide executors used to process the driver commands if
+ * {@link HtmlUnitOption#EXECUTOR_MODE} is not {@code dedicated}.
+ * These executors are shared by all drivers and never shut down;
+ * their threads are daemon threads that time out when idle.
+ *
+ * @author agent (agent@local)
+ */
+final class HtmlUnitExecutors {
+
+    /** Every driver uses its own cached thread pool. */
+    static final String DEDICATED = "dedicated";
+
+    /** All drivers use one thread pool growing on demand up to a cap. */
+    static final String SHARED = "shared";
+
+    /** Every command runs on a new virtual thread. */
+    static final String VIRTUAL = "virtual";
+
+    /**
+     * The system property to configure the maximum number of threads of the shared executor;
+     * defaults to {@value #SHARED_THREADS_PER_PROCESSOR} per available processor but at least
+     * {@value #MIN_SHARED_POOL_SIZE}.
+     */
+    static final String SHARED_POOL_SIZE_PROPERTY = "webdriver.htmlunit.sharedExecutorSize";
+
+    /**
+     * A command (e.g. a page load) occupies a thread for its full duration; the default cap
+     * leaves room for two concurrent commands per session of a fully loaded
+     * {@code HtmlUnitNode} (16 sessions per processor).
+     */
+    private static final int SHARED_THREADS_PER_PROCESSOR = 32;
+    private static final int MIN_SHARED_POOL_SIZE = 256;
+
+    private HtmlUnitExecutors() {
+    }
+
+    /**
+     * Returns the shared executor for the given mode.
+     *
+     * @param mode the executor mode; {@code shared} or {@code virtual}
+     * @return the executor
+     * @throws IllegalArgumentException if the mode is not supported
+     */
+    static Executor getExecutor(final String mode) {
+        if (SHARED.equals(mode)) {
+            return SharedHolder.EXECUTOR;
+        }
+        if (VIRTUAL.equals(mode)) {
+            final Executor virtual = VirtualHolder.EXECUTOR;
+            return virtual != null ? virtual : SharedHolder.EXECUTOR;
+        }
+        throw new IllegalArgumentException("Unsupported executor mode '" + mode
+                + "'; use one of '" + DEDICATED + "', '" + SHARED + "' or '" + VIRTUAL + "'");
+    }
+
+    /**
+     * @return whether the runtime supports virtual threads
+     */
+    static boolean isVirtualThreadSupported() {
+        return VirtualHolder.EXECUTOR != null;
+    }
+
+    private static final class SharedHolder {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            final int size = Math.max(1, Integer.getInteger(SHARED_POOL_SIZE_PROPERTY, Math.max(MIN_SHARED_POOL_SIZE,
+                    SHARED_THREADS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors())));
+
+            final AtomicInteger counter = new AtomicInteger();
+            final ThreadFactory threadFactory = r -> {
+                final Thread thread = new Thread(r, "HtmlUnitDriver-shared-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            // threads are started on demand up to the cap and stop after being idle for a minute;
+            // tasks are only queued if all threads are busy
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+        }
+    }
+
+    private static final class VirtualHolder {
+        static final ExecutorService EXECUTOR;
+
+        static {
+            ExecutorService executor;
+            try {
+                // we are still compiling for Java 11
+                executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch (final ReflectiveOperationException e) {
+                executor = null;
+            }
+            EXECUTOR = executor;
+        }
+    }
+}
@@ -34,27 +34,31 @@
  * @author Ronald Brill
  */
 public class HtmlUnitTimeouts implements WebDriver.Timeouts {
+    private static final long DEFAULT_IMPLICIT_WAIT = 0;
+    private static final long DEFAULT_SCRIPT_TIMEOUT = 30 * 1000;
+    private static final long DEFAULT_PAGE_LOAD_TIMEOUT = 300 * 1000;
+
     /**
      * The amount of time (in milliseconds) the driver should wait when
      * searching for elements that are not immediately present.
      * <p>
      * Defaults to {@code 0}, meaning no implicit wait.
      */
-    private long implicitWait_ = 0;
+    private long implicitWait_ = DEFAULT_IMPLICIT_WAIT;
 
     /**
      * The timeout (in milliseconds) for asynchronous script execution.
      * <p>
      * Defaults to {@code 30_000} (30 seconds).
      */
-    private long scriptTimeout_ = 30 * 1000;
+    private long scriptTimeout_ = DEFAULT_SCRIPT_TIMEOUT;
 
     /**
      * The amount of time (in milliseconds) to wait for a page load to complete.
      * <p>
      * Defaults to {@code 300_000} (5 minutes).
      */
-    private long pageLoadTimeout_ = 300 * 1000;
+    private long pageLoadTimeout_ = DEFAULT_PAGE_LOAD_TIMEOUT;
 
     /**
      * The underlying HtmlUnit {@link WebClient} associated with this timeout
@@ -116,6 +120,17 @@ public Duration getPageLoadTimeout() {
         return Duration.ofMillis(pageLoadTimeout_);
     }
 
+    /**
+     * Restores the implicit wait, script and page load timeouts to their defaults.
+     * <p>
+     * The timeout of the associated {@link WebClient} is not touched.
+     */
+    void reset() {
+        implicitWait_ = DEFAULT_IMPLICIT_WAIT;
+        scriptTimeout_ = DEFAULT_SCRIPT_TIMEOUT;
+        pageLoadTimeout_ = DEFAULT_PAGE_LOAD_TIMEOUT;
+    }
+
     private static void setPageLoadTimeoutForWebClient(final WebClient webClient, final long timeout) {
         if (webClient != null) {
             webClient.getOptions().setTimeout(Math.max((int) timeout, 0));
@@ -23,14 +23,17 @@
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.htmlunit.ScriptResult;
 import org.htmlunit.corejs.javascript.ScriptRuntime;
 import org.htmlunit.corejs.javascript.Scriptable;
 import org.htmlunit.corejs.javascript.ScriptableObject;
+import org.htmlunit.css.ComputedCssStyleDeclaration;
 import org.htmlunit.html.DisabledElement;
 import org.htmlunit.html.DomElement;
 import org.htmlunit.html.DomNode;
@@ -107,6 +110,18 @@ public class HtmlUnitWebElement implements WrapsDriver, WebElement, Coordinates,
         "readonly", "required", "reversed", "scoped", "seamless", "seeking", "selected", "spellcheck", "truespeed",
         "willvalidate"};
 
+    /** Matches everything that is not part of a number in a css length like {@code 12.5px}. */
+    private static final Pattern NOT_A_NUMBER_PATTERN = Pattern.compile("[^0-9\\.]");
+
+    /** The {@link Colors} by their upper case name. */
+    private static final Map<String, Colors> COLORS = new HashMap<>();
+
+    static {
+        for (final Colors colors : Colors.values()) {
+            COLORS.put(colors.name(), colors);
+        }
+    }
+
     /** The {@link HtmlUnitDriver} instance associated with this element. */
     private final HtmlUnitDriver driver_;
     /** Unique identifier for this element within the driver. */
@@ -116,6 +131,8 @@ public class HtmlUnitWebElement implements WrapsDriver, WebElement, Coordinates,
 
     /** Cached string representation of the element for {@link #toString()}. */
     private String toString_;
+    /** The detach epoch of the page the element was found attached the last time. */
+    private volatile long attachedEpoch_ = DomDetachTracker.NO_EPOCH;
 
     /**
      * Constructs a new {@link HtmlUnitWebElement} that wraps the given {@link DomElement}.
@@ -132,13 +149,15 @@ public HtmlUnitWebElement(final HtmlUnitDriver driver, final int id, final DomEl
 
     @Override
     public void click() {
-        verifyCanInteractWithElement(true);
-        driver_.click(element_, true);
+        driver_.measure("element.click", () -> {
+            verifyCanInteractWithElement(true);
+            driver_.click(element_, true);
+        });
     }
 
     @Override
     public void submit() {
-        driver_.submit(this);
+        driver_.measure("element.submit", () -> driver_.submit(this));
     }
 
     /**
@@ -242,6 +261,10 @@ else if (element instanceof HtmlButton) {
 
     @Override
     public void clear() {
+        driver_.measure("element.clear", () -> clearImpl());
+    }
+
+    private void clearImpl() {
         assertElementNotStale();
 
         if (element_ instanceof HtmlInput) {
@@ -332,7 +355,7 @@ public void sendKeys(final CharSequence... value) {
         if (value == null) {
             throw new IllegalArgumentException("Keys to send should nor be null");
         }
-        driver_.sendKeys(this, value);
+        driver_.measure("element.sendKeys", () -> driver_.sendKeys(this, value));
     }
 
     @Override
@@ -343,6 +366,10 @@ public String getTagName() {
 
     @Override
     public String getAttribute(final String name) {
+        return driver_.measure("element.getAttribute", () -> getAttributeImpl(name));
+    }
+
+    private String getAttributeImpl(final String name) {
         assertElementNotStale();
 
         final String lowerName = name.toLowerCase();
@@ -458,6 +485,10 @@ public String getAttribute(final String name) {
 
     @Override
     public String getDomProperty(final String name) {
+        return driver_.measure("element.getDomProperty", () -> getDomPropertyImpl(name));
+    }
+
+    private String getDomPropertyImpl(final String name) {
         assertElementNotStale();
 
         final HtmlUnitScriptable scriptable = element_.getScriptableObject();
@@ -512,6 +543,10 @@ else if (element_ instanceof HtmlRadioButtonInput) {
 
     @Override
     public String getDomAttribute(final String name) {
+        return driver_.measure("element.getDomAttribute", () -> getDomAttributeImpl(name));
+    }
+
+    private String getDomAttributeImpl(final String name) {
         assertElementNotStale();
 
         final String lowerName = name.toLowerCase();
@@ -560,6 +595,10 @@ private static String trueOrFalse(final boolean condition) {
 
     @Override
     public boolean isSelected() {
+        return driver_.measure("element.isSelected", () -> isSelectedImpl());
+    }
+
+    private boolean isSelectedImpl() {
         assertElementNotStale();
 
         if (element_ instanceof HtmlInput) {
@@ -575,27 +614,34 @@ else if (element_ instanceof HtmlOption) {
 
     @Override
     public boolean isEnabled() {
-        assertElementNotStale();
+        return driver_.measure("element.isEnabled", () -> {
+            assertElementNotStale();
 
-        if (element_ instanceof DisabledElement) {
-            return !((DisabledElement) element_).isDisabled();
-        }
-        return true;
+            if (element_ instanceof DisabledElement) {
+                return !((DisabledElement) element_).isDisabled();
+            }
+            return true;
+        });
     }
 
     @Override
     public boolean isDisplayed() {
-        assertElementNotStale();
-
-        return element_.isDisplayed();
+        return driver_.measure("element.isDisplayed", () -> {
+            assertElementNotStale();
+            return element_.isDisplayed();
+        });
     }
 
     @Override
     public Point getLocation() {
+        return driver_.measure("element.getLocation", () -> getLocationImpl());
+    }
+
+    private Point getLocationImpl() {
         assertElementNotStale();
 
         try {
-            return new Point(readAndRound("left"), readAndRound("top"));
+            return readLocation(getComputedStyle());
         }
         catch (final Exception e) {
             throw new WebDriverException("Cannot determine size of element", e);
@@ -604,12 +650,14 @@ public Point getLocation() {
 
     @Override
     public Dimension getSize() {
+        return driver_.measure("element.getSize", () -> getSizeImpl());
+    }
+
+    private Dimension getSizeImpl() {
         assertElementNotStale();
 
         try {
-            final int width = readAndRound("width");
-            final int height = readAndRound("height");
-            return new Dimension(width, height);
+            return readSize(getComputedStyle());
         }
         catch (final Exception e) {
             throw new WebDriverException("Cannot determine size of element", e);
@@ -618,21 +666,52 @@ public Dimension getSize() {
 
     @Override
     public Rectangle getRect() {
-        return new Rectangle(getLocation(), getSize());
+        return driver_.measure("element.getRect", () -> getRectImpl());
     }
 
-    private int readAndRound(final String property) {
-        final String cssValue = getCssValue(property).replaceAll("[^0-9\\.]", "");
-        if (cssValue.isEmpty()) {
+    private Rectangle getRectImpl() {
+        assertElementNotStale();
+
+        try {
+            // resolve the computed style only once for all four values
+            final ComputedCssStyleDeclaration style = getComputedStyle();
+            return new Rectangle(readLocation(style), readSize(style));
+        }
+        catch (final Exception e) {
+            throw new WebDriverException("Cannot determine size of element", e);
+        }
+    }
+
+    private ComputedCssStyleDeclaration getComputedStyle() {
+        return element_.getPage().getEnclosingWindow().getComputedStyle(element_, null);
+    }
+
+    private static Point readLocation(final ComputedCssStyleDeclaration style) {
+        return new Point(readAndRound(style.getLeft()), readAndRound(style.getTop()));
+    }
+
+    private static Dimension readSize(final ComputedCssStyleDeclaration style) {
+        return new Dimension(readAndRound(style.getWidth()), readAndRound(style.getHeight()));
+    }
+
+    private static int readAndRound(final String cssValue) {
+        if (cssValue == null) {
             return 5; // wrong... but better than nothing
         }
-        return Math.round(Float.parseFloat(cssValue));
+
+        final String number = NOT_A_NUMBER_PATTERN.matcher(cssValue).replaceAll("");
+        if (number.isEmpty()) {
+            return 5; // wrong... but better than nothing
+        }
+        return Math.round(Float.parseFloat(number));
     }
 
     @Override
     public String getText() {
-        assertElementNotStale();
-        return element_.getVisibleText();
+        return driver_.measure("element.getText", () -> {
+            assertElementNotStale();
+            return element_.getVisibleText();
+        });
     }
 
     /**
@@ -738,11 +817,23 @@ public String toString() {
      * throw a {@link StaleElementReferenceException}.
      */
     protected void assertElementNotStale() {
-        driver_.assertElementNotStale(element_);
+        driver_.assertElementNotStale(this);
+    }
+
+    long getAttachedEpoch() {
+        return attachedEpoch_;
+    }
+
+    void setAttachedEpoch(final long attachedEpoch) {
+        attachedEpoch_ = attachedEpoch;
     }
 
     @Override
     public String getCssValue(final String propertyName) {
+        return driver_.measure("element.getCssValue", () -> getCssValueImpl(propertyName));
+    }
+
+    private String getCssValueImpl(final String propertyName) {
         assertElementNotStale();
 
         // TODO switch to the js free version
@@ -773,14 +864,8 @@ private static String getColor(final String name) {
         return name;
     }
 
-    private static Colors getColorsOf(String name) {
-        name = name.toUpperCase();
-        for (final Colors colors : Colors.values()) {
-            if (colors.name().equals(name)) {
-                return colors;
-            }
-        }
-        return null;
+    private static Colors getColorsOf(final String name) {
+        return COLORS.get(name.toUpperCase());
     }
 
     @Override
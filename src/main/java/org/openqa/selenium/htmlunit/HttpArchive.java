@@ -0,0 +1,163 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.util.NameValuePair;
+
+/**
+ * The on-disk format of the HTTP archives written by {@link RecordingWebConnection} and
+ * served by {@link ReplayingWebConnection}
+ * (see {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#HTTP_ARCHIVE_MODE}).
+ * <p>
+ * An archive is a sequence of entries, each holding one request/response pair:
+ * <pre>
+ * archive := MAGIC VERSION entry*
+ * entry   := key status statusMessage headerCount (headerName headerValue)* body
+ * </pre>
+ * Numbers are big-endian ints; strings and the body are written as int length
+ * followed by the bytes, strings UTF-8 encoded. The key identifies the request
+ * (method, url and request body). The body is stored decoded; the headers
+ * describing the transfer encoding are not stored.
+ *
+ * @author agent (agent@local)
+ */
+final class HttpArchive {
+
+    /** Mode not using an archive. */
+    static final String OFF = "off";
+    /** Mode writing all responses to the archive. */
+    static final String RECORD = "record";
+    /** Mode serving all responses from the archive. */
+    static final String REPLAY = "replay";
+
+    /** The first bytes of every archive: "HUHA". */
+    static final int MAGIC = 0x48554841;
+    /** The format version. */
+    static final int VERSION = 1;
+
+    private HttpArchive() {
+    }
+
+    /**
+     * Replaces the web connection of the client according to the given mode.
+     *
+     * @param webClient the client
+     * @param mode one of {@code off}, {@code record} or {@code replay}
+     * @param archive the archive file; required if the mode is not {@code off}
+     * @throws IllegalArgumentException if the mode is not supported or the file is missing
+     */
+    static void install(final WebClient webClient, final String mode, final File archive) {
+        if (OFF.equals(mode)) {
+            return;
+        }
+        if (!RECORD.equals(mode) && !REPLAY.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported http archive mode '" + mode + "'");
+        }
+        if (archive == null) {
+            throw new IllegalArgumentException("The http archive mode '" + mode + "' requires an archive file");
+        }
+
+        try {
+            if (RECORD.equals(mode)) {
+                new RecordingWebConnection(webClient, archive);
+            }
+            else {
+                webClient.setWebConnection(new ReplayingWebConnection(archive));
+            }
+        }
+        catch (final IOException e) {
+            throw new IllegalArgumentException("Can't open the http archive '" + archive + "'", e);
+        }
+    }
+
+    /**
+     * @param request the request
+     * @return the key identifying the request in the archive
+     */
+    static String keyOf(final WebRequest request) {
+        final StringBuilder key = new StringBuilder()
+                .append(request.getHttpMethod())
+                .append(' ')
+                .append(request.getUrl());
+
+        final String body = request.getRequestBody();
+        if (body != null) {
+            key.append('\n').append(body);
+        }
+        else if (!request.getRequestParameters().isEmpty()) {
+            key.append('\n');
+            for (final NameValuePair parameter : request.getRequestParameters()) {
+                key.append(parameter.getName()).append('=').append(parameter.getValue()).append('&');
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param headerName the name of a response header
+     * @return whether the header is written to the archive
+     */
+    static boolean isArchived(final String headerName) {
+        return !"Content-Encoding".equalsIgnoreCase(headerName)
+                && !"Content-Length".equalsIgnoreCase(headerName)
+                && !"Transfer-Encoding".equalsIgnoreCase(headerName);
+    }
+
+    static void writeString(final DataOutputStream out, final String value) throws IOException {
+        writeBytes(out, (value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    static String readString(final ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(final ByteBuffer in) {
+        final byte[] value = new byte[in.getInt()];
+        in.get(value);
+        return value;
+    }
+
+    static void skipBytes(final ByteBuffer in) {
+        final int length = in.getInt();
+        in.position(in.position() + length);
+    }
+
+    static List<NameValuePair> readHeaders(final ByteBuffer in) {
+        final int count = in.getInt();
+        final List<NameValuePair> headers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            headers.add(new NameValuePair(readString(in), readString(in)));
+        }
+        return headers;
+    }
+}
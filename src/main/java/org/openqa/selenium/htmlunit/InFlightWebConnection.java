@@ -0,0 +1,104 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * Counts the requests of the {@link WebClient} currently in progress; supports
+ * {@link HtmlUnitDriver#waitForIdle(java.time.Duration)}. Waiting threads are
+ * signaled as soon as the last request is done.
+ *
+ * @author agent (agent@local)
+ */
+final class InFlightWebConnection extends WebConnectionWrapper {
+
+    private final Lock lock_ = new ReentrantLock();
+    private final Condition idle_ = lock_.newCondition();
+    private int inFlight_;
+
+    /**
+     * Wraps the connection of the given client and installs itself as the new one.
+     *
+     * @param webClient the client
+     */
+    InFlightWebConnection(final WebClient webClient) {
+        super(webClient);
+    }
+
+    @Override
+    public WebResponse getResponse(final WebRequest request) throws IOException {
+        lock_.lock();
+        try {
+            inFlight_++;
+        }
+        finally {
+            lock_.unlock();
+        }
+
+        try {
+            return super.getResponse(request);
+        }
+        finally {
+            lock_.lock();
+            try {
+                inFlight_--;
+                if (inFlight_ == 0) {
+                    idle_.signalAll();
+                }
+            }
+            finally {
+                lock_.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until no request is in progress.
+     *
+     * @param maxWaitMillis the maximum time to wait
+     * @return {@code true} if no request is in progress
+     */
+    boolean awaitIdle(final long maxWaitMillis) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        lock_.lock();
+        try {
+            while (inFlight_ > 0 && nanos > 0) {
+                nanos = idle_.awaitNanos(nanos);
+            }
+            return inFlight_ == 0;
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inFlight_ == 0;
+        }
+        finally {
+            lock_.unlock();
+        }
+    }
+}
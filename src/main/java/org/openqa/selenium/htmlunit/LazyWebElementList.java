@@ -0,0 +1,137 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.htmlunit.SgmlPage;
+import org.htmlunit.WebWindow;
+import org.htmlunit.html.DomElement;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * The result list of the element finder. The found {@link DomElement}s are wrapped
+ * into {@link HtmlUnitWebElement}s (and registered in the elements map of the driver)
+ * on first access only; asking for the size or reading only the first few entries
+ * of a large result does not create wrappers for the other elements.
+ * Elements of a page that is no longer shown are stale; they are not wrapped, otherwise
+ * the elements map would keep the page until the driver quits.
+ * <p>
+ * The list is a snapshot of the elements found; it does not reflect later changes
+ * of the page. As required by WebDriver, it can be modified; the first
+ * modification wraps all remaining elements and continues with a plain copy.
+ *
+ * @author agent (agent@local)
+ */
+final class LazyWebElementList extends AbstractList<WebElement> implements RandomAccess {
+
+    private final HtmlUnitDriver driver_;
+    private final List<? extends DomElement> elements_;
+    private final WebElement[] webElements_;
+    private List<WebElement> modified_;
+
+    /**
+     * Ctor.
+     *
+     * @param driver the driver used to wrap the elements
+     * @param elements the found elements; not copied, must not be modified afterwards
+     */
+    LazyWebElementList(final HtmlUnitDriver driver, final List<? extends DomElement> elements) {
+        driver_ = driver;
+        elements_ = elements;
+        webElements_ = new WebElement[elements.size()];
+    }
+
+    @Override
+    public WebElement get(final int index) {
+        if (modified_ != null) {
+            return modified_.get(index);
+        }
+
+        WebElement webElement = webElements_[index];
+        if (webElement == null) {
+            final DomElement element = elements_.get(index);
+            if (!isShown(element.getPage())) {
+                throw new StaleElementReferenceException(
+                    "Element appears to be stale. Did you navigate away from the page that contained it?");
+            }
+            webElement = driver_.toWebElement(element);
+            webElements_[index] = webElement;
+        }
+        return webElement;
+    }
+
+    private static boolean isShown(final SgmlPage page) {
+        final WebWindow window = page.getEnclosingWindow();
+        return window != null && window.getEnclosedPage() == page;
+    }
+
+    @Override
+    public int size() {
+        if (modified_ != null) {
+            return modified_.size();
+        }
+        return webElements_.length;
+    }
+
+    @Override
+    public WebElement set(final int index, final WebElement element) {
+        return modifiable().set(index, element);
+    }
+
+    @Override
+    public void add(final int index, final WebElement element) {
+        modifiable().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public WebElement remove(final int index) {
+        final WebElement removed = modifiable().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    private List<WebElement> modifiable() {
+        if (modified_ == null) {
+            final List<WebElement> copy = new ArrayList<>(webElements_.length);
+            for (int i = 0; i < webElements_.length; i++) {
+                copy.add(get(i));
+            }
+            modified_ = copy;
+        }
+        return modified_;
+    }
+
+    /**
+     * Returns the found element at the given position without wrapping it.
+     *
+     * @param index the position
+     * @return the element
+     */
+    DomElement getDomElement(final int index) {
+        if (modified_ != null) {
+            return ((HtmlUnitWebElement) modified_.get(index)).getElement();
+        }
+        return elements_.get(index);
+    }
+}
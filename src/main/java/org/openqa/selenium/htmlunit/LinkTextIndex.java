@@ -0,0 +1,193 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.htmlunit.html.CharacterDataChangeEvent;
+import org.htmlunit.html.CharacterDataChangeListener;
+import org.htmlunit.html.DomChangeEvent;
+import org.htmlunit.html.DomChangeListener;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.HtmlAttributeChangeEvent;
+import org.htmlunit.html.HtmlAttributeChangeListener;
+import org.htmlunit.html.HtmlElement;
+import org.htmlunit.html.HtmlPage;
+
+/**
+ * The normalized text of all anchors of a page, used by the link text locators.
+ * The text of every anchor is computed only once; exact matches are answered by a
+ * map lookup, partial matches by scanning the precomputed texts.
+ * <p>
+ * The index is dropped on the first change of the page (nodes added or removed,
+ * attribute or text changes) and rebuilt on the next lookup. The listeners are
+ * only registered while the index is valid; a page modified all the time does
+ * not pay for more than one notification per lookup. Changes not reported by
+ * HtmlUnit as DOM mutation (e.g. style sheet rules modified by script) are not
+ * detected.
+ *
+ * @author agent (agent@local)
+ */
+@SuppressWarnings("serial")
+final class LinkTextIndex implements DomChangeListener, HtmlAttributeChangeListener, CharacterDataChangeListener {
+
+    /**
+     * The indexes by page; both are weakly referenced. A valid index is strongly
+     * referenced by the listeners of its page, therefore it lives as long as the page.
+     */
+    private static final Map<HtmlPage, WeakReference<LinkTextIndex>> INDEXES = new WeakHashMap<>();
+
+    private final transient HtmlPage page_;
+    private final transient List<HtmlElement> anchors_;
+    private final String[] texts_;
+    private final transient Map<String, List<HtmlElement>> anchorsByText_;
+    private volatile boolean valid_;
+
+    private LinkTextIndex(final HtmlPage page) {
+        page_ = page;
+        valid_ = true;
+
+        // listen before reading the texts; a change while building invalidates the result
+        page.addDomChangeListener(this);
+        page.addHtmlAttributeChangeListener(this);
+        page.addCharacterDataChangeListener(this);
+
+        anchors_ = new ArrayList<>();
+        if (page.getDocumentElement() != null) {
+            anchors_.addAll(page.getDocumentElement().getElementsByTagName("a"));
+        }
+
+        texts_ = new String[anchors_.size()];
+        anchorsByText_ = new HashMap<>();
+        for (int i = 0; i < texts_.length; i++) {
+            final HtmlElement anchor = anchors_.get(i);
+            texts_[i] = anchor.asNormalizedText();
+            anchorsByText_.computeIfAbsent(texts_[i], k -> new ArrayList<>(1)).add(anchor);
+        }
+    }
+
+    /**
+     * Returns the index of the given page, builds a new one if the page was changed
+     * since the last call.
+     *
+     * @param page the page
+     * @return the index
+     */
+    static LinkTextIndex of(final HtmlPage page) {
+        synchronized (INDEXES) {
+            final WeakReference<LinkTextIndex> reference = INDEXES.get(page);
+            final LinkTextIndex index = reference == null ? null : reference.get();
+            if (index != null && index.valid_) {
+                return index;
+            }
+        }
+
+        final LinkTextIndex index = new LinkTextIndex(page);
+        if (index.valid_) {
+            synchronized (INDEXES) {
+                INDEXES.put(page, new WeakReference<>(index));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param text the expected text
+     * @param root the element to search in or {@code null} to search the whole page
+     * @return the anchors having exactly the given text, in document order
+     */
+    List<DomElement> findByText(final String text, final DomElement root) {
+        final List<HtmlElement> anchors = anchorsByText_.getOrDefault(text, Collections.emptyList());
+        final List<DomElement> found = new ArrayList<>(anchors.size());
+        for (final HtmlElement anchor : anchors) {
+            if (isInside(anchor, root)) {
+                found.add(anchor);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param text the expected part of the text
+     * @param root the element to search in or {@code null} to search the whole page
+     * @return the anchors containing the given text, in document order
+     */
+    List<DomElement> findByPartialText(final String text, final DomElement root) {
+        final List<DomElement> found = new ArrayList<>();
+        for (int i = 0; i < texts_.length; i++) {
+            if (texts_[i].contains(text)) {
+                final HtmlElement anchor = anchors_.get(i);
+                if (isInside(anchor, root)) {
+                    found.add(anchor);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isInside(final DomElement anchor, final DomElement root) {
+        return root == null || (anchor != root && root.isAncestorOf(anchor));
+    }
+
+    private void invalidate() {
+        if (!valid_) {
+            return;
+        }
+        valid_ = false;
+
+        page_.removeDomChangeListener(this);
+        page_.removeHtmlAttributeChangeListener(this);
+        page_.removeCharacterDataChangeListener(this);
+    }
+
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        invalidate();
+    }
+
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        invalidate();
+    }
+
+    @Override
+    public void attributeAdded(final HtmlAttributeChangeEvent event) {
+        invalidate();
+    }
+
+    @Override
+    public void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        invalidate();
+    }
+
+    @Override
+    public void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        invalidate();
+    }
+
+    @Override
+    public void characterDataChanged(final CharacterDataChangeEvent event) {
+        invalidate();
+    }
+}
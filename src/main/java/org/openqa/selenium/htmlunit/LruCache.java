@@ -0,0 +1,140 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A small thread safe cache evicting the least recently used entry if
+ * the maximum size is reached. Counts hits and misses; the lookups are
+ * reported to the metrics of the running command as well.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @author agent (agent@local)
+ */
+final class LruCache<K, V> {
+
+    private final String name_;
+    private final Map<K, V> entries_;
+    private volatile int maxSize_;
+    private final AtomicLong hits_ = new AtomicLong();
+    private final AtomicLong misses_ = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param name the name used for the metrics
+     * @param maxSize the maximum number of entries; {@code 0} disables caching
+     */
+    LruCache(final String name, final int maxSize) {
+        name_ = name;
+        entries_ = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                return size() > maxSize_;
+            }
+        };
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the cached value for the key; if there is none, the value is created
+     * using the given function and cached. The function is called without holding
+     * the lock; therefore concurrent misses for the same key might create the value
+     * more than once. {@code null} values and exceptions are not cached.
+     *
+     * @param key the key
+     * @param creator the function to create the value
+     * @return the value
+     */
+    V get(final K key, final Function<K, V> creator) {
+        synchronized (entries_) {
+            final V value = entries_.get(key);
+            if (value != null) {
+                hits_.incrementAndGet();
+                CommandTimer.cacheAccessed(name_, true);
+                return value;
+            }
+        }
+
+        misses_.incrementAndGet();
+        CommandTimer.cacheAccessed(name_, false);
+        final V value = creator.apply(key);
+        if (value != null && maxSize_ > 0) {
+            synchronized (entries_) {
+                entries_.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Sets the maximum number of entries; the least recently used entries
+     * exceeding the new size are evicted.
+     *
+     * @param maxSize the maximum number of entries; {@code 0} disables caching
+     */
+    void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        synchronized (entries_) {
+            maxSize_ = maxSize;
+            final Iterator<K> keys = entries_.keySet().iterator();
+            while (entries_.size() > maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    int getMaxSize() {
+        return maxSize_;
+    }
+
+    int size() {
+        synchronized (entries_) {
+            return entries_.size();
+        }
+    }
+
+    long getHitCount() {
+        return hits_.get();
+    }
+
+    long getMissCount() {
+        return misses_.get();
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    void clear() {
+        synchronized (entries_) {
+            entries_.clear();
+        }
+        hits_.set(0);
+        misses_.set(0);
+    }
+}
@@ -0,0 +1,143 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.htmlunit.Cache;
+import org.htmlunit.Page;
+import org.htmlunit.WebClient;
+import org.htmlunit.WebResponse;
+import org.htmlunit.WebWindow;
+import org.htmlunit.html.DomAttr;
+import org.htmlunit.html.DomCharacterData;
+import org.htmlunit.html.DomElement;
+import org.htmlunit.html.DomNode;
+
+/**
+ * Estimates the memory retained by the pages of a driver and drops what can be
+ * reloaded if a {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#MEMORY_BUDGET budget}
+ * is exceeded.
+ * <p>
+ * The estimate walks the DOM of all windows; the sizes per node are averages of heap
+ * dumps of typical pages (including the lazily created JavaScript objects). Responses
+ * count with the part the web client keeps in memory. The {@link org.htmlunit.History}
+ * is estimated from its number of entries; the pages it caches for back and forward are
+ * soft references left to the garbage collector and are not counted. The responses of
+ * the {@link Cache} are not reachable through the HtmlUnit API; the cache is estimated
+ * from its size.
+ *
+ * @author agent (agent@local)
+ */
+final class MemoryAccounting {
+
+    private static final long PAGE_BYTES = 4_096;
+    private static final long ELEMENT_BYTES = 320;
+    private static final long ATTRIBUTE_BYTES = 96;
+    private static final long NODE_BYTES = 96;
+    private static final long WEB_ELEMENT_BYTES = 160;
+    private static final long HISTORY_ENTRY_BYTES = 512;
+    private static final long CACHE_ENTRY_BYTES = 16_384;
+
+    private MemoryAccounting() {
+    }
+
+    /**
+     * Estimates the memory retained by the pages of the web client.
+     *
+     * @param webClient the web client of the driver
+     * @param elementsMap the web element wrappers of the driver
+     * @param budget the budget reported with the usage
+     * @return the usage
+     */
+    static SessionMemoryUsage measure(final WebClient webClient, final HtmlUnitDriver.ElementsMap elementsMap,
+            final long budget) {
+        final int maxInMemory = webClient.getOptions().getMaxInMemory();
+        final Set<Page> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        long dom = 0;
+        long history = 0;
+        for (final WebWindow window : new ArrayList<>(webClient.getWebWindows())) {
+            dom += estimate(window.getEnclosedPage(), maxInMemory, counted);
+            history += window.getHistory().getLength() * HISTORY_ENTRY_BYTES;
+        }
+
+        return new SessionMemoryUsage(dom, elementsMap.size() * WEB_ELEMENT_BYTES, history,
+                webClient.getCache().getSize() * CACHE_ENTRY_BYTES, budget);
+    }
+
+    /**
+     * Drops all cached responses. The pages cached by the history are left to the
+     * garbage collector; they can't be dropped using the HtmlUnit API.
+     *
+     * @param webClient the web client of the driver
+     */
+    static void trim(final WebClient webClient) {
+        webClient.getCache().clear();
+    }
+
+    private static long estimate(final Page page, final int maxInMemory, final Set<Page> counted) {
+        if (page == null || !counted.add(page)) {
+            return 0;
+        }
+
+        long bytes = PAGE_BYTES + estimate(page.getWebResponse(), maxInMemory);
+        if (page instanceof DomNode) {
+            try {
+                for (final DomNode node : ((DomNode) page).getDescendants()) {
+                    bytes += estimate(node);
+                }
+            }
+            catch (final ConcurrentModificationException e) {
+                // a background script changed the dom; the estimate stays a bit low
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimate(final DomNode node) {
+        if (node instanceof DomElement) {
+            long bytes = ELEMENT_BYTES;
+            for (final DomAttr attribute : ((DomElement) node).getAttributesMap().values()) {
+                bytes += ATTRIBUTE_BYTES + chars(attribute.getName()) + chars(attribute.getValue());
+            }
+            return bytes;
+        }
+        if (node instanceof DomCharacterData) {
+            return NODE_BYTES + chars(((DomCharacterData) node).getData());
+        }
+        return NODE_BYTES;
+    }
+
+    private static long estimate(final WebResponse response, final int maxInMemory) {
+        if (response == null) {
+            return 0;
+        }
+        // larger responses are kept in temporary files
+        final long length = response.getContentLength();
+        return maxInMemory > 0 && length > maxInMemory ? 0 : length;
+    }
+
+    private static long chars(final String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+}
@@ -0,0 +1,101 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.NameValuePair;
+import org.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * Writes every request/response pair passing the connection to an {@link HttpArchive}.
+ * The archive is created (or truncated) when the connection is created and
+ * completed when the {@link WebClient} is closed.
+ *
+ * @author agent (agent@local)
+ */
+final class RecordingWebConnection extends WebConnectionWrapper {
+
+    private final DataOutputStream out_;
+
+    /**
+     * Wraps the connection of the given client and installs itself as the new one.
+     *
+     * @param webClient the client
+     * @param archive the archive file to write
+     * @throws IOException if the archive can't be created
+     */
+    RecordingWebConnection(final WebClient webClient, final File archive) throws IOException {
+        super(webClient);
+        out_ = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archive)));
+        out_.writeInt(HttpArchive.MAGIC);
+        out_.writeInt(HttpArchive.VERSION);
+    }
+
+    @Override
+    public WebResponse getResponse(final WebRequest request) throws IOException {
+        final WebResponse response = super.getResponse(request);
+
+        final byte[] body;
+        try (InputStream in = response.getContentAsStream()) {
+            body = in == null ? new byte[0] : in.readAllBytes();
+        }
+        final List<NameValuePair> headers = new ArrayList<>();
+        for (final NameValuePair header : response.getResponseHeaders()) {
+            if (HttpArchive.isArchived(header.getName())) {
+                headers.add(header);
+            }
+        }
+
+        synchronized (out_) {
+            HttpArchive.writeString(out_, HttpArchive.keyOf(request));
+            out_.writeInt(response.getStatusCode());
+            HttpArchive.writeString(out_, response.getStatusMessage());
+            out_.writeInt(headers.size());
+            for (final NameValuePair header : headers) {
+                HttpArchive.writeString(out_, header.getName());
+                HttpArchive.writeString(out_, header.getValue());
+            }
+            HttpArchive.writeBytes(out_, body);
+            out_.flush();
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            synchronized (out_) {
+                out_.close();
+            }
+        }
+    }
+}
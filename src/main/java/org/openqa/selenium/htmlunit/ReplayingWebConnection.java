@@ -0,0 +1,124 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.htmlunit.WebConnection;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.WebResponseData;
+import org.htmlunit.util.NameValuePair;
+
+/**
+ * Serves all responses from an {@link HttpArchive}; no request leaves the process.
+ * The archive is memory mapped, on creation only the keys are read to build the
+ * index; the responses are decoded when requested.
+ * <p>
+ * A request recorded more than once is answered with the recorded responses in
+ * order, the last one is repeated. Requests not recorded are answered with
+ * status 404.
+ *
+ * @author agent (agent@local)
+ */
+final class ReplayingWebConnection implements WebConnection {
+
+    private final MappedByteBuffer archive_;
+    /** The positions of the entries (directly after the key) by key. */
+    private final Map<String, List<Integer>> entries_ = new HashMap<>();
+    /** The number of responses served by key. */
+    private final Map<String, Integer> served_ = new HashMap<>();
+
+    /**
+     * Ctor.
+     *
+     * @param archive the archive file
+     * @throws IOException if the file can't be read or is not an archive
+     */
+    ReplayingWebConnection(final File archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The http archive '" + archive + "' is too large");
+            }
+            archive_ = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final ByteBuffer in = archive_.duplicate();
+        try {
+            if (in.getInt() != HttpArchive.MAGIC || in.getInt() != HttpArchive.VERSION) {
+                throw new IOException("'" + archive + "' is not a http archive");
+            }
+            while (in.hasRemaining()) {
+                final String key = HttpArchive.readString(in);
+                entries_.computeIfAbsent(key, k -> new ArrayList<>(1)).add(in.position());
+
+                in.getInt();
+                HttpArchive.skipBytes(in);
+                final int headerCount = in.getInt();
+                for (int i = 0; i < 2 * headerCount; i++) {
+                    HttpArchive.skipBytes(in);
+                }
+                HttpArchive.skipBytes(in);
+            }
+        }
+        catch (final BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("The http archive '" + archive + "' is truncated", e);
+        }
+    }
+
+    @Override
+    public WebResponse getResponse(final WebRequest request) throws IOException {
+        final String key = HttpArchive.keyOf(request);
+        final List<Integer> positions = entries_.get(key);
+        if (positions == null) {
+            final WebResponseData notFound = new WebResponseData(new byte[0], 404, "Not recorded",
+                    Collections.emptyList());
+            return new WebResponse(notFound, request, 0);
+        }
+
+        final int served;
+        synchronized (served_) {
+            served = served_.merge(key, 1, Integer::sum) - 1;
+        }
+
+        final ByteBuffer in = archive_.duplicate();
+        in.position(positions.get(Math.min(served, positions.size() - 1)));
+        final int statusCode = in.getInt();
+        final String statusMessage = HttpArchive.readString(in);
+        final List<NameValuePair> headers = HttpArchive.readHeaders(in);
+        final byte[] body = HttpArchive.readBytes(in);
+
+        return new WebResponse(new WebResponseData(body, statusCode, statusMessage, headers), request, 0);
+    }
+
+    @Override
+    public void close() {
+        // the mapping is released by the garbage collector
+    }
+}
@@ -0,0 +1,123 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The memory retained by the pages of one {@link HtmlUnitDriver} at one point in time
+ * (see {@link HtmlUnitDriver#getMemoryUsage()}).
+ * <p>
+ * The values are estimates based on the number of nodes, attributes and characters
+ * of the pages and the size of the responses kept in memory; they are meant to
+ * compare sessions and to spot runaway pages, not to replace a heap dump.
+ *
+ * @author agent (agent@local)
+ */
+public final class SessionMemoryUsage {
+
+    private final long domBytes_;
+    private final long elementsMapBytes_;
+    private final long historyBytes_;
+    private final long cacheBytes_;
+    private final long budget_;
+
+    SessionMemoryUsage(final long domBytes, final long elementsMapBytes, final long historyBytes,
+            final long cacheBytes, final long budget) {
+        domBytes_ = domBytes;
+        elementsMapBytes_ = elementsMapBytes;
+        historyBytes_ = historyBytes;
+        cacheBytes_ = cacheBytes;
+        budget_ = budget;
+    }
+
+    /**
+     * @return the estimated bytes of the pages shown in the windows and frames
+     */
+    public long getDomBytes() {
+        return domBytes_;
+    }
+
+    /**
+     * @return the estimated bytes of the web element wrappers handed out by the driver
+     */
+    public long getElementsMapBytes() {
+        return elementsMapBytes_;
+    }
+
+    /**
+     * @return the estimated bytes of the history entries; the pages cached for back and forward
+     *         are soft references left to the garbage collector and are not included
+     */
+    public long getHistoryBytes() {
+        return historyBytes_;
+    }
+
+    /**
+     * @return the estimated bytes of the responses in the cache of the web client
+     */
+    public long getCacheBytes() {
+        return cacheBytes_;
+    }
+
+    /**
+     * @return the sum of all estimates
+     */
+    public long getTotalBytes() {
+        return domBytes_ + elementsMapBytes_ + historyBytes_ + cacheBytes_;
+    }
+
+    /**
+     * @return the {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#MEMORY_BUDGET memory budget}
+     *         of the driver; {@code 0} if not enforced
+     */
+    public long getBudget() {
+        return budget_;
+    }
+
+    /**
+     * @return whether a budget is enforced and the total exceeds it
+     */
+    public boolean isOverBudget() {
+        return budget_ > 0 && getTotalBytes() > budget_;
+    }
+
+    /**
+     * Exports all values as flat map to be fed into a monitoring system.
+     *
+     * @return the values by key
+     */
+    public Map<String, Number> export() {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        values.put("memory.dom", domBytes_);
+        values.put("memory.elementsMap", elementsMapBytes_);
+        values.put("memory.history", historyBytes_);
+        values.put("memory.cache", cacheBytes_);
+        values.put("memory.total", getTotalBytes());
+        values.put("memory.budget", budget_);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "dom=" + domBytes_ + " elementsMap=" + elementsMapBytes_
+                + " history=" + historyBytes_
+                + " cache=" + cacheBytes_ + " total=" + getTotalBytes() + " budget=" + budget_;
+    }
+}
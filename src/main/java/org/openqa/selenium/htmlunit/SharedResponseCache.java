@@ -0,0 +1,454 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.htmlunit.Cache;
+import org.htmlunit.HttpHeader;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.WebResponseData;
+import org.htmlunit.util.HeaderUtils;
+import org.htmlunit.util.NameValuePair;
+import org.htmlunit.util.UrlUtils;
+
+/**
+ * JVM wide cache of http responses shared by all drivers using the
+ * {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#SHARED_RESPONSE_CACHE shared response cache}.
+ * Every {@link WebClient} still has its own {@link Cache} holding the parsed scripts and
+ * style sheets; only if this cache has no entry the response is looked up here before
+ * the request is sent.
+ * <p>
+ * Only static assets (scripts, style sheets, images and fonts) received with status 200
+ * for GET requests a shared cache is allowed to store are kept; documents and data are
+ * never shared because they are usually specific to the user. Responses marked as
+ * {@code private}, {@code no-store} or {@code no-cache}, setting cookies, varying on other
+ * headers than {@code Accept-Encoding} or answering requests with cookies or credentials
+ * are never shared either. In mode {@code on} a response is kept as long as it is fresh
+ * according to its {@code s-maxage}, {@code max-age}, {@code Expires} or {@code Last-Modified}
+ * header. In mode {@code immutable} it is kept until evicted regardless of these headers.
+ * <p>
+ * The cache is bounded by the size of the cached bodies and headers; the least recently
+ * used entries are evicted. The maximum size defaults to {@value #DEFAULT_MAX_SIZE_IN_BYTES}
+ * bytes and can be changed using the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or
+ * {@link #setMaxSizeInBytes(long)}. If the system property <b>{@value #OFF_HEAP_PROPERTY}</b>
+ * is set to {@code true} (or {@link #setOffHeap(boolean)} is called) the bodies are stored
+ * in direct buffers outside of the java heap.
+ *
+ * @author agent (agent@local)
+ */
+public final class SharedResponseCache {
+
+    /** Mode not using the shared cache. */
+    public static final String OFF = "off";
+    /** Mode sharing static assets as long as they are fresh according to their headers. */
+    public static final String ON = "on";
+    /** Mode sharing static assets until they are evicted. */
+    public static final String IMMUTABLE = "immutable";
+
+    /** The default maximum size of the cache in bytes. */
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 64L * 1024 * 1024;
+
+    /** The system property to configure the maximum size of the cache in bytes. */
+    public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.responseCacheMaxBytes";
+
+    /** The system property to store the bodies outside of the java heap. */
+    public static final String OFF_HEAP_PROPERTY = "webdriver.htmlunit.responseCacheOffHeap";
+
+    private static final Store STORE = new Store(
+            Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_IN_BYTES), Boolean.getBoolean(OFF_HEAP_PROPERTY));
+
+    private SharedResponseCache() {
+    }
+
+    /**
+     * Replaces the cache of the client according to the given mode.
+     *
+     * @param webClient the client
+     * @param mode one of {@code off}, {@code on} or {@code immutable}
+     * @throws IllegalArgumentException if the mode is not supported
+     */
+    static void install(final WebClient webClient, final String mode) {
+        if (OFF.equals(mode)) {
+            return;
+        }
+        if (!ON.equals(mode) && !IMMUTABLE.equals(mode)) {
+            throw new IllegalArgumentException("Unsupported shared response cache mode '" + mode + "'");
+        }
+
+        final Cache cache = new DriverCache(webClient, IMMUTABLE.equals(mode));
+        cache.setMaxSize(webClient.getCache().getMaxSize());
+        webClient.setCache(cache);
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return STORE.hits_.get();
+    }
+
+    /**
+     * @return the number of lookups not served from the cache
+     */
+    public static long getMissCount() {
+        return STORE.misses_.get();
+    }
+
+    /**
+     * @return the ratio of lookups served from the cache; {@code 0} if there was no lookup so far
+     */
+    public static double getHitRatio() {
+        final long hits = getHitCount();
+        final long lookups = hits + getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the number of body bytes served from the cache instead of the network
+     */
+    public static long getBytesServed() {
+        return STORE.bytesServed_.get();
+    }
+
+    /**
+     * @return the number of cached responses
+     */
+    public static int getSize() {
+        synchronized (STORE) {
+            return STORE.entries_.size();
+        }
+    }
+
+    /**
+     * @return the size of all cached responses in bytes
+     */
+    public static long getSizeInBytes() {
+        synchronized (STORE) {
+            return STORE.sizeInBytes_;
+        }
+    }
+
+    /**
+     * @return the maximum size of the cache in bytes
+     */
+    public static long getMaxSizeInBytes() {
+        return STORE.maxSizeInBytes_;
+    }
+
+    /**
+     * Sets the maximum size of the cache; the least recently used responses
+     * exceeding the new size are evicted.
+     *
+     * @param maxSizeInBytes the maximum size in bytes; {@code 0} disables the cache
+     */
+    public static void setMaxSizeInBytes(final long maxSizeInBytes) {
+        if (maxSizeInBytes < 0) {
+            throw new IllegalArgumentException("maxSizeInBytes must not be negative");
+        }
+        synchronized (STORE) {
+            STORE.maxSizeInBytes_ = maxSizeInBytes;
+            STORE.evict();
+        }
+    }
+
+    /**
+     * @return whether the bodies are stored outside of the java heap
+     */
+    public static boolean isOffHeap() {
+        return STORE.offHeap_;
+    }
+
+    /**
+     * Sets whether the bodies of responses cached from now on are stored
+     * outside of the java heap.
+     *
+     * @param offHeap whether to use direct buffers for the bodies
+     */
+    public static void setOffHeap(final boolean offHeap) {
+        STORE.offHeap_ = offHeap;
+    }
+
+    /**
+     * Removes all cached responses and resets the counters.
+     */
+    public static void clear() {
+        synchronized (STORE) {
+            STORE.entries_.clear();
+            STORE.sizeInBytes_ = 0;
+        }
+        STORE.hits_.set(0);
+        STORE.misses_.set(0);
+        STORE.bytesServed_.set(0);
+    }
+
+    private static final class Store {
+        private final Map<String, Entry> entries_ = new LinkedHashMap<>(16, 0.75f, true);
+        private long sizeInBytes_;
+        private volatile long maxSizeInBytes_;
+        private volatile boolean offHeap_;
+        private final AtomicLong hits_ = new AtomicLong();
+        private final AtomicLong misses_ = new AtomicLong();
+        private final AtomicLong bytesServed_ = new AtomicLong();
+
+        Store(final long maxSizeInBytes, final boolean offHeap) {
+            maxSizeInBytes_ = maxSizeInBytes;
+            offHeap_ = offHeap;
+        }
+
+        Entry get(final String key, final long now) {
+            synchronized (this) {
+                final Entry entry = entries_.get(key);
+                if (entry != null) {
+                    if (entry.expiresAt_ > now) {
+                        hits_.incrementAndGet();
+                        bytesServed_.addAndGet(entry.body_.remaining());
+                        CommandTimer.cacheAccessed("sharedResponse", true);
+                        return entry;
+                    }
+                    remove(key);
+                }
+            }
+            misses_.incrementAndGet();
+            CommandTimer.cacheAccessed("sharedResponse", false);
+            return null;
+        }
+
+        boolean contains(final String key, final long now) {
+            synchronized (this) {
+                final Entry entry = entries_.get(key);
+                return entry != null && entry.expiresAt_ > now;
+            }
+        }
+
+        void put(final String key, final Entry entry) {
+            synchronized (this) {
+                if (entry.size_ > maxSizeInBytes_) {
+                    return;
+                }
+                remove(key);
+                entries_.put(key, entry);
+                sizeInBytes_ += entry.size_;
+                evict();
+            }
+        }
+
+        private void remove(final String key) {
+            final Entry removed = entries_.remove(key);
+            if (removed != null) {
+                sizeInBytes_ -= removed.size_;
+            }
+        }
+
+        private void evict() {
+            final Iterator<Entry> values = entries_.values().iterator();
+            while (sizeInBytes_ > maxSizeInBytes_ && values.hasNext()) {
+                sizeInBytes_ -= values.next().size_;
+                values.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final int statusCode_;
+        private final String statusMessage_;
+        private final List<NameValuePair> headers_;
+        /** The decoded body; read only, might be a direct buffer. */
+        private final ByteBuffer body_;
+        private final long expiresAt_;
+        private final long size_;
+
+        Entry(final WebResponse response, final byte[] body, final boolean offHeap, final long expiresAt) {
+            statusCode_ = response.getStatusCode();
+            statusMessage_ = response.getStatusMessage();
+            expiresAt_ = expiresAt;
+
+            // the body is stored decoded, the headers describing the transfer encoding are dropped
+            headers_ = new ArrayList<>();
+            long size = body.length;
+            for (final NameValuePair header : response.getResponseHeaders()) {
+                if (HttpArchive.isArchived(header.getName())) {
+                    headers_.add(header);
+                    size += 2L * (header.getName().length() + header.getValue().length());
+                }
+            }
+            size_ = size;
+
+            if (offHeap) {
+                final ByteBuffer direct = ByteBuffer.allocateDirect(body.length);
+                direct.put(body).flip();
+                body_ = direct.asReadOnlyBuffer();
+            }
+            else {
+                body_ = ByteBuffer.wrap(body).asReadOnlyBuffer();
+            }
+        }
+
+        WebResponse toResponse(final WebRequest request) {
+            final ByteBuffer in = body_.duplicate();
+            final byte[] body = new byte[in.remaining()];
+            in.get(body);
+            return new WebResponse(new WebResponseData(body, statusCode_, statusMessage_, headers_), request, 0);
+        }
+    }
+
+    /**
+     * The cache of a single {@link WebClient}; falls back to the shared store
+     * if the response is not cached locally.
+     */
+    @SuppressWarnings("serial")
+    private static final class DriverCache extends Cache {
+        private final WebClient webClient_;
+        private final boolean immutable_;
+
+        DriverCache(final WebClient webClient, final boolean immutable) {
+            webClient_ = webClient;
+            immutable_ = immutable;
+        }
+
+        @Override
+        public WebResponse getCachedResponse(final WebRequest request) {
+            final WebResponse cached = super.getCachedResponse(request);
+            if (cached != null) {
+                return cached;
+            }
+
+            final String key = keyOf(request);
+            if (key == null) {
+                return null;
+            }
+            final Entry entry = STORE.get(key, getCurrentTimestamp());
+            return entry == null ? null : entry.toResponse(request);
+        }
+
+        @Override
+        public boolean cacheIfPossible(final WebRequest request, final WebResponse response, final Object toCache) {
+            final boolean cached = super.cacheIfPossible(request, response, toCache);
+
+            final String key = keyOf(request);
+            if (key != null && STORE.maxSizeInBytes_ > 0) {
+                final long now = getCurrentTimestamp();
+                final long expiresAt = expiresAt(request, response, now);
+                // don't copy bodies the store would reject anyway
+                if (expiresAt > now && response.getContentLength() <= STORE.maxSizeInBytes_
+                        && !STORE.contains(key, now)) {
+                    try (InputStream in = response.getContentAsStream()) {
+                        final byte[] body = in == null ? new byte[0] : in.readAllBytes();
+                        STORE.put(key, new Entry(response, body, STORE.offHeap_, expiresAt));
+                    }
+                    catch (final IOException e) {
+                        // not shared then
+                    }
+                }
+            }
+            return cached;
+        }
+
+        private static String keyOf(final WebRequest request) {
+            final URL url = request.getUrl();
+            if (HttpMethod.GET != request.getHttpMethod() || url == null) {
+                return null;
+            }
+            final String protocol = url.getProtocol();
+            if (!"http".equals(protocol) && !"https".equals(protocol)) {
+                return null;
+            }
+            return UrlUtils.normalize(url);
+        }
+
+        /**
+         * @return the time the response is stale; not later than {@code now} if the
+         *         response must not be shared
+         */
+        private long expiresAt(final WebRequest request, final WebResponse response, final long now) {
+            if (response.getStatusCode() != 200
+                    || !isStaticAsset(response)
+                    || request.isAdditionalHeader("Authorization")
+                    || request.isAdditionalHeader(HttpHeader.COOKIE)
+                    || request.getCredentials() != null
+                    || request.getUrlCredentials() != null
+                    || !webClient_.getCookies(request.getUrl()).isEmpty()
+                    || HeaderUtils.containsPrivate(response)
+                    || HeaderUtils.containsNoStore(response)
+                    || HeaderUtils.containsNoCache(response)
+                    || response.getResponseHeaderValue("Set-Cookie") != null
+                    || !isVaryingOnEncodingOnly(response)) {
+                return now;
+            }
+
+            if (immutable_) {
+                return Long.MAX_VALUE;
+            }
+            if (HeaderUtils.containsSMaxage(response)) {
+                return now + HeaderUtils.sMaxage(response) * 1000;
+            }
+            if (HeaderUtils.containsMaxAge(response)) {
+                return now + HeaderUtils.maxAge(response) * 1000;
+            }
+            final Date expires = parseDateHeader(response, HttpHeader.EXPIRES);
+            if (expires != null) {
+                return expires.getTime();
+            }
+            final Date lastModified = parseDateHeader(response, HttpHeader.LAST_MODIFIED);
+            if (lastModified != null) {
+                // the usual heuristic: fresh for a tenth of the age
+                return now + (now - lastModified.getTime()) / 10;
+            }
+            return now;
+        }
+
+        private static boolean isVaryingOnEncodingOnly(final WebResponse response) {
+            final String vary = response.getResponseHeaderValue("Vary");
+            if (vary == null) {
+                return true;
+            }
+            for (final String header : vary.split(",")) {
+                final String name = header.trim();
+                if (!name.isEmpty() && !"Accept-Encoding".equalsIgnoreCase(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isStaticAsset(final WebResponse response) {
+            final String contentType = response.getContentType().toLowerCase(Locale.ROOT);
+            return contentType.endsWith("javascript")
+                    || contentType.endsWith("ecmascript")
+                    || "text/css".equals(contentType)
+                    || "application/wasm".equals(contentType)
+                    || contentType.startsWith("image/")
+                    || contentType.startsWith("font/")
+                    || contentType.startsWith("application/font-");
+        }
+    }
+}
@@ -0,0 +1,177 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.WebClient;
+import org.htmlunit.corejs.javascript.Script;
+import org.htmlunit.corejs.javascript.Scriptable;
+import org.htmlunit.html.HtmlPage;
+import org.htmlunit.javascript.JavaScriptEngine;
+
+/**
+ * JVM wide cache of the scripts compiled for the pages of all drivers using the
+ * {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#SHARED_SCRIPT_CACHE shared script cache}.
+ * Large third party scripts (frameworks, analytics) are compiled only once per
+ * {@link BrowserVersion} instead of once per page load and driver. Like the scripts
+ * of the {@link CompiledScriptCache} the compiled scripts are not bound to a scope.
+ * <p>
+ * The scripts are identified by the SHA-256 hash of the source together with the
+ * source name and the start line (both are part of the compiled script and show up
+ * in error messages). The least recently used entries are evicted.
+ * The maximum size defaults to {@value #DEFAULT_MAX_SIZE} and can be changed using
+ * the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or {@link #setMaxSize(int)}.
+ *
+ * @author agent (agent@local)
+ */
+public final class SharedScriptCache {
+
+    /** The default maximum number of cached scripts. */
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    /** The system property to configure the maximum number of cached scripts. */
+    public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.sharedScriptCacheSize";
+
+    private static final LruCache<Key, Script> CACHE =
+            new LruCache<>("sharedScript", Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private SharedScriptCache() {
+    }
+
+    /**
+     * Replaces the JavaScript engine of the client by one using this cache.
+     * Clients using a custom engine are not changed.
+     *
+     * @param webClient the client
+     */
+    static void install(final WebClient webClient) {
+        if (webClient.getJavaScriptEngine() != null
+                && webClient.getJavaScriptEngine().getClass() == JavaScriptEngine.class) {
+            webClient.setJavaScriptEngine(new CachingJavaScriptEngine(webClient));
+        }
+    }
+
+    /**
+     * @return the number of compilations served from the cache
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return the number of scripts that had to be compiled
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return the number of cached scripts
+     */
+    public static int getSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * @return the maximum number of cached scripts
+     */
+    public static int getMaxSize() {
+        return CACHE.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of cached scripts.
+     *
+     * @param maxSize the maximum number of cached scripts; {@code 0} disables the cache
+     */
+    public static void setMaxSize(final int maxSize) {
+        CACHE.setMaxSize(maxSize);
+    }
+
+    /**
+     * Removes all cached scripts and resets the counters.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static byte[] hash(final String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (final NoSuchAlgorithmException e) {
+            // every java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The engine of a single {@link WebClient}; looks up the compiled scripts in the cache.
+     */
+    private static final class CachingJavaScriptEngine extends JavaScriptEngine {
+
+        CachingJavaScriptEngine(final WebClient webClient) {
+            super(webClient);
+        }
+
+        @Override
+        public Script compile(final HtmlPage owningPage, final Scriptable scope, final String sourceCode,
+                final String sourceName, final int startLine) {
+            final Key key = new Key(hash(sourceCode), sourceName, startLine,
+                    owningPage.getWebClient().getBrowserVersion());
+            return CACHE.get(key, k -> super.compile(owningPage, scope, sourceCode, sourceName, startLine));
+        }
+    }
+
+    private static final class Key {
+        private final byte[] hash_;
+        private final String sourceName_;
+        private final int startLine_;
+        private final BrowserVersion browserVersion_;
+
+        Key(final byte[] hash, final String sourceName, final int startLine, final BrowserVersion browserVersion) {
+            hash_ = hash;
+            sourceName_ = sourceName;
+            startLine_ = startLine;
+            browserVersion_ = browserVersion;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return Arrays.equals(hash_, other.hash_)
+                    && Objects.equals(sourceName_, other.sourceName_)
+                    && startLine_ == other.startLine_
+                    && browserVersion_.equals(other.browserVersion_);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(hash_), sourceName_, startLine_, browserVersion_);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.htmlunit.Page;
+import org.htmlunit.RefreshHandler;
+import org.htmlunit.WebClient;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebWindow;
+import org.htmlunit.WebWindowEvent;
+import org.htmlunit.WebWindowImpl;
+import org.htmlunit.WebWindowListener;
+import org.htmlunit.javascript.background.JavaScriptJob;
+import org.htmlunit.javascript.background.JavaScriptJobManager;
+import org.htmlunit.javascript.background.JavaScriptJobManager.JavaScriptJobFilter;
+
+/**
+ * The virtual clock of the driver (see {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#VIRTUAL_CLOCK}).
+ * Instead of waiting for the timers of the pages (setTimeout, setInterval) the
+ * time jumps forward to the next timer; the timers are still processed one after
+ * another in the order of their target time by the JavaScript executor of the
+ * {@link WebClient}.
+ * <p>
+ * HtmlUnit schedules the jobs using the system clock; advancing the time moves
+ * the target time of all pending jobs of all windows back by the same amount.
+ * This keeps the order of the jobs and the delays of timers created later on.
+ * The jobs are moved by a {@link VirtualClockJobManager} installed on every window.
+ * The clock of the scripts ({@code Date.now()}, {@code performance.now()}) is
+ * not affected.
+ * <p>
+ * Refreshes requested by the pages are done at once; the requested delay is
+ * skipped on the clock as well.
+ *
+ * @author agent (agent@local)
+ */
+final class VirtualClock implements RefreshHandler, WebWindowListener {
+
+    /** Returned by {@link #runNextJob(long)} if no job was run. */
+    static final long NO_JOB = -1;
+
+    /** The interval used to check for alerts while waiting for a job to finish. */
+    private static final long JOB_POLL_INTERVAL = 50;
+
+    private final HtmlUnitDriver driver_;
+
+    /**
+     * Ctor.
+     *
+     * @param driver the driver this clock belongs to
+     */
+    VirtualClock(final HtmlUnitDriver driver) {
+        driver_ = driver;
+
+        final WebClient webClient = driver.getWebClient();
+        for (final WebWindow window : webClient.getWebWindows()) {
+            install(window);
+        }
+        webClient.addWebWindowListener(this);
+    }
+
+    /**
+     * Installs the job manager of the clock on the given window.
+     */
+    private static void install(final WebWindow window) {
+        if (window instanceof WebWindowImpl) {
+            final JavaScriptJobManager manager = window.getJobManager();
+            if (manager != null && !(manager instanceof VirtualClockJobManager)) {
+                ((WebWindowImpl) window).setJobManager(new VirtualClockJobManager(manager));
+            }
+        }
+    }
+
+    @Override
+    public void webWindowOpened(final WebWindowEvent event) {
+        install(event.getWebWindow());
+    }
+
+    @Override
+    public void webWindowContentChanged(final WebWindowEvent event) {
+        // nothing to do
+    }
+
+    @Override
+    public void webWindowClosed(final WebWindowEvent event) {
+        // nothing to do
+    }
+
+    /**
+     * Advances the time by the given amount; all timers becoming due are run in order.
+     *
+     * @param millis the time to advance
+     */
+    void advance(final long millis) {
+        long remaining = millis;
+        while (remaining > 0) {
+            final long advanced = runNextJob(remaining);
+            if (advanced == NO_JOB) {
+                skip(remaining);
+                return;
+            }
+            remaining -= advanced;
+        }
+    }
+
+    /**
+     * Advances the time to the earliest pending job of all windows and waits until
+     * this job was run by the JavaScript executor. Nothing happens if there is no
+     * job due within the given time.
+     *
+     * @param maxMillis the maximum time to advance
+     * @return the time advanced or {@link #NO_JOB} if no job was run
+     */
+    long runNextJob(final long maxMillis) {
+        final long now = System.currentTimeMillis();
+
+        JavaScriptJobManager manager = null;
+        JavaScriptJob job = null;
+        for (final WebWindow window : driver_.getWebClient().getWebWindows()) {
+            final JavaScriptJobManager windowManager = window.getJobManager();
+            final JavaScriptJob windowJob = windowManager == null ? null : windowManager.getEarliestJob(null);
+            if (windowJob != null && (job == null || windowJob.compareTo(job) < 0)) {
+                manager = windowManager;
+                job = windowJob;
+            }
+        }
+        if (job == null) {
+            return NO_JOB;
+        }
+
+        final long delay = Math.max(0, job.getTargetExecutionTime() - now);
+        if (delay > maxMillis) {
+            return NO_JOB;
+        }
+        skip(delay);
+
+        final long dueTime = job.getTargetExecutionTime();
+        final JavaScriptJob dueJob = job;
+        final JavaScriptJobFilter same = j -> j == dueJob;
+        while (isPending(manager, dueJob, dueTime)) {
+            if (driver_.getAlert().isLocked()) {
+                // the job waits for the alert to be handled
+                return NO_JOB;
+            }
+            manager.waitForJobsStartingBefore(1, JOB_POLL_INTERVAL, same);
+        }
+        return delay;
+    }
+
+    /**
+     * A periodic job is scheduled again with a later target time before it is run;
+     * while running, it is counted twice by the manager.
+     */
+    private static boolean isPending(final JavaScriptJobManager manager, final JavaScriptJob job,
+            final long dueTime) {
+        final JavaScriptJobFilter same = j -> j == job;
+        final boolean queued = manager.getEarliestJob(same) != null;
+        final boolean running = manager.getJobCount(same) > (queued ? 1 : 0);
+        return running || (queued && job.getTargetExecutionTime() <= dueTime);
+    }
+
+    /**
+     * Advances the time without waiting for the jobs becoming due.
+     *
+     * @param millis the time to advance
+     */
+    void skip(final long millis) {
+        if (millis <= 0) {
+            return;
+        }
+
+        for (final WebWindow window : driver_.getWebClient().getWebWindows()) {
+            final JavaScriptJobManager manager = window.getJobManager();
+            if (manager instanceof VirtualClockJobManager) {
+                ((VirtualClockJobManager) manager).shift(millis);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the page at once; the requested wait is skipped on the clock.
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleRefresh(final Page page, final URL url, final int seconds) throws IOException {
+        skip(seconds * 1000L);
+
+        final WebWindow window = page.getEnclosingWindow();
+        if (window == null) {
+            return;
+        }
+        window.getWebClient().getPage(window, new WebRequest(url));
+    }
+}
@@ -0,0 +1,185 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.htmlunit.Page;
+import org.htmlunit.javascript.background.JavaScriptJob;
+import org.htmlunit.javascript.background.JavaScriptJobManager;
+
+/**
+ * The job manager of a window driven by the {@link VirtualClock}. All calls are
+ * passed to the job manager created by HtmlUnit; in addition the jobs added are
+ * remembered to be able to move them on the clock.
+ * <p>
+ * The JavaScript executor of the {@link org.htmlunit.WebClient} still polls the
+ * original manager; it picks up the moved jobs with its next poll.
+ *
+ * @author agent (agent@local)
+ */
+@SuppressWarnings("serial")
+final class VirtualClockJobManager implements JavaScriptJobManager {
+
+    private final JavaScriptJobManager delegate_;
+    private transient Set<JavaScriptJob> jobs_ = newJobSet();
+
+    /**
+     * Ctor.
+     *
+     * @param delegate the job manager created by HtmlUnit
+     */
+    VirtualClockJobManager(final JavaScriptJobManager delegate) {
+        delegate_ = delegate;
+    }
+
+    /**
+     * Moves the target time of all jobs back by the given amount. All jobs are moved
+     * by the same amount while the manager is locked; the order of the queue stays
+     * valid. Threads waiting for the jobs are woken up.
+     *
+     * @param millis the time to move
+     */
+    void shift(final long millis) {
+        synchronized (delegate_) {
+            final ArrayList<JavaScriptJob> jobs;
+            synchronized (jobs_) {
+                jobs = new ArrayList<>(jobs_);
+            }
+            for (final JavaScriptJob job : jobs) {
+                job.setTargetExecutionTime(job.getTargetExecutionTime() - millis);
+            }
+            delegate_.notifyAll();
+        }
+    }
+
+    @Override
+    public int getJobCount() {
+        return delegate_.getJobCount();
+    }
+
+    @Override
+    public int getJobCount(final JavaScriptJobFilter filter) {
+        return delegate_.getJobCount(filter);
+    }
+
+    @Override
+    public int addJob(final JavaScriptJob job, final Page page) {
+        // remember the job first; it may be moved before this method returns
+        synchronized (jobs_) {
+            jobs_.add(job);
+        }
+        final int id = delegate_.addJob(job, page);
+        if (id == 0) {
+            synchronized (jobs_) {
+                jobs_.remove(job);
+            }
+        }
+        return id;
+    }
+
+    @Override
+    public void removeJob(final int id) {
+        delegate_.removeJob(id);
+    }
+
+    @Override
+    public void removeAllJobs() {
+        delegate_.removeAllJobs();
+        synchronized (jobs_) {
+            jobs_.clear();
+        }
+    }
+
+    @Override
+    public void stopJob(final int id) {
+        delegate_.stopJob(id);
+    }
+
+    @Override
+    public int waitForJobs(final long timeoutMillis) {
+        return delegate_.waitForJobs(timeoutMillis);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis) {
+        return delegate_.waitForJobsStartingBefore(delayMillis);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis, final long timeoutMillis) {
+        return delegate_.waitForJobsStartingBefore(delayMillis, timeoutMillis);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis, final JavaScriptJobFilter filter) {
+        return delegate_.waitForJobsStartingBefore(delayMillis, filter);
+    }
+
+    @Override
+    public int waitForJobsStartingBefore(final long delayMillis, final long timeoutMillis,
+            final JavaScriptJobFilter filter) {
+        return delegate_.waitForJobsStartingBefore(delayMillis, timeoutMillis, filter);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate_.shutdown();
+        synchronized (jobs_) {
+            jobs_.clear();
+        }
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob() {
+        return delegate_.getEarliestJob();
+    }
+
+    @Override
+    public JavaScriptJob getEarliestJob(final JavaScriptJobFilter filter) {
+        return delegate_.getEarliestJob(filter);
+    }
+
+    @Override
+    public boolean runSingleJob(final JavaScriptJob job) {
+        return delegate_.runSingleJob(job);
+    }
+
+    @Override
+    public String jobStatusDump(final JavaScriptJobFilter filter) {
+        return delegate_.jobStatusDump(filter);
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        jobs_ = newJobSet();
+    }
+
+    /**
+     * The jobs are kept weakly; jobs done or removed are dropped by the garbage collector.
+     * A periodic job is added only once but stays tracked as long as it is scheduled.
+     */
+    private static Set<JavaScriptJob> newJobSet() {
+        return Collections.newSetFromMap(new WeakHashMap<>());
+    }
+}
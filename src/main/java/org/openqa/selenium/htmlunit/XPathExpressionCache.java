@@ -0,0 +1,176 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.transform.TransformerException;
+
+import org.htmlunit.html.DomNode;
+import org.htmlunit.html.xpath.XPathAdapter;
+import org.htmlunit.html.xpath.XPathHelper;
+
+/**
+ * JVM wide cache of compiled XPath expressions used by the xpath locator.
+ * {@link DomNode#getByXPath(String)} compiles the expression on every call; with
+ * this cache the same expression is compiled only once (per case sensitivity of
+ * the tag names). The least recently used entries are evicted.
+ * <p>
+ * Expressions using namespace prefixes are resolved against the context node
+ * while compiling; they are therefore not cached.
+ * <p>
+ * The maximum size defaults to {@value #DEFAULT_MAX_SIZE} and can be changed using
+ * the system property <b>{@value #MAX_SIZE_PROPERTY}</b> or {@link #setMaxSize(int)}.
+ *
+ * @author agent (agent@local)
+ */
+public final class XPathExpressionCache {
+
+    /** The default maximum number of cached expressions. */
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    /** The system property to configure the maximum number of cached expressions. */
+    public static final String MAX_SIZE_PROPERTY = "webdriver.htmlunit.xpathCacheSize";
+
+    private static final LruCache<Key, XPathAdapter> CACHE =
+            new LruCache<>("xpath", Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private XPathExpressionCache() {
+    }
+
+    /**
+     * Evaluates the expression the same way {@link DomNode#getByXPath(String)} does.
+     *
+     * @param node the context node
+     * @param expression the XPath expression
+     * @return the selected objects
+     * @throws RuntimeException if the expression is invalid or can not be evaluated
+     */
+    static List<?> getByXPath(final DomNode node, final String expression) {
+        if (!isCacheable(expression)) {
+            return node.getByXPath(expression);
+        }
+
+        final boolean caseSensitive = node.getPage().hasCaseSensitiveTagNames();
+        try {
+            final XPathAdapter xpath = CACHE.get(new Key(expression, caseSensitive), XPathExpressionCache::compile);
+            return XPathHelper.getByXPath(node, xpath, null);
+        }
+        catch (final TransformerException e) {
+            throw new RuntimeException("Could not retrieve XPath >" + expression + "< on " + node, e);
+        }
+    }
+
+    /**
+     * Evaluates the expression and returns the first selected object.
+     *
+     * @param node the context node
+     * @param expression the XPath expression
+     * @return the first selected object or {@code null}
+     * @throws RuntimeException if the expression is invalid or can not be evaluated
+     */
+    static Object getFirstByXPath(final DomNode node, final String expression) {
+        final List<?> results = getByXPath(node, expression);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Prefixes are resolved using the context node; ':' is only fine as part of an axis.
+     */
+    private static boolean isCacheable(final String expression) {
+        return expression != null && expression.replace("::", "").indexOf(':') == -1;
+    }
+
+    private static XPathAdapter compile(final Key key) {
+        try {
+            return new XPathAdapter(key.expression_, null, key.caseSensitive_);
+        }
+        catch (final TransformerException e) {
+            throw new RuntimeException("Could not compile XPath >" + key.expression_ + "<", e);
+        }
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /**
+     * @return the number of lookups that had to compile the expression
+     */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /**
+     * @return the number of cached expressions
+     */
+    public static int getSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * @return the maximum number of cached expressions
+     */
+    public static int getMaxSize() {
+        return CACHE.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of cached expressions.
+     *
+     * @param maxSize the maximum number of cached expressions; {@code 0} disables the cache
+     */
+    public static void setMaxSize(final int maxSize) {
+        CACHE.setMaxSize(maxSize);
+    }
+
+    /**
+     * Removes all cached expressions and resets the counters.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static final class Key {
+        private final String expression_;
+        private final boolean caseSensitive_;
+
+        Key(final String expression, final boolean caseSensitive) {
+            expression_ = expression;
+            caseSensitive_ = caseSensitive;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return caseSensitive_ == other.caseSensitive_ && expression_.equals(other.expression_);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(expression_, caseSensitive_);
+        }
+    }
+}
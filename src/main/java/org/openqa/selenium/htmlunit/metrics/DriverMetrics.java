@@ -0,0 +1,63 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+/**
+ * The instrumentation surface of the driver; set an implementation using
+ * {@code HtmlUnitDriver.setMetrics(DriverMetrics)}.
+ * <p>
+ * The driver reports every command ({@code get}, {@code findElement},
+ * {@code executeScript}, {@code element.click}, ...) once it is done. Commands
+ * running inside other commands are reported as well, e.g. every evaluation of a
+ * locator ({@code locate.ById}) while {@code findElement} waits implicitly for the
+ * element. The time of a command is split into the time spent waiting (for other
+ * commands, for page changes during implicit waits, for asynchronous scripts or
+ * for the page to get idle) and the remaining work time.
+ * <p>
+ * In addition the lookups of the caches used while running a command
+ * ({@code compiledScript}, {@code cssSelector}, {@code xpath}, {@code sharedScript},
+ * {@code sharedResponse}) are reported.
+ * <p>
+ * Implementations are called from the threads running the commands; therefore they
+ * have to be thread safe and should return fast.
+ *
+ * @see NoOpDriverMetrics
+ * @see InMemoryDriverMetrics
+ *
+ * @author agent (agent@local)
+ */
+public interface DriverMetrics {
+
+    /**
+     * Called after a command has finished.
+     *
+     * @param command the name of the command
+     * @param workNanos the time spent working in nanoseconds
+     * @param waitNanos the time spent waiting in nanoseconds
+     * @param failed whether the command has thrown an exception
+     */
+    void commandCompleted(String command, long workNanos, long waitNanos, boolean failed);
+
+    /**
+     * Called for every lookup of a cache while a command is running.
+     *
+     * @param cache the name of the cache
+     * @param hit whether the value was found in the cache
+     */
+    void cacheAccessed(String cache, boolean hit);
+}
@@ -0,0 +1,187 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The values collected by an {@link InMemoryDriverMetrics} at one point in time.
+ *
+ * @author agent (agent@local)
+ */
+public final class DriverMetricsSnapshot {
+
+    private final Map<String, CommandSnapshot> commands_;
+    private final Map<String, CacheSnapshot> caches_;
+
+    DriverMetricsSnapshot(final Map<String, CommandSnapshot> commands, final Map<String, CacheSnapshot> caches) {
+        commands_ = Collections.unmodifiableMap(commands);
+        caches_ = Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * @return the values by command name, sorted by name
+     */
+    public Map<String, CommandSnapshot> getCommands() {
+        return commands_;
+    }
+
+    /**
+     * @return the values by cache name, sorted by name
+     */
+    public Map<String, CacheSnapshot> getCaches() {
+        return caches_;
+    }
+
+    /**
+     * Exports all values as flat map to be fed into a monitoring system. The keys are
+     * <ul>
+     *   <li>{@code command.<name>.count}, {@code .failures}</li>
+     *   <li>{@code command.<name>.latency.p50}, {@code .p90}, {@code .p99}, {@code .max},
+     *       {@code .mean} (nanoseconds)</li>
+     *   <li>{@code command.<name>.work}, {@code .wait} (total nanoseconds)</li>
+     *   <li>{@code cache.<name>.hits}, {@code .misses}, {@code .hitRatio}</li>
+     * </ul>
+     *
+     * @return the values by key
+     */
+    public Map<String, Number> export() {
+        final Map<String, Number> values = new LinkedHashMap<>();
+        for (final Map.Entry<String, CommandSnapshot> entry : commands_.entrySet()) {
+            final String prefix = "command." + entry.getKey() + ".";
+            final CommandSnapshot command = entry.getValue();
+            final LatencyHistogram latency = command.getLatency();
+            values.put(prefix + "count", command.getCount());
+            values.put(prefix + "failures", command.getFailures());
+            values.put(prefix + "latency.p50", latency.getValueAtPercentile(50));
+            values.put(prefix + "latency.p90", latency.getValueAtPercentile(90));
+            values.put(prefix + "latency.p99", latency.getValueAtPercentile(99));
+            values.put(prefix + "latency.max", latency.getMax());
+            values.put(prefix + "latency.mean", latency.getMean());
+            values.put(prefix + "work", command.getWorkNanos());
+            values.put(prefix + "wait", command.getWaitNanos());
+        }
+        for (final Map.Entry<String, CacheSnapshot> entry : caches_.entrySet()) {
+            final String prefix = "cache." + entry.getKey() + ".";
+            final CacheSnapshot cache = entry.getValue();
+            values.put(prefix + "hits", cache.getHits());
+            values.put(prefix + "misses", cache.getMisses());
+            values.put(prefix + "hitRatio", cache.getHitRatio());
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (final Map.Entry<String, Number> entry : export().entrySet()) {
+            result.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * The values of one command.
+     */
+    public static final class CommandSnapshot {
+        private final LatencyHistogram latency_;
+        private final long failures_;
+        private final long workNanos_;
+        private final long waitNanos_;
+
+        CommandSnapshot(final LatencyHistogram latency, final long failures, final long workNanos,
+                final long waitNanos) {
+            latency_ = latency;
+            failures_ = failures;
+            workNanos_ = workNanos;
+            waitNanos_ = waitNanos;
+        }
+
+        /**
+         * @return the number of times the command was run
+         */
+        public long getCount() {
+            return latency_.getCount();
+        }
+
+        /**
+         * @return the number of times the command has thrown an exception
+         */
+        public long getFailures() {
+            return failures_;
+        }
+
+        /**
+         * @return the histogram of the durations (work and wait) of the command
+         */
+        public LatencyHistogram getLatency() {
+            return latency_.copy();
+        }
+
+        /**
+         * @return the total time spent working in nanoseconds
+         */
+        public long getWorkNanos() {
+            return workNanos_;
+        }
+
+        /**
+         * @return the total time spent waiting in nanoseconds
+         */
+        public long getWaitNanos() {
+            return waitNanos_;
+        }
+    }
+
+    /**
+     * The values of one cache.
+     */
+    public static final class CacheSnapshot {
+        private final long hits_;
+        private final long misses_;
+
+        CacheSnapshot(final long hits, final long misses) {
+            hits_ = hits;
+            misses_ = misses;
+        }
+
+        /**
+         * @return the number of lookups served from the cache
+         */
+        public long getHits() {
+            return hits_;
+        }
+
+        /**
+         * @return the number of lookups not served from the cache
+         */
+        public long getMisses() {
+            return misses_;
+        }
+
+        /**
+         * @return the ratio of lookups served from the cache; {@code 0} if there was no lookup
+         */
+        public double getHitRatio() {
+            final long lookups = hits_ + misses_;
+            return lookups == 0 ? 0 : (double) hits_ / lookups;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DriverMetrics} collecting counters and {@link LatencyHistogram latency histograms}
+ * per command and hit counters per cache in memory. Use {@link #snapshot()} to read them;
+ * one instance can be shared by many drivers to aggregate over all sessions.
+ *
+ * @author agent (agent@local)
+ */
+public class InMemoryDriverMetrics implements DriverMetrics {
+
+    private final Map<String, CommandStats> commands_ = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> caches_ = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandCompleted(final String command, final long workNanos, final long waitNanos,
+            final boolean failed) {
+        final CommandStats stats = commands_.computeIfAbsent(command, k -> new CommandStats());
+        stats.latency_.record(workNanos + waitNanos);
+        stats.workNanos_.add(workNanos);
+        stats.waitNanos_.add(waitNanos);
+        if (failed) {
+            stats.failures_.increment();
+        }
+    }
+
+    @Override
+    public void cacheAccessed(final String cache, final boolean hit) {
+        final CacheStats stats = caches_.computeIfAbsent(cache, k -> new CacheStats());
+        if (hit) {
+            stats.hits_.increment();
+        }
+        else {
+            stats.misses_.increment();
+        }
+    }
+
+    /**
+     * @return a copy of the current values; not affected by later commands
+     */
+    public DriverMetricsSnapshot snapshot() {
+        final Map<String, DriverMetricsSnapshot.CommandSnapshot> commands = new TreeMap<>();
+        for (final Map.Entry<String, CommandStats> entry : commands_.entrySet()) {
+            final CommandStats stats = entry.getValue();
+            commands.put(entry.getKey(), new DriverMetricsSnapshot.CommandSnapshot(stats.latency_.copy(),
+                    stats.failures_.sum(), stats.workNanos_.sum(), stats.waitNanos_.sum()));
+        }
+
+        final Map<String, DriverMetricsSnapshot.CacheSnapshot> caches = new TreeMap<>();
+        for (final Map.Entry<String, CacheStats> entry : caches_.entrySet()) {
+            final CacheStats stats = entry.getValue();
+            caches.put(entry.getKey(),
+                    new DriverMetricsSnapshot.CacheSnapshot(stats.hits_.sum(), stats.misses_.sum()));
+        }
+        return new DriverMetricsSnapshot(commands, caches);
+    }
+
+    /**
+     * Removes all collected values.
+     */
+    public void reset() {
+        commands_.clear();
+        caches_.clear();
+    }
+
+    private static final class CommandStats {
+        private final LatencyHistogram latency_ = new LatencyHistogram();
+        private final LongAdder failures_ = new LongAdder();
+        private final LongAdder workNanos_ = new LongAdder();
+        private final LongAdder waitNanos_ = new LongAdder();
+    }
+
+    private static final class CacheStats {
+        private final LongAdder hits_ = new LongAdder();
+        private final LongAdder misses_ = new LongAdder();
+    }
+}
@@ -0,0 +1,148 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of durations in nanoseconds with a fixed memory footprint,
+ * in the spirit of HdrHistogram. Every power of two is divided into
+ * {@value #SUB_BUCKETS} linear buckets; therefore the values reported for the
+ * percentiles are at most 1/{@value #SUB_BUCKETS} (6.25%) below the recorded ones.
+ *
+ * @author agent (agent@local)
+ */
+public final class LatencyHistogram {
+
+    /** The number of buckets per power of two. */
+    public static final int SUB_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts_ = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count_ = new AtomicLong();
+    private final AtomicLong sum_ = new AtomicLong();
+    private final AtomicLong max_ = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values are recorded as {@code 0}
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts_.incrementAndGet(bucketOf(value));
+        count_.incrementAndGet();
+        sum_.addAndGet(value);
+        max_.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count_.get();
+    }
+
+    /**
+     * @return the sum of all recorded durations in nanoseconds
+     */
+    public long getSum() {
+        return sum_.get();
+    }
+
+    /**
+     * @return the longest recorded duration in nanoseconds
+     */
+    public long getMax() {
+        return max_.get();
+    }
+
+    /**
+     * @return the mean of the recorded durations in nanoseconds; {@code 0} if empty
+     */
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Returns the duration not exceeded by the given percentage of the recorded durations.
+     *
+     * @param percentile the percentile between {@code 0} and {@code 100}
+     * @return the lower bound of the bucket holding the percentile in nanoseconds;
+     *         {@code 0} if empty
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts_.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts_.get(i);
+            if (seen >= rank) {
+                return Math.min(lowerBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return an independent copy of this histogram
+     */
+    public LatencyHistogram copy() {
+        final LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts_.set(i, counts_.get(i));
+        }
+        copy.count_.set(count_.get());
+        copy.sum_.set(sum_.get());
+        copy.max_.set(max_.get());
+        return copy;
+    }
+
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
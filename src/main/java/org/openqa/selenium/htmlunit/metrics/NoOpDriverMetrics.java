@@ -0,0 +1,44 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+/**
+ * The default {@link DriverMetrics} ignoring everything. The driver does not even
+ * measure the commands if this instance is used.
+ *
+ * @author agent (agent@local)
+ */
+public final class NoOpDriverMetrics implements DriverMetrics {
+
+    /** The singleton. */
+    public static final NoOpDriverMetrics INSTANCE = new NoOpDriverMetrics();
+
+    private NoOpDriverMetrics() {
+    }
+
+    @Override
+    public void commandCompleted(final String command, final long workNanos, final long waitNanos,
+            final boolean failed) {
+        // nothing
+    }
+
+    @Override
+    public void cacheAccessed(final String cache, final boolean hit) {
+        // nothing
+    }
+}
@@ -21,11 +21,13 @@
 import static org.openqa.selenium.htmlunit.HtmlUnitDriver.JAVASCRIPT_ENABLED;
 import static org.openqa.selenium.remote.Browser.HTMLUNIT;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.security.KeyStore;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -145,6 +147,8 @@ public class HtmlUnitDriverOptions extends AbstractDriverOptions<HtmlUnitDriverO
     private WebClientOptions webClientOptions_ = new WebClientOptions();
     /** The {@link BrowserVersion} used by the underlying {@link WebClient}. */
     private BrowserVersion webClientVersion_ = BrowserVersion.BEST_SUPPORTED;
+    /** Values of the {@link HtmlUnitOption#isDriverOption() driver options} differing from the default. */
+    private final Map<HtmlUnitOption, Object> driverOptionValues_ = new EnumMap<>(HtmlUnitOption.class);
 
     /**
      * Default constructor.
@@ -211,6 +215,8 @@ public HtmlUnitDriverOptions(final Capabilities source) {
                 transfer(((HtmlUnitDriverOptions) source).webClientOptions_, webClientOptions_);
                 // copy web client version from source capabilities
                 webClientVersion_ = ((HtmlUnitDriverOptions) source).webClientVersion_;
+                // copy driver options from source capabilities
+                driverOptionValues_.putAll(((HtmlUnitDriverOptions) source).driverOptionValues_);
             }
             else {
                 // get HtmlUnit options from standard capabilities
@@ -277,6 +283,9 @@ public Object getCapability(final String capabilityName) {
         }
         final HtmlUnitOption option = HtmlUnitOption.fromCapabilityKey(capabilityName);
         if (option != null) {
+            if (option.isDriverOption()) {
+                return getDriverOption(option);
+            }
             switch (option) {
                 case SSL_CLIENT_CERTIFICATE_PASSWORD:
                 case SSL_TRUST_STORE_PASSWORD:
@@ -311,6 +320,10 @@ public void setCapability(final String capabilityName, final Object value) {
                 webClientVersion_ = (BrowserVersion) option.decode(value);
                 return;
             }
+            if (option.isDriverOption()) {
+                setDriverOption(option, value);
+                return;
+            }
             option.insert(webClientOptions_, value);
             return;
         }
@@ -476,6 +489,199 @@ public HtmlUnitDriverOptions setSSLTrustStore(final URL sslTrustStoreUrl, final
         return this;
     }
 
+    /**
+     * Returns the executor mode used to process the driver commands.
+     *
+     * @return the executor mode; one of {@code dedicated}, {@code shared} or {@code virtual}
+     * @see HtmlUnitOption#EXECUTOR_MODE
+     */
+    public String getExecutorMode() {
+        return (String) getDriverOption(HtmlUnitOption.EXECUTOR_MODE);
+    }
+
+    /**
+     * Sets the executor mode used to process the driver commands.
+     *
+     * @param executorMode one of {@code dedicated}, {@code shared} or {@code virtual}
+     * @return this options instance
+     * @see HtmlUnitOption#EXECUTOR_MODE
+     */
+    public HtmlUnitDriverOptions setExecutorMode(final String executorMode) {
+        setDriverOption(HtmlUnitOption.EXECUTOR_MODE, executorMode);
+        return this;
+    }
+
+    /**
+     * Returns whether the timers of the pages run on a virtual clock.
+     *
+     * @return {@code true} if the virtual clock is enabled
+     * @see HtmlUnitOption#VIRTUAL_CLOCK
+     */
+    public boolean isVirtualClock() {
+        return (Boolean) getDriverOption(HtmlUnitOption.VIRTUAL_CLOCK);
+    }
+
+    /**
+     * Sets whether the timers of the pages run on a virtual clock.
+     *
+     * @param virtualClock {@code true} to enable the virtual clock
+     * @return this options instance
+     * @see HtmlUnitOption#VIRTUAL_CLOCK
+     */
+    public HtmlUnitDriverOptions setVirtualClock(final boolean virtualClock) {
+        setDriverOption(HtmlUnitOption.VIRTUAL_CLOCK, virtualClock);
+        return this;
+    }
+
+    /**
+     * Returns the maximum time the driver waits for the current window to get idle
+     * after {@code get()}, clicks and {@code sendKeys()}.
+     *
+     * @return the timeout in milliseconds; {@code 0} if the driver does not wait
+     * @see HtmlUnitOption#WAIT_FOR_IDLE_TIMEOUT
+     */
+    public long getWaitForIdleTimeout() {
+        return (Long) getDriverOption(HtmlUnitOption.WAIT_FOR_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Sets the maximum time the driver waits for the current window to get idle
+     * after {@code get()}, clicks and {@code sendKeys()}.
+     *
+     * @param waitForIdleTimeout the timeout in milliseconds; {@code 0} disables the wait
+     * @return this options instance
+     * @see HtmlUnitOption#WAIT_FOR_IDLE_TIMEOUT
+     */
+    public HtmlUnitDriverOptions setWaitForIdleTimeout(final long waitForIdleTimeout) {
+        setDriverOption(HtmlUnitOption.WAIT_FOR_IDLE_TIMEOUT, waitForIdleTimeout);
+        return this;
+    }
+
+    /**
+     * Returns whether the responses are recorded to or replayed from the http archive.
+     *
+     * @return the mode; one of {@code off}, {@code record} or {@code replay}
+     * @see HtmlUnitOption#HTTP_ARCHIVE_MODE
+     */
+    public String getHttpArchiveMode() {
+        return (String) getDriverOption(HtmlUnitOption.HTTP_ARCHIVE_MODE);
+    }
+
+    /**
+     * Sets whether the responses are recorded to or replayed from the http archive.
+     *
+     * @param httpArchiveMode one of {@code off}, {@code record} or {@code replay}
+     * @return this options instance
+     * @see HtmlUnitOption#HTTP_ARCHIVE_MODE
+     */
+    public HtmlUnitDriverOptions setHttpArchiveMode(final String httpArchiveMode) {
+        setDriverOption(HtmlUnitOption.HTTP_ARCHIVE_MODE, httpArchiveMode);
+        return this;
+    }
+
+    /**
+     * Returns the file written or read by the http archive mode.
+     *
+     * @return the archive file; might be {@code null}
+     * @see HtmlUnitOption#HTTP_ARCHIVE
+     */
+    public File getHttpArchive() {
+        return (File) getDriverOption(HtmlUnitOption.HTTP_ARCHIVE);
+    }
+
+    /**
+     * Sets the file written or read by the http archive mode.
+     *
+     * @param httpArchive the archive file
+     * @return this options instance
+     * @see HtmlUnitOption#HTTP_ARCHIVE
+     */
+    public HtmlUnitDriverOptions setHttpArchive(final File httpArchive) {
+        setDriverOption(HtmlUnitOption.HTTP_ARCHIVE, httpArchive);
+        return this;
+    }
+
+    /**
+     * Returns whether the driver uses the JVM wide shared response cache.
+     *
+     * @return the mode; one of {@code off}, {@code on} or {@code immutable}
+     * @see HtmlUnitOption#SHARED_RESPONSE_CACHE
+     */
+    public String getSharedResponseCache() {
+        return (String) getDriverOption(HtmlUnitOption.SHARED_RESPONSE_CACHE);
+    }
+
+    /**
+     * Sets whether the driver uses the JVM wide shared response cache.
+     *
+     * @param sharedResponseCache one of {@code off}, {@code on} or {@code immutable}
+     * @return this options instance
+     * @see HtmlUnitOption#SHARED_RESPONSE_CACHE
+     */
+    public HtmlUnitDriverOptions setSharedResponseCache(final String sharedResponseCache) {
+        setDriverOption(HtmlUnitOption.SHARED_RESPONSE_CACHE, sharedResponseCache);
+        return this;
+    }
+
+    /**
+     * Returns whether the scripts of the pages are compiled only once for all drivers.
+     *
+     * @return {@code true} if the JVM wide script cache is used
+     * @see HtmlUnitOption#SHARED_SCRIPT_CACHE
+     */
+    public boolean isSharedScriptCache() {
+        return (boolean) getDriverOption(HtmlUnitOption.SHARED_SCRIPT_CACHE);
+    }
+
+    /**
+     * Sets whether the scripts of the pages are compiled only once for all drivers.
+     *
+     * @param sharedScriptCache {@code true} to use the JVM wide script cache
+     * @return this options instance
+     * @see HtmlUnitOption#SHARED_SCRIPT_CACHE
+     */
+    public HtmlUnitDriverOptions setSharedScriptCache(final boolean sharedScriptCache) {
+        setDriverOption(HtmlUnitOption.SHARED_SCRIPT_CACHE, sharedScriptCache);
+        return this;
+    }
+
+    /**
+     * Returns the maximum memory the pages of the driver may retain.
+     *
+     * @return the budget in bytes; {@code 0} if the budget is not enforced
+     * @see HtmlUnitOption#MEMORY_BUDGET
+     */
+    public long getMemoryBudget() {
+        return (Long) getDriverOption(HtmlUnitOption.MEMORY_BUDGET);
+    }
+
+    /**
+     * Sets the maximum memory the pages of the driver may retain.
+     *
+     * @param memoryBudget the budget in bytes; {@code 0} to not enforce a budget
+     * @return this options instance
+     * @see HtmlUnitOption#MEMORY_BUDGET
+     */
+    public HtmlUnitDriverOptions setMemoryBudget(final long memoryBudget) {
+        setDriverOption(HtmlUnitOption.MEMORY_BUDGET, memoryBudget);
+        return this;
+    }
+
+    private Object getDriverOption(final HtmlUnitOption option) {
+        final Object value = driverOptionValues_.get(option);
+        return value != null ? value : option.getDefaultValue();
+    }
+
+    private void setDriverOption(final HtmlUnitOption option, final Object value) {
+        final Object decoded = value != null ? option.decode(value) : null;
+        if (decoded == null || option.isDefaultValue(decoded)) {
+            driverOptionValues_.remove(option);
+        }
+        else {
+            driverOptionValues_.put(option, decoded);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void importOptions(final Object rawOptions) {
         Map<String, Object> optionsMap = new HashMap<>();
@@ -504,7 +710,12 @@ private void importOptions(final Object rawOptions) {
                                 (BrowserVersion) option.decode(optionsMap.get(option.getCapabilityKey()));
                             break;
                         default:
-                            option.insert(webClientOptions_, optionsMap.get(option.getCapabilityKey()));
+                            if (option.isDriverOption()) {
+                                setDriverOption(option, optionsMap.get(option.getCapabilityKey()));
+                            }
+                            else {
+                                option.insert(webClientOptions_, optionsMap.get(option.getCapabilityKey()));
+                            }
                             break;
                     }
                 }
@@ -525,7 +736,8 @@ private Map<String, Object> exportOptions() {
                     }
                     break;
                 default:
-                    final Object value = option.obtain(webClientOptions_);
+                    final Object value = option.isDriverOption()
+                            ? getDriverOption(option) : option.obtain(webClientOptions_);
                     if (!option.isDefaultValue(value)) {
                         optionsMap.put(option.getCapabilityKey(), option.encode(value));
                     }
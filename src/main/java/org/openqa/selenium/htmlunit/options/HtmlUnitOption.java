@@ -865,18 +865,143 @@ public void insert(final WebClientOptions options, final Object value) {
         public Object obtain(final WebClientOptions options) {
             return options.isFileProtocolForXMLHttpRequestsAllowed();
         }
-    };
+    },
+
+    /**
+     * Specifies the executor used to process the driver commands.
+     * <ul>
+     *   <li>{@code dedicated} - every driver uses its own cached thread pool</li>
+     *   <li>{@code shared} - all drivers of the JVM use one thread pool growing on demand up to a cap
+     *       (system property <b>webdriver.htmlunit.sharedExecutorSize</b>)</li>
+     *   <li>{@code virtual} - every command runs on a new virtual thread; falls back
+     *       to {@code shared} if the runtime does not support virtual threads</li>
+     * </ul>
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.executorMode</b><br>
+     * type: {@link String}<br>
+     * default: {@code dedicated}
+     */
+    EXECUTOR_MODE(optExecutorMode, String.class, "dedicated", true),
+
+    /**
+     * Specifies whether the timers of the pages run on a virtual clock. Instead of
+     * waiting for a timer (setTimeout, setInterval) the driver advances the time to it;
+     * timers are fired in order while the driver is waiting (implicit wait,
+     * executeAsyncScript, page refreshes). The time can be advanced explicitly
+     * by calling {@code HtmlUnitDriver.advanceTime(Duration)}.
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.virtualClock</b><br>
+     * type: {@code boolean}<br>
+     * default: {@code false}
+     */
+    VIRTUAL_CLOCK(optVirtualClock, boolean.class, false, true),
+
+    /**
+     * Specifies the maximum time (in milliseconds) the driver waits for the current window
+     * to get idle after {@code get()}, clicks and {@code sendKeys()}; see
+     * {@code HtmlUnitDriver.waitForIdle(Duration)}. The driver does not wait if set to {@code 0}
+     * or if the page load strategy is {@code none}.
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.waitForIdleTimeout</b><br>
+     * type: {@code long}<br>
+     * default: {@code 0}
+     */
+    WAIT_FOR_IDLE_TIMEOUT(optWaitForIdleTimeout, long.class, 0L, true),
+
+    /**
+     * Specifies whether the responses of the web connection are recorded to or replayed from
+     * the {@link #HTTP_ARCHIVE http archive}.
+     * <ul>
+     *   <li>{@code off} - the web connection is used as is</li>
+     *   <li>{@code record} - all request/response pairs are written to the archive</li>
+     *   <li>{@code replay} - all responses are served from the archive; no request is sent</li>
+     * </ul>
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.httpArchiveMode</b><br>
+     * type: {@link String}<br>
+     * default: {@code off}
+     */
+    HTTP_ARCHIVE_MODE(optHttpArchiveMode, String.class, "off", true),
+
+    /**
+     * Specifies the file written or read by the {@link #HTTP_ARCHIVE_MODE http archive mode}.
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.httpArchive</b><br>
+     * type: {@link File}<br>
+     * default: {@code null}
+     */
+    HTTP_ARCHIVE(optHttpArchive, File.class, null, true),
+
+    /**
+     * Specifies whether the driver uses the JVM wide response cache shared with all other drivers
+     * (see {@code SharedResponseCache} for the size limits and metrics).
+     * <ul>
+     *   <li>{@code off} - only the cache of the web client is used</li>
+     *   <li>{@code on} - scripts, style sheets, images and fonts are shared as long as they are fresh
+     *   according to their headers</li>
+     *   <li>{@code immutable} - scripts, style sheets, images and fonts are shared until evicted</li>
+     * </ul>
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.sharedResponseCache</b><br>
+     * type: {@link String}<br>
+     * default: {@code off}
+     */
+    SHARED_RESPONSE_CACHE(optSharedResponseCache, String.class, "off", true),
+
+    /**
+     * Specifies whether the scripts of the pages are compiled only once for all drivers
+     * emulating the same browser version (see {@code SharedScriptCache} for the size limit).
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.sharedScriptCache</b><br>
+     * type: {@code boolean}<br>
+     * default: {@code false}
+     */
+    SHARED_SCRIPT_CACHE(optSharedScriptCache, boolean.class, false, true),
+
+    /**
+     * Specifies the maximum memory (in bytes) the pages of the driver may retain; see
+     * {@code HtmlUnitDriver.getMemoryUsage()} for the accounting. If the budget is exceeded
+     * the cached responses are dropped; if this is not sufficient the driver quits and the
+     * command fails with a {@link org.openqa.selenium.WebDriverException}. The pages the
+     * history caches for back and forward are soft references; they are neither counted nor
+     * dropped but left to the garbage collector (see {@link #HISTORY_PAGE_CACHE_LIMIT}).
+     * <p>
+     * Checking the budget walks the DOM of all windows, which costs about as much as finding
+     * all elements of the pages. The budget is checked after every command loading a page and
+     * after every 20th script or user interaction otherwise; a page growing by scripts only
+     * may exceed the budget until the next check.
+     * The budget is not enforced if set to {@code 0}.
+     * This is a driver option; it is not stored in the {@link WebClientOptions}.
+     * <p>
+     * property: <b>webdriver.htmlunit.memoryBudget</b><br>
+     * type: {@code long}<br>
+     * default: {@code 0}
+     */
+    MEMORY_BUDGET(optMemoryBudget, long.class, 0L, true);
 
     private final String capabilityKey_;
     private final String propertyName_;
     private final Class<?> optionType_;
     private final Object defaultValue_;
+    private final boolean driverOption_;
 
     HtmlUnitOption(final String key, final Class<?> type, final Object initial) {
+        this(key, type, initial, false);
+    }
+
+    HtmlUnitOption(final String key, final Class<?> type, final Object initial, final boolean driverOption) {
         capabilityKey_ = key;
         propertyName_ = "webdriver.htmlunit." + key;
         optionType_ = type;
         defaultValue_ = initial;
+        driverOption_ = driverOption;
     }
 
     @Override
@@ -899,6 +1024,17 @@ public Object getDefaultValue() {
         return defaultValue_;
     }
 
+    /**
+     * Determine if this option configures the driver itself instead of the
+     * {@link WebClientOptions}. Values of driver options are kept by the
+     * {@link HtmlUnitDriverOptions} object.
+     *
+     * @return {@code true} if this is a driver option; otherwise {@code false}
+     */
+    public boolean isDriverOption() {
+        return driverOption_;
+    }
+
     /**
      * Determine if the specified value matches the default for this option.
      *
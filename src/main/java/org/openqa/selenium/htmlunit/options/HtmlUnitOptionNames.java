@@ -141,4 +141,28 @@ public interface HtmlUnitOptionNames {
 
     /** "fileProtocolForXMLHttpRequestsAllowed". */
     String optFileProtocolForXMLHttpRequestsAllowed = "fileProtocolForXMLHttpRequestsAllowed";
+
+    /** "executorMode". */
+    String optExecutorMode = "executorMode";
+
+    /** "virtualClock". */
+    String optVirtualClock = "virtualClock";
+
+    /** "waitForIdleTimeout". */
+    String optWaitForIdleTimeout = "waitForIdleTimeout";
+
+    /** "httpArchiveMode". */
+    String optHttpArchiveMode = "httpArchiveMode";
+
+    /** "httpArchive". */
+    String optHttpArchive = "httpArchive";
+
+    /** "sharedResponseCache". */
+    String optSharedResponseCache = "sharedResponseCache";
+
+    /** "sharedScriptCache". */
+    String optSharedScriptCache = "sharedScriptCache";
+
+    /** "memoryBudget". */
+    String optMemoryBudget = "memoryBudget";
 }
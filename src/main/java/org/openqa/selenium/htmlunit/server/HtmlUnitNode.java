@@ -0,0 +1,499 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.InvalidArgumentException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+import org.openqa.selenium.htmlunit.options.HtmlUnitOption;
+import org.openqa.selenium.remote.Browser;
+import org.openqa.selenium.remote.CapabilityType;
+
+/**
+ * Hosts many {@link HtmlUnitDriver} sessions in one JVM and processes the commands of the
+ * <a href="https://www.w3.org/TR/webdriver/">W3C WebDriver protocol</a> for them.
+ * This class does not depend on a http server; see {@link HtmlUnitServer} for the
+ * http endpoint.
+ * <p>
+ * To keep the footprint of a session small, the drivers are created with defaults
+ * suited for many sessions; the {@link HtmlUnitOption#EXECUTOR_MODE executor} and the
+ * {@link HtmlUnitOption#SHARED_SCRIPT_CACHE compiled scripts} are shared by all sessions.
+ * If set, the {@link #setSessionMemoryBudget(long) session memory budget} is applied to all
+ * sessions; a session exceeding it is closed without affecting the others. Sessions may
+ * request a smaller budget but not a larger one.
+ * Other options requested in the capabilities ({@value HtmlUnitDriverOptions#HTMLUNIT_OPTIONS})
+ * take precedence. Options naming files on the node (e.g. the
+ * {@link HtmlUnitOption#HTTP_ARCHIVE http archive}) are rejected; a client must not be
+ * able to read or write files of the node host.
+ * <p>
+ * New sessions are only admitted as long as
+ * <ul>
+ *   <li>the number of sessions is below the maximum and</li>
+ *   <li>the heap still in use after the last garbage collection is below
+ *       {@value #MAX_HEAP_USAGE_PERCENT}% of the maximum heap.</li>
+ * </ul>
+ * Sessions without commands for longer than the session timeout are quit.
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitNode implements Closeable {
+
+    /** The default maximum number of sessions per available processor. */
+    public static final int DEFAULT_SESSIONS_PER_PROCESSOR = 16;
+
+    /** The default time a session is kept without receiving commands. */
+    public static final Duration DEFAULT_SESSION_TIMEOUT = Duration.ofMinutes(5);
+
+    /** No new sessions are admitted if more of the heap is in use after a garbage collection. */
+    public static final int MAX_HEAP_USAGE_PERCENT = 90;
+
+    private static final Map<String, Object> NODE_DEFAULT_OPTIONS;
+
+    /** The options referring to files of the node host; not accepted from clients. */
+    private static final Set<String> NODE_REJECTED_OPTIONS = new HashSet<>(Arrays.asList(
+            HtmlUnitOption.HTTP_ARCHIVE.getCapabilityKey(),
+            HtmlUnitOption.HTTP_ARCHIVE_MODE.getCapabilityKey(),
+            HtmlUnitOption.TEMP_FILE_DIRECTORY.getCapabilityKey(),
+            HtmlUnitOption.SSL_CLIENT_CERTIFICATE_STORE.getCapabilityKey(),
+            HtmlUnitOption.SSL_TRUST_STORE.getCapabilityKey()));
+
+    static {
+        final Map<String, Object> defaults = new HashMap<>();
+        defaults.put(HtmlUnitOption.EXECUTOR_MODE.getCapabilityKey(), "shared");
+        defaults.put(HtmlUnitOption.SHARED_SCRIPT_CACHE.getCapabilityKey(), true);
+        NODE_DEFAULT_OPTIONS = Collections.unmodifiableMap(defaults);
+    }
+
+    private final int maxSessions_;
+    private final Duration sessionTimeout_;
+    private final Map<String, NodeSession> sessions_ = new ConcurrentHashMap<>();
+    private final AtomicInteger admitted_ = new AtomicInteger();
+    private final W3cCommands commands_ = new W3cCommands();
+    private final ScheduledExecutorService reaper_;
+    private volatile long sessionMemoryBudget_;
+
+    /**
+     * Creates a node accepting {@value #DEFAULT_SESSIONS_PER_PROCESSOR} sessions per processor
+     * and quitting sessions idle for {@link #DEFAULT_SESSION_TIMEOUT}.
+     */
+    public HtmlUnitNode() {
+        this(DEFAULT_SESSIONS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors(), DEFAULT_SESSION_TIMEOUT);
+    }
+
+    /**
+     * Creates a node.
+     *
+     * @param maxSessions the maximum number of concurrent sessions
+     * @param sessionTimeout the time a session is kept without receiving commands;
+     *        {@link Duration#ZERO} keeps the sessions until deleted
+     */
+    public HtmlUnitNode(final int maxSessions, final Duration sessionTimeout) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive");
+        }
+        maxSessions_ = maxSessions;
+        sessionTimeout_ = sessionTimeout;
+
+        if (sessionTimeout.isZero()) {
+            reaper_ = null;
+        }
+        else {
+            reaper_ = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "HtmlUnitNode-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long period = Math.max(1000, Math.min(sessionTimeout.toMillis() / 4, 30_000));
+            reaper_.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Executes a command of the W3C WebDriver protocol.
+     *
+     * @param method the http method
+     * @param path the path, e.g. {@code /session/1234/url}
+     * @param parameters the parsed body of the request; might be empty
+     * @return the value of the response in the wire format
+     * @throws org.openqa.selenium.WebDriverException if the command fails
+     */
+    public Object execute(final String method, final String path, final Map<String, Object> parameters) {
+        final List<String> segments = new ArrayList<>();
+        for (final String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+
+        if (segments.size() == 1 && "status".equals(segments.get(0)) && "GET".equals(method)) {
+            return getStatus();
+        }
+        if (segments.isEmpty() || !"session".equals(segments.get(0))) {
+            throw new UnsupportedCommandException(method + " " + path);
+        }
+        if (segments.size() == 1 && "POST".equals(method)) {
+            return newSession(parameters);
+        }
+        if (segments.size() == 1) {
+            throw new UnsupportedCommandException(method + " " + path);
+        }
+
+        final String sessionId = segments.get(1);
+        if (segments.size() == 2 && "DELETE".equals(method)) {
+            deleteSession(sessionId);
+            return null;
+        }
+
+        final NodeSession session = sessions_.get(sessionId);
+        if (session == null) {
+            throw new NoSuchSessionException("No active session with id " + sessionId);
+        }
+
+        // the commands of one session are processed one after the other
+        session.commandStarted();
+        try {
+            synchronized (session) {
+                if (sessions_.get(sessionId) != session) {
+                    // evicted while waiting
+                    throw new NoSuchSessionException("No active session with id " + sessionId);
+                }
+                try {
+                    return commands_.execute(session, method, segments.subList(2, segments.size()), parameters);
+                }
+                finally {
+                    if (!session.isActive()) {
+                        // closing the last window quits the driver
+                        remove(session);
+                    }
+                }
+            }
+        }
+        finally {
+            session.commandFinished();
+        }
+    }
+
+    /**
+     * @return the status in the format of the W3C status command
+     */
+    public Map<String, Object> getStatus() {
+        final boolean heapAvailable = isHeapAvailable();
+        final int sessions = getSessionCount();
+
+        final String message;
+        if (!heapAvailable) {
+            message = "HtmlUnit node is low on memory";
+        }
+        else if (sessions >= maxSessions_) {
+            message = "HtmlUnit node is at capacity";
+        }
+        else {
+            message = "HtmlUnit node ready to create new sessions";
+        }
+
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", heapAvailable && sessions < maxSessions_);
+        status.put("message", message);
+        status.put("sessions", sessions);
+        status.put("maxSessions", maxSessions_);
+        return status;
+    }
+
+    /**
+     * @return whether a new session would be admitted right now
+     */
+    public boolean isReady() {
+        return Boolean.TRUE.equals(getStatus().get("ready"));
+    }
+
+    /**
+     * @return the number of active sessions
+     */
+    public int getSessionCount() {
+        return admitted_.get();
+    }
+
+    /**
+     * @return the maximum number of concurrent sessions
+     */
+    public int getMaxSessions() {
+        return maxSessions_;
+    }
+
+    /**
+     * @return the {@link HtmlUnitOption#MEMORY_BUDGET memory budget} of new sessions in bytes;
+     *         {@code 0} if not enforced
+     */
+    public long getSessionMemoryBudget() {
+        return sessionMemoryBudget_;
+    }
+
+    /**
+     * Sets the {@link HtmlUnitOption#MEMORY_BUDGET memory budget} applied to new sessions;
+     * sessions requesting no budget or a larger one get this budget.
+     *
+     * @param sessionMemoryBudget the budget in bytes; {@code 0} to not enforce a budget
+     */
+    public void setSessionMemoryBudget(final long sessionMemoryBudget) {
+        if (sessionMemoryBudget < 0) {
+            throw new IllegalArgumentException("sessionMemoryBudget must not be negative");
+        }
+        sessionMemoryBudget_ = sessionMemoryBudget;
+    }
+
+    /**
+     * Quits all sessions without commands for longer than the session timeout.
+     * Sessions processing a command are never quit.
+     *
+     * @return the number of sessions quit
+     */
+    public int evictIdle() {
+        if (sessionTimeout_.isZero()) {
+            return 0;
+        }
+
+        final long now = System.nanoTime();
+        int evicted = 0;
+        for (final NodeSession session : sessions_.values()) {
+            if (isIdle(session, now)) {
+                // a command might have arrived in between; it waits for the lock and
+                // finds the session removed
+                synchronized (session) {
+                    if (isIdle(session, now) && remove(session)) {
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    private boolean isIdle(final NodeSession session, final long now) {
+        return !session.isBusy() && now - session.getLastUsedNanos() > sessionTimeout_.toNanos();
+    }
+
+    /**
+     * Quits all sessions and stops the eviction of idle sessions.
+     */
+    @Override
+    public void close() {
+        if (reaper_ != null) {
+            reaper_.shutdownNow();
+        }
+        for (final NodeSession session : sessions_.values()) {
+            remove(session);
+        }
+    }
+
+    private Map<String, Object> newSession(final Map<String, Object> parameters) {
+        final Map<String, Object> capabilities = matchCapabilities(parameters);
+
+        if (admitted_.incrementAndGet() > maxSessions_) {
+            admitted_.decrementAndGet();
+            throw new SessionNotCreatedException("HtmlUnit node is at capacity (" + maxSessions_ + " sessions)");
+        }
+        if (!isHeapAvailable()) {
+            admitted_.decrementAndGet();
+            throw new SessionNotCreatedException("HtmlUnit node is low on memory");
+        }
+
+        final HtmlUnitDriver driver;
+        try {
+            driver = new HtmlUnitDriver(new ImmutableCapabilities(capabilities));
+        }
+        catch (final RuntimeException e) {
+            admitted_.decrementAndGet();
+            throw new SessionNotCreatedException(e.getMessage(), e);
+        }
+
+        final NodeSession session = new NodeSession(UUID.randomUUID().toString(), driver);
+        sessions_.put(session.getId(), session);
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionId", session.getId());
+        result.put("capabilities", toJson(driver.getCapabilities().asMap()));
+        return result;
+    }
+
+    /**
+     * The capabilities contain the driver options as they are used by the driver,
+     * e.g. {@link java.io.File}s; all values without a JSON representation are sent as strings.
+     */
+    private static Object toJson(final Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Collection) {
+            final List<Object> result = new ArrayList<>();
+            for (final Object item : (Collection<?>) value) {
+                result.add(toJson(item));
+            }
+            return result;
+        }
+        if (value instanceof Map) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(String.valueOf(entry.getKey()), toJson(entry.getValue()));
+            }
+            return result;
+        }
+        return String.valueOf(value);
+    }
+
+    private void deleteSession(final String sessionId) {
+        final NodeSession session = sessions_.get(sessionId);
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    private boolean remove(final NodeSession session) {
+        if (!sessions_.remove(session.getId(), session)) {
+            return false;
+        }
+        admitted_.decrementAndGet();
+        if (session.isActive()) {
+            session.getDriver().quit();
+        }
+        return true;
+    }
+
+    /**
+     * Processes the capabilities of a new session request: merges {@code alwaysMatch}
+     * with the first {@code firstMatch} entry asking for HtmlUnit and adds the node defaults.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> matchCapabilities(final Map<String, Object> parameters) {
+        final Object capabilities = parameters.get("capabilities");
+        if (capabilities != null && !(capabilities instanceof Map)) {
+            throw new InvalidArgumentException("'capabilities' has to be an object");
+        }
+        final Map<String, Object> request = capabilities == null
+                ? Collections.emptyMap() : (Map<String, Object>) capabilities;
+
+        final Map<String, Object> alwaysMatch = request.get("alwaysMatch") instanceof Map
+                ? (Map<String, Object>) request.get("alwaysMatch") : Collections.emptyMap();
+        final List<Map<String, Object>> firstMatch = request.get("firstMatch") instanceof List
+                ? (List<Map<String, Object>>) request.get("firstMatch") : Arrays.asList(Collections.emptyMap());
+
+        for (final Map<String, Object> candidate : firstMatch) {
+            final Map<String, Object> merged = new HashMap<>(alwaysMatch);
+            merged.putAll(candidate);
+
+            final Object browserName = merged.get(CapabilityType.BROWSER_NAME);
+            if (browserName == null || Browser.HTMLUNIT.is(String.valueOf(browserName))) {
+                rejectHostOptions(merged);
+                final Map<String, Object> options = new HashMap<>(NODE_DEFAULT_OPTIONS);
+                final Object requested = merged.get(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS);
+                if (requested instanceof Map) {
+                    rejectHostOptions((Map<String, Object>) requested);
+                    options.putAll((Map<String, Object>) requested);
+                }
+
+                // the budget of the node is the limit for the budget requested
+                final String budgetKey = HtmlUnitOption.MEMORY_BUDGET.getCapabilityKey();
+                final Object topLevelBudget = merged.remove(budgetKey);
+                final Object requestedBudget = options.containsKey(budgetKey) ? options.get(budgetKey) : topLevelBudget;
+                final long budget = memoryBudget(requestedBudget);
+                if (budget > 0) {
+                    options.put(budgetKey, budget);
+                }
+                else {
+                    options.remove(budgetKey);
+                }
+                merged.put(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, options);
+                return merged;
+            }
+        }
+        throw new SessionNotCreatedException("This node only provides '" + Browser.HTMLUNIT.browserName() + "'");
+    }
+
+    /**
+     * @return the budget of a new session requesting the given budget; {@code 0} if none is enforced
+     */
+    private long memoryBudget(final Object requested) {
+        long budget = 0;
+        if (requested != null) {
+            try {
+                budget = (long) HtmlUnitOption.MEMORY_BUDGET.decode(requested);
+            }
+            catch (final RuntimeException e) {
+                throw new InvalidArgumentException("Invalid memory budget: " + requested);
+            }
+        }
+
+        final long nodeBudget = sessionMemoryBudget_;
+        if (nodeBudget > 0 && (budget <= 0 || budget > nodeBudget)) {
+            return nodeBudget;
+        }
+        return Math.max(budget, 0);
+    }
+
+    private static void rejectHostOptions(final Map<String, Object> options) {
+        for (final String key : options.keySet()) {
+            if (NODE_REJECTED_OPTIONS.contains(key)) {
+                throw new SessionNotCreatedException("The option '" + key + "' is not supported by this node");
+            }
+        }
+    }
+
+    private static boolean isHeapAvailable() {
+        final long max = Runtime.getRuntime().maxMemory();
+        if (max == Long.MAX_VALUE) {
+            return true;
+        }
+
+        long used = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                final MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        return used * 100 < max * MAX_HEAP_USAGE_PERCENT;
+    }
+}
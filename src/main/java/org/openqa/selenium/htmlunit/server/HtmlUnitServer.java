@@ -0,0 +1,257 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openqa.selenium.InvalidArgumentException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.remote.ErrorCodec;
+
+/**
+ * The http endpoint of a {@link HtmlUnitNode}, based on the http server of the JDK.
+ * It speaks the W3C WebDriver protocol, so clients can use a
+ * {@link org.openqa.selenium.remote.RemoteWebDriver} pointing to {@link #getUrl()}.
+ * <p>
+ * To serve HtmlUnit sessions from a Selenium Grid, start the server and register it
+ * with a grid node using the relay feature of the grid, e.g. for a server started
+ * with the default port on the machine of the grid node
+ * <pre><code>
+ * [node]
+ * detect-drivers = false
+ *
+ * [relay]
+ * url = "http://localhost:4446"
+ * status-endpoint = "/status"
+ * configs = ["256", "{\"browserName\": \"htmlunit\"}"]
+ * </code></pre>
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitServer implements Closeable {
+
+    /** The default port; the ports 4442 to 4444 and 5555 are used by the Selenium Grid. */
+    public static final int DEFAULT_PORT = 4446;
+
+    /** The default host; the server is not reachable from other machines by default. */
+    public static final String DEFAULT_HOST = "localhost";
+
+    private static final Log LOG = LogFactory.getLog(HtmlUnitServer.class);
+
+    private final HtmlUnitNode node_;
+    private final HttpServer server_;
+    private final ExecutorService executor_;
+    private final Json json_ = new Json();
+    private final ErrorCodec errorCodec_ = ErrorCodec.createDefault();
+
+    /**
+     * Creates a server listening on the loopback interface; use {@link #start()} to accept requests.
+     *
+     * @param node the node processing the commands
+     * @param port the port; {@code 0} picks a free one
+     * @throws IOException if the port can't be bound
+     */
+    public HtmlUnitServer(final HtmlUnitNode node, final int port) throws IOException {
+        this(node, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Creates a server listening on the given host; use {@link #start()} to accept requests.
+     * The sessions are not secured in any way, pass a host reachable from other machines
+     * only in trusted networks.
+     *
+     * @param node the node processing the commands
+     * @param host the host name or address to bind to; {@code 0.0.0.0} binds to all interfaces
+     * @param port the port; {@code 0} picks a free one
+     * @throws IOException if the port can't be bound
+     */
+    public HtmlUnitServer(final HtmlUnitNode node, final String host, final int port) throws IOException {
+        this(node, new InetSocketAddress(host, port));
+    }
+
+    private HtmlUnitServer(final HtmlUnitNode node, final InetSocketAddress address) throws IOException {
+        if (address.isUnresolved()) {
+            throw new IOException("Unknown host '" + address.getHostString() + "'");
+        }
+
+        node_ = node;
+        server_ = HttpServer.create(address, 0);
+        server_.createContext("/", this::handle);
+
+        // the threads block until the command is done, a bounded pool
+        // would limit the number of sessions processing commands in parallel
+        final AtomicInteger counter = new AtomicInteger();
+        executor_ = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "HtmlUnitServer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server_.setExecutor(executor_);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server_.start();
+    }
+
+    /**
+     * @return the url to pass to the clients
+     */
+    public URI getUrl() {
+        final InetSocketAddress address = server_.getAddress();
+        final InetAddress bound = address.getAddress();
+        final String host = bound.isAnyLocalAddress() || bound.isLoopbackAddress()
+                ? "localhost" : bound.getHostAddress();
+        try {
+            return new URI("http", null, host, address.getPort(), null, null, null);
+        }
+        catch (final URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the node processing the commands
+     */
+    public HtmlUnitNode getNode() {
+        return node_;
+    }
+
+    /**
+     * Stops the server and quits all sessions of the node.
+     */
+    @Override
+    public void close() {
+        server_.stop(0);
+        executor_.shutdownNow();
+        node_.close();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        int status = 200;
+        Object response;
+        try {
+            final Map<String, Object> parameters = parse(exchange.getRequestBody());
+            final Object value = node_.execute(exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath(), parameters);
+            response = Collections.singletonMap("value", value);
+        }
+        catch (final RuntimeException e) {
+            status = errorCodec_.getHttpStatusCode(e);
+            response = errorCodec_.encode(e);
+        }
+
+        final byte[] body = json_.toJson(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", Json.JSON_UTF_8);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Map<String, Object> parse(final InputStream in) throws IOException {
+        final String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        if (body.isBlank()) {
+            return Collections.emptyMap();
+        }
+        try {
+            final Map<String, Object> parameters = json_.toType(body, Json.MAP_TYPE);
+            return parameters == null ? Collections.emptyMap() : parameters;
+        }
+        catch (final JsonException | ClassCastException e) {
+            throw new InvalidArgumentException("Invalid request body: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a server. Supported arguments:
+     * <ul>
+     *   <li>{@code --host <host>}, defaults to {@value #DEFAULT_HOST}; use {@code 0.0.0.0}
+     *       to accept requests from other machines</li>
+     *   <li>{@code --port <port>}, defaults to {@value #DEFAULT_PORT}</li>
+     *   <li>{@code --max-sessions <count>}, defaults to
+     *       {@value HtmlUnitNode#DEFAULT_SESSIONS_PER_PROCESSOR} per processor</li>
+     *   <li>{@code --session-timeout <seconds>}, defaults to five minutes; {@code 0} disables it</li>
+     *   <li>{@code --session-memory-budget <megabytes>}, the memory budget of each session;
+     *       not enforced by default</li>
+     * </ul>
+     *
+     * @param args the arguments
+     * @throws IOException if the port can't be bound
+     */
+    public static void main(final String[] args) throws IOException {
+        String host = DEFAULT_HOST;
+        int port = DEFAULT_PORT;
+        int maxSessions = HtmlUnitNode.DEFAULT_SESSIONS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        Duration sessionTimeout = HtmlUnitNode.DEFAULT_SESSION_TIMEOUT;
+        long sessionMemoryBudget = 0;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[i + 1];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max-sessions":
+                    maxSessions = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--session-timeout":
+                    sessionTimeout = Duration.ofSeconds(Long.parseLong(args[i + 1]));
+                    break;
+                case "--session-memory-budget":
+                    sessionMemoryBudget = Long.parseLong(args[i + 1]) * 1024 * 1024;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument '" + args[i] + "'");
+            }
+        }
+
+        final HtmlUnitNode node = new HtmlUnitNode(maxSessions, sessionTimeout);
+        node.setSessionMemoryBudget(sessionMemoryBudget);
+        final HtmlUnitServer server = new HtmlUnitServer(node, host, port);
+        server.start();
+        if (LOG.isInfoEnabled()) {
+            LOG.info("HtmlUnit node listening on " + server.getUrl() + " (max " + maxSessions + " sessions)");
+        }
+    }
+}
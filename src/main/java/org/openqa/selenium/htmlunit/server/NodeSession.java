@@ -0,0 +1,172 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitWebElement;
+import org.openqa.selenium.remote.Dialect;
+
+/**
+ * One session of a {@link HtmlUnitNode}. The commands of a session are processed one
+ * after the other; the commands of different sessions run in parallel.
+ *
+ * @author agent (agent@local)
+ */
+final class NodeSession {
+
+    /** The key of the web element references in the W3C wire format. */
+    static final String ELEMENT_KEY = Dialect.W3C.getEncodedElementKey();
+
+    private final String id_;
+    private final HtmlUnitDriver driver_;
+    private volatile long lastUsedNanos_;
+    private final AtomicInteger commands_ = new AtomicInteger();
+
+    NodeSession(final String id, final HtmlUnitDriver driver) {
+        id_ = id;
+        driver_ = driver;
+        lastUsedNanos_ = System.nanoTime();
+    }
+
+    /**
+     * @return the session id
+     */
+    String getId() {
+        return id_;
+    }
+
+    /**
+     * @return the driver
+     */
+    HtmlUnitDriver getDriver() {
+        return driver_;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} of the end of the last command
+     */
+    long getLastUsedNanos() {
+        return lastUsedNanos_;
+    }
+
+    /**
+     * Marks the session as used right now.
+     */
+    void touch() {
+        lastUsedNanos_ = System.nanoTime();
+    }
+
+    /**
+     * Marks the start of a command; the command might still wait for the one in progress.
+     */
+    void commandStarted() {
+        commands_.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a command.
+     */
+    void commandFinished() {
+        commands_.decrementAndGet();
+        touch();
+    }
+
+    /**
+     * @return whether a command is running or waiting to run
+     */
+    boolean isBusy() {
+        return commands_.get() > 0;
+    }
+
+    /**
+     * @return whether the driver is still open; closing the last window quits the driver
+     */
+    boolean isActive() {
+        try {
+            driver_.getWebClient();
+            return true;
+        }
+        catch (final NoSuchSessionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the web element references of the wire format by the elements of the driver.
+     *
+     * @param value the value parsed from the request
+     * @return the value to pass to the driver
+     */
+    Object decode(final Object value) {
+        if (value instanceof List) {
+            final List<Object> result = new ArrayList<>();
+            for (final Object item : (List<?>) value) {
+                result.add(decode(item));
+            }
+            return result;
+        }
+        if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            final Object elementId = map.get(ELEMENT_KEY);
+            if (elementId != null && map.size() == 1) {
+                return driver_.toWebElement(String.valueOf(elementId));
+            }
+
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                result.put(String.valueOf(entry.getKey()), decode(entry.getValue()));
+            }
+            return result;
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the elements of the driver by web element references of the wire format.
+     *
+     * @param value the value returned by the driver
+     * @return the value to send
+     */
+    Object encode(final Object value) {
+        if (value instanceof HtmlUnitWebElement) {
+            return Map.of(ELEMENT_KEY, String.valueOf(((HtmlUnitWebElement) value).getId()));
+        }
+        if (value instanceof List) {
+            final List<Object> result = new ArrayList<>();
+            for (final Object item : (List<?>) value) {
+                result.add(encode(item));
+            }
+            return result;
+        }
+        if (value instanceof Map) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(String.valueOf(entry.getKey()), encode(entry.getValue()));
+            }
+            return result;
+        }
+        return value;
+    }
+}
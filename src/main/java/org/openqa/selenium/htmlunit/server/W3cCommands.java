@@ -0,0 +1,398 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.InvalidArgumentException;
+import org.openqa.selenium.NoSuchCookieException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * The commands of the <a href="https://www.w3.org/TR/webdriver/">W3C WebDriver protocol</a>
+ * working on an existing session, mapped to the {@link HtmlUnitDriver} API.
+ * Creating and deleting sessions is done by the {@link HtmlUnitNode} itself.
+ *
+ * @author agent (agent@local)
+ */
+final class W3cCommands {
+
+    private final List<Route> routes_ = new ArrayList<>();
+
+    W3cCommands() {
+        // navigation
+        add("POST", "url", (s, v, p) -> {
+            s.getDriver().get(string(p, "url"));
+            return null;
+        });
+        add("GET", "url", (s, v, p) -> s.getDriver().getCurrentUrl());
+        add("POST", "back", (s, v, p) -> {
+            s.getDriver().navigate().back();
+            return null;
+        });
+        add("POST", "forward", (s, v, p) -> {
+            s.getDriver().navigate().forward();
+            return null;
+        });
+        add("POST", "refresh", (s, v, p) -> {
+            s.getDriver().navigate().refresh();
+            return null;
+        });
+        add("GET", "title", (s, v, p) -> s.getDriver().getTitle());
+        add("GET", "source", (s, v, p) -> s.getDriver().getPageSource());
+
+        // timeouts
+        add("GET", "timeouts", (s, v, p) -> timeouts(s.getDriver()));
+        add("POST", "timeouts", (s, v, p) -> {
+            final WebDriver.Timeouts timeouts = s.getDriver().manage().timeouts();
+            if (p.get("implicit") != null) {
+                timeouts.implicitlyWait(Duration.ofMillis(number(p, "implicit").longValue()));
+            }
+            if (p.get("pageLoad") != null) {
+                timeouts.pageLoadTimeout(Duration.ofMillis(number(p, "pageLoad").longValue()));
+            }
+            if (p.get("script") != null) {
+                timeouts.scriptTimeout(Duration.ofMillis(number(p, "script").longValue()));
+            }
+            return null;
+        });
+
+        // windows and frames
+        add("GET", "window", (s, v, p) -> s.getDriver().getWindowHandle());
+        add("POST", "window", (s, v, p) -> {
+            s.getDriver().switchTo().window(string(p, "handle"));
+            return null;
+        });
+        add("DELETE", "window", (s, v, p) -> {
+            final List<String> handles = new ArrayList<>(s.getDriver().getWindowHandles());
+            handles.remove(s.getDriver().getWindowHandle());
+            s.getDriver().close();
+            return handles;
+        });
+        add("GET", "window/handles", (s, v, p) -> new ArrayList<>(s.getDriver().getWindowHandles()));
+        add("GET", "window/rect", (s, v, p) -> rect(s.getDriver()));
+        add("POST", "window/rect", (s, v, p) -> {
+            final WebDriver.Window window = s.getDriver().manage().window();
+            if (p.get("width") != null && p.get("height") != null) {
+                window.setSize(new Dimension(number(p, "width").intValue(), number(p, "height").intValue()));
+            }
+            if (p.get("x") != null && p.get("y") != null) {
+                window.setPosition(new Point(number(p, "x").intValue(), number(p, "y").intValue()));
+            }
+            return rect(s.getDriver());
+        });
+        add("POST", "frame", (s, v, p) -> {
+            final Object frame = s.decode(p.get("id"));
+            if (frame == null) {
+                s.getDriver().switchTo().defaultContent();
+            }
+            else if (frame instanceof Number) {
+                s.getDriver().switchTo().frame(((Number) frame).intValue());
+            }
+            else if (frame instanceof WebElement) {
+                s.getDriver().switchTo().frame((WebElement) frame);
+            }
+            else {
+                throw new InvalidArgumentException("Invalid frame id: " + frame);
+            }
+            return null;
+        });
+        add("POST", "frame/parent", (s, v, p) -> {
+            s.getDriver().switchTo().parentFrame();
+            return null;
+        });
+
+        // elements
+        add("POST", "element", (s, v, p) -> s.getDriver().findElement(by(p)));
+        add("POST", "elements", (s, v, p) -> s.getDriver().findElements(by(p)));
+        add("GET", "element/active", (s, v, p) -> s.getDriver().switchTo().activeElement());
+        add("POST", "element/{elementId}/element", (s, v, p) -> element(s, v).findElement(by(p)));
+        add("POST", "element/{elementId}/elements", (s, v, p) -> element(s, v).findElements(by(p)));
+        add("GET", "element/{elementId}/selected", (s, v, p) -> element(s, v).isSelected());
+        add("GET", "element/{elementId}/enabled", (s, v, p) -> element(s, v).isEnabled());
+        add("GET", "element/{elementId}/displayed", (s, v, p) -> element(s, v).isDisplayed());
+        add("GET", "element/{elementId}/attribute/{name}",
+            (s, v, p) -> element(s, v).getDomAttribute(v.get("name")));
+        add("GET", "element/{elementId}/property/{name}",
+            (s, v, p) -> element(s, v).getDomProperty(v.get("name")));
+        add("GET", "element/{elementId}/css/{name}", (s, v, p) -> element(s, v).getCssValue(v.get("name")));
+        add("GET", "element/{elementId}/text", (s, v, p) -> element(s, v).getText());
+        add("GET", "element/{elementId}/name", (s, v, p) -> element(s, v).getTagName());
+        add("GET", "element/{elementId}/rect", (s, v, p) -> {
+            final Rectangle rect = element(s, v).getRect();
+            return rect(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+        });
+        add("POST", "element/{elementId}/click", (s, v, p) -> {
+            element(s, v).click();
+            return null;
+        });
+        add("POST", "element/{elementId}/clear", (s, v, p) -> {
+            element(s, v).clear();
+            return null;
+        });
+        add("POST", "element/{elementId}/value", (s, v, p) -> {
+            element(s, v).sendKeys(string(p, "text"));
+            return null;
+        });
+
+        // scripts
+        add("POST", "execute/sync", (s, v, p) -> s.getDriver().executeScript(string(p, "script"), args(s, p)));
+        add("POST", "execute/async",
+            (s, v, p) -> s.getDriver().executeAsyncScript(string(p, "script"), args(s, p)));
+
+        // cookies
+        add("GET", "cookie", (s, v, p) -> {
+            final List<Object> cookies = new ArrayList<>();
+            for (final Cookie cookie : s.getDriver().manage().getCookies()) {
+                cookies.add(cookie.toJson());
+            }
+            return cookies;
+        });
+        add("GET", "cookie/{name}", (s, v, p) -> {
+            final Cookie cookie = s.getDriver().manage().getCookieNamed(v.get("name"));
+            if (cookie == null) {
+                throw new NoSuchCookieException("No cookie named '" + v.get("name") + "'");
+            }
+            return cookie.toJson();
+        });
+        add("POST", "cookie", (s, v, p) -> {
+            s.getDriver().manage().addCookie(cookie(p.get("cookie")));
+            return null;
+        });
+        add("DELETE", "cookie/{name}", (s, v, p) -> {
+            s.getDriver().manage().deleteCookieNamed(v.get("name"));
+            return null;
+        });
+        add("DELETE", "cookie", (s, v, p) -> {
+            s.getDriver().manage().deleteAllCookies();
+            return null;
+        });
+
+        // actions
+        add("POST", "actions", (s, v, p) -> {
+            s.getDriver().performActions(actions(s.decode(p.get("actions"))));
+            return null;
+        });
+        add("DELETE", "actions", (s, v, p) -> {
+            s.getDriver().resetInputState();
+            return null;
+        });
+
+        // user prompts
+        add("POST", "alert/dismiss", (s, v, p) -> {
+            s.getDriver().switchTo().alert().dismiss();
+            return null;
+        });
+        add("POST", "alert/accept", (s, v, p) -> {
+            s.getDriver().switchTo().alert().accept();
+            return null;
+        });
+        add("GET", "alert/text", (s, v, p) -> s.getDriver().switchTo().alert().getText());
+        add("POST", "alert/text", (s, v, p) -> {
+            s.getDriver().switchTo().alert().sendKeys(string(p, "text"));
+            return null;
+        });
+    }
+
+    /**
+     * Executes the command.
+     *
+     * @param session the session
+     * @param method the http method
+     * @param path the path segments following the session id
+     * @param parameters the parameters
+     * @return the result in the wire format
+     * @throws UnsupportedCommandException if there is no such command
+     */
+    Object execute(final NodeSession session, final String method, final List<String> path,
+            final Map<String, Object> parameters) {
+        for (final Route route : routes_) {
+            final Map<String, String> variables = route.match(method, path);
+            if (variables != null) {
+                return session.encode(route.command_.execute(session, variables, parameters));
+            }
+        }
+        throw new UnsupportedCommandException(method + " /session/{sessionId}/" + String.join("/", path));
+    }
+
+    private void add(final String method, final String template, final Command command) {
+        routes_.add(new Route(method, template, command));
+    }
+
+    private static WebElement element(final NodeSession session, final Map<String, String> variables) {
+        return session.getDriver().toWebElement(variables.get("elementId"));
+    }
+
+    private static By by(final Map<String, Object> parameters) {
+        final String value = string(parameters, "value");
+        final String using = string(parameters, "using");
+        switch (using) {
+            case "css selector":
+                return By.cssSelector(value);
+            case "link text":
+                return By.linkText(value);
+            case "partial link text":
+                return By.partialLinkText(value);
+            case "tag name":
+                return By.tagName(value);
+            case "xpath":
+                return By.xpath(value);
+            default:
+                throw new InvalidArgumentException("Unsupported locator strategy: " + using);
+        }
+    }
+
+    private static Object[] args(final NodeSession session, final Map<String, Object> parameters) {
+        final Object args = session.decode(parameters.get("args"));
+        if (args == null) {
+            return new Object[0];
+        }
+        if (!(args instanceof List)) {
+            throw new InvalidArgumentException("'args' has to be an array");
+        }
+        return ((List<?>) args).toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> actions(final Object actions) {
+        if (!(actions instanceof List)) {
+            throw new InvalidArgumentException("'actions' has to be an array");
+        }
+        return (List<Map<String, Object>>) actions;
+    }
+
+    private static Cookie cookie(final Object value) {
+        if (!(value instanceof Map)) {
+            throw new InvalidArgumentException("'cookie' has to be an object");
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> cookie = (Map<String, Object>) value;
+
+        final Cookie.Builder builder = new Cookie.Builder(string(cookie, "name"), string(cookie, "value"));
+        if (cookie.get("path") != null) {
+            builder.path(string(cookie, "path"));
+        }
+        if (cookie.get("domain") != null) {
+            builder.domain(string(cookie, "domain"));
+        }
+        if (cookie.get("expiry") != null) {
+            builder.expiresOn(new Date(number(cookie, "expiry").longValue() * 1000));
+        }
+        if (cookie.get("sameSite") != null) {
+            builder.sameSite(string(cookie, "sameSite"));
+        }
+        return builder.isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+                .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")))
+                .build();
+    }
+
+    private static Map<String, Object> timeouts(final WebDriver driver) {
+        final WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        final Map<String, Object> result = new HashMap<>();
+        result.put("implicit", timeouts.getImplicitWaitTimeout().toMillis());
+        result.put("pageLoad", timeouts.getPageLoadTimeout().toMillis());
+        result.put("script", timeouts.getScriptTimeout().toMillis());
+        return result;
+    }
+
+    private static Map<String, Object> rect(final WebDriver driver) {
+        final WebDriver.Window window = driver.manage().window();
+        final Point position = window.getPosition();
+        final Dimension size = window.getSize();
+        return rect(position.getX(), position.getY(), size.getWidth(), size.getHeight());
+    }
+
+    private static Map<String, Object> rect(final int x, final int y, final int width, final int height) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("x", x);
+        result.put("y", y);
+        result.put("width", width);
+        result.put("height", height);
+        return result;
+    }
+
+    private static String string(final Map<String, Object> parameters, final String name) {
+        final Object value = parameters.get(name);
+        if (!(value instanceof String)) {
+            throw new InvalidArgumentException("'" + name + "' has to be a string");
+        }
+        return (String) value;
+    }
+
+    private static Number number(final Map<String, Object> parameters, final String name) {
+        final Object value = parameters.get(name);
+        if (!(value instanceof Number)) {
+            throw new InvalidArgumentException("'" + name + "' has to be a number");
+        }
+        return (Number) value;
+    }
+
+    /**
+     * A command working on a session.
+     */
+    private interface Command {
+        Object execute(NodeSession session, Map<String, String> variables, Map<String, Object> parameters);
+    }
+
+    /**
+     * Maps a http method and a path template like {@code element/{elementId}/click} to a command.
+     */
+    private static final class Route {
+        private final String method_;
+        private final String[] template_;
+        private final Command command_;
+
+        Route(final String method, final String template, final Command command) {
+            method_ = method;
+            template_ = template.split("/");
+            command_ = command;
+        }
+
+        Map<String, String> match(final String method, final List<String> path) {
+            if (!method_.equals(method) || template_.length != path.size()) {
+                return null;
+            }
+
+            final Map<String, String> variables = new HashMap<>();
+            for (int i = 0; i < template_.length; i++) {
+                final String segment = template_[i];
+                if (segment.startsWith("{")) {
+                    variables.put(segment.substring(1, segment.length() - 1), path.get(i));
+                }
+                else if (!segment.equals(path.get(i))) {
+                    return null;
+                }
+            }
+            return variables;
+        }
+    }
+}
@@ -52,14 +52,31 @@ private Algorithms() {
      */
     public static List<List<Action>> extractActionSequence(
             final Collection<Sequence> sequences /* InputState inputState, parameters */) {
+        final List<Map<String, Object>> actionSequences = new ArrayList<>(sequences.size());
+        for (final Sequence sequence : sequences) {
+            actionSequences.add(sequence.encode());
+        }
+        return extractEncodedActionSequence(actionSequences);
+    }
+
+    /**
+     * @see <a href=
+     *      "https://www.w3.org/TR/webdriver/#dfn-extract-an-action-sequence">extract
+     *      an action sequence</a>
+     *
+     * @param actionSequences the sequences in the wire format; element origins have
+     *        to be resolved to {@link HtmlUnitWebElement}s already
+     * @return actions by tick
+     */
+    public static List<List<Action>> extractEncodedActionSequence(
+            final List<Map<String, Object>> actionSequences /* InputState inputState */) {
 
         // Let actions by tick be an empty List.
         final List<List<Action>> actionsByTick = new ArrayList<>();
 
         // For each value action sequence corresponding to an indexed property in
         // actions:
-        for (final Sequence sequence : sequences) {
-            final Map<String, Object> actionSequence = sequence.encode();
+        for (final Map<String, Object> actionSequence : actionSequences) {
 
             // Let source actions be the result of trying to process an input source action
             // sequence given input state and action sequence.
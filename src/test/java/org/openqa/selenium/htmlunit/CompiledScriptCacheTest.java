@@ -0,0 +1,114 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.ScriptException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CompiledScriptCache}.
+ *
+ * @author agent (agent@local)
+ */
+public class CompiledScriptCacheTest {
+
+    private static final String TITLE_SCRIPT = "return document.title + arguments[0];";
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        CompiledScriptCache.clear();
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        driver_.get("data:text/html,<html><head><title>first</title></head><body></body></html>");
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+        CompiledScriptCache.setMaxSize(CompiledScriptCache.DEFAULT_MAX_SIZE);
+        CompiledScriptCache.clear();
+    }
+
+    @Test
+    public void compiledOncePerBrowserVersion() {
+        assertEquals("first1", driver_.executeScript(TITLE_SCRIPT, 1));
+        assertEquals("first2", driver_.executeScript(TITLE_SCRIPT, 2));
+
+        // the cached script is evaluated in the scope of the current page
+        driver_.get("data:text/html,<html><head><title>second</title></head><body></body></html>");
+        assertEquals("second3", driver_.executeScript(TITLE_SCRIPT, 3));
+
+        final HtmlUnitDriver other = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        try {
+            other.get("data:text/html,<html><head><title>other</title></head><body></body></html>");
+            assertEquals("other4", other.executeScript(TITLE_SCRIPT, 4));
+        }
+        finally {
+            other.quit();
+        }
+
+        assertEquals(1, CompiledScriptCache.getMissCount());
+        assertEquals(3, CompiledScriptCache.getHitCount());
+        assertEquals(1, CompiledScriptCache.getSize());
+    }
+
+    @Test
+    public void asyncHarnessCompiledOnce() {
+        final String script = "arguments[arguments.length - 1](document.title + arguments[0]);";
+        assertEquals("first1", driver_.executeAsyncScript(script, 1));
+        assertEquals("first2", driver_.executeAsyncScript(script, 2));
+
+        // the harness and the user function
+        assertEquals(2, CompiledScriptCache.getMissCount());
+        assertEquals(2, CompiledScriptCache.getHitCount());
+
+        assertEquals("first3", driver_.executeAsyncScript("arguments[1](document.title + arguments[0]);", 3));
+        assertEquals(3, CompiledScriptCache.getMissCount());
+        assertEquals(3, CompiledScriptCache.getHitCount());
+    }
+
+    @Test
+    public void syntaxErrorIsNotCached() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                driver_.executeScript("return 1 +;");
+                fail("ScriptException expected");
+            }
+            catch (final ScriptException e) {
+                // expected
+            }
+        }
+        assertEquals(0, CompiledScriptCache.getSize());
+    }
+
+    @Test
+    public void disabled() {
+        CompiledScriptCache.setMaxSize(0);
+        assertEquals("first1", driver_.executeScript(TITLE_SCRIPT, 1));
+        assertEquals("first2", driver_.executeScript(TITLE_SCRIPT, 2));
+        assertEquals(0, CompiledScriptCache.getSize());
+        assertEquals(0, CompiledScriptCache.getHitCount());
+    }
+}
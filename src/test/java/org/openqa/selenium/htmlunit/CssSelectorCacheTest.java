@@ -0,0 +1,98 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+
+/**
+ * Tests for {@link CssSelectorCache}.
+ *
+ * @author agent (agent@local)
+ */
+public class CssSelectorCacheTest {
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        CssSelectorCache.clear();
+        driver_ = new HtmlUnitDriver();
+        driver_.get("data:text/html,<html><body>"
+                + "<div id='a' class='item'></div><div id='b' class='item'><span class='item'></span></div>"
+                + "</body></html>");
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+        CssSelectorCache.setMaxSize(CssSelectorCache.DEFAULT_MAX_SIZE);
+        CssSelectorCache.clear();
+    }
+
+    @Test
+    public void repeatedLookupsAreCached() {
+        assertEquals(3, driver_.findElements(By.cssSelector(".item")).size());
+        assertEquals(0, CssSelectorCache.getHitCount());
+        assertEquals(1, CssSelectorCache.getMissCount());
+
+        // By.className uses the same selector
+        assertEquals(3, driver_.findElements(By.className("item")).size());
+        assertEquals("a", driver_.findElement(By.cssSelector(".item")).getAttribute("id"));
+        assertEquals("SPAN", driver_.findElement(By.id("b")).findElement(By.cssSelector(".item")).getTagName()
+                .toUpperCase());
+
+        assertEquals(3, CssSelectorCache.getHitCount());
+        assertEquals(1, CssSelectorCache.getMissCount());
+        assertEquals(1, CssSelectorCache.getSize());
+    }
+
+    @Test
+    public void invalidSelectorIsNotCached() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                driver_.findElements(By.cssSelector("div["));
+                fail("NoSuchElementException expected");
+            }
+            catch (final NoSuchElementException e) {
+                // expected
+            }
+        }
+        assertEquals(0, CssSelectorCache.getSize());
+        assertEquals(2, CssSelectorCache.getMissCount());
+    }
+
+    @Test
+    public void disabled() {
+        driver_.findElements(By.cssSelector("div"));
+        assertEquals(1, CssSelectorCache.getSize());
+
+        CssSelectorCache.setMaxSize(0);
+        assertEquals(0, CssSelectorCache.getSize());
+
+        assertEquals(2, driver_.findElements(By.cssSelector("div")).size());
+        assertEquals(0, CssSelectorCache.getSize());
+        assertEquals(0, CssSelectorCache.getHitCount());
+    }
+}
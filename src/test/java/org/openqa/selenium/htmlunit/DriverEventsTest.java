@@ -0,0 +1,146 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+/**
+ * Tests for {@link DriverEvents}.
+ *
+ * @author agent (agent@local)
+ */
+public class DriverEventsTest {
+
+    private static final String PAGE = "data:text/html,<html><body>"
+            + "<div class='item'>one</div><div class='item'>two</div>"
+            + "<button id='b' onclick='alert(\"hello\")'>go</button>"
+            + "</body></html>";
+
+    @Test
+    public void events() throws Exception {
+        final List<RecordedEvent> events = record(driver -> {
+            driver.get(PAGE);
+            driver.findElements(By.cssSelector(".item"));
+            driver.executeScript("return arguments[0];", "x");
+            driver.findElement(By.id("b")).click();
+            driver.switchTo().alert().accept();
+
+            driver.manage().timeouts().implicitlyWait(Duration.ofMillis(100));
+            driver.findElements(By.id("missing"));
+        });
+
+        // the first navigation loads the initial blank page
+        final List<RecordedEvent> navigations = of(events, "Navigation");
+        final RecordedEvent navigation = navigations.get(navigations.size() - 1);
+        assertEquals(PAGE, navigation.getString("url"));
+        assertEquals(200, navigation.getInt("statusCode"));
+
+        final RecordedEvent locate = events.stream()
+                .filter(e -> e.getEventType().getName().endsWith(".Locate"))
+                .filter(e -> "ByCssSelector".equals(e.getString("locatorType")))
+                .findFirst().get();
+        assertEquals("By.cssSelector: .item", locate.getString("selector"));
+        assertEquals(2, locate.getInt("resultCount"));
+        assertEquals(PAGE, locate.getString("url"));
+
+        final RecordedEvent script = single(events, "ExecuteScript");
+        assertFalse(script.getBoolean("async"));
+        assertEquals("return arguments[0];", script.getString("script"));
+        assertEquals(1, script.getInt("argumentCount"));
+
+        final RecordedEvent dialog = single(events, "Dialog");
+        assertEquals("alert", dialog.getString("type"));
+        assertEquals("hello", dialog.getString("message"));
+        assertTrue(dialog.getBoolean("accepted"));
+
+        final RecordedEvent implicitWait = single(events, "ImplicitWait");
+        assertEquals(100, implicitWait.getDuration("timeout").toMillis());
+        assertFalse(implicitWait.getBoolean("found"));
+        assertTrue(implicitWait.getInt("attempts") > 0);
+
+        final List<String> commands = events.stream()
+                .filter(e -> e.getEventType().getName().endsWith(".Command"))
+                .map(e -> e.getString("command"))
+                .collect(Collectors.toList());
+        assertTrue(commands.toString(), commands.contains("get"));
+        assertTrue(commands.toString(), commands.contains("executeScript"));
+        assertTrue(commands.toString(), commands.contains("element.click"));
+
+        assertFalse(of(events, "AsyncTask").isEmpty());
+    }
+
+    private static List<RecordedEvent> record(final DriverAction action) throws Exception {
+        final Path file = Files.createTempFile("htmlunit-driver", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                for (final String name : new String[] {"Command", "AsyncTask", "Navigation", "Locate",
+                    "ExecuteScript", "ImplicitWait", "Dialog"}) {
+                    recording.enable("org.openqa.selenium.htmlunit." + name).withoutThreshold();
+                }
+                recording.start();
+
+                final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+                try {
+                    action.run(driver);
+                }
+                finally {
+                    driver.quit();
+                }
+
+                recording.stop();
+                recording.dump(file);
+            }
+            return RecordingFile.readAllEvents(file);
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> of(final List<RecordedEvent> events, final String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.openqa.selenium.htmlunit." + name))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(final List<RecordedEvent> events, final String name) {
+        final List<RecordedEvent> found = of(events, name);
+        assertEquals(name, 1, found.size());
+        return found.get(0);
+    }
+
+    private interface DriverAction {
+        void run(HtmlUnitDriver driver) throws Exception;
+    }
+}
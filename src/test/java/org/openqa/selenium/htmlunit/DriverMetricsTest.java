@@ -0,0 +1,120 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.htmlunit.metrics.DriverMetricsSnapshot;
+import org.openqa.selenium.htmlunit.metrics.InMemoryDriverMetrics;
+import org.openqa.selenium.htmlunit.metrics.NoOpDriverMetrics;
+
+/**
+ * Tests for {@link HtmlUnitDriver#setMetrics(org.openqa.selenium.htmlunit.metrics.DriverMetrics)}.
+ *
+ * @author agent (agent@local)
+ */
+public class DriverMetricsTest {
+
+    private static final String PAGE = "data:text/html,<html><body>"
+            + "<div class='item'>one</div><div class='item'>two</div>"
+            + "<button id='b' onclick='window.setTimeout(function() { document.title = \"done\"; }, 200);'>go</button>"
+            + "</body></html>";
+
+    @Test
+    public void noOpByDefault() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        try {
+            assertSame(NoOpDriverMetrics.INSTANCE, driver.getMetrics());
+            driver.setMetrics(new InMemoryDriverMetrics());
+            driver.setMetrics(null);
+            assertSame(NoOpDriverMetrics.INSTANCE, driver.getMetrics());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void commands() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        driver.setMetrics(metrics);
+        try {
+            driver.get(PAGE);
+            driver.findElements(By.cssSelector(".item"));
+            driver.findElements(By.cssSelector(".item"));
+            driver.findElement(By.id("b")).getText();
+            driver.executeScript("return 1;");
+            try {
+                driver.findElement(By.id("missing"));
+                fail("NoSuchElementException expected");
+            }
+            catch (final NoSuchElementException e) {
+                // expected
+            }
+
+            final DriverMetricsSnapshot snapshot = metrics.snapshot();
+            assertEquals(1, snapshot.getCommands().get("get").getCount());
+            assertEquals(2, snapshot.getCommands().get("findElements").getCount());
+            assertEquals(2, snapshot.getCommands().get("findElement").getCount());
+            assertEquals(1, snapshot.getCommands().get("findElement").getFailures());
+            assertEquals(1, snapshot.getCommands().get("element.getText").getCount());
+            assertEquals(1, snapshot.getCommands().get("executeScript").getCount());
+            assertEquals(2, snapshot.getCommands().get("locate.ByCssSelector").getCount());
+
+            final DriverMetricsSnapshot.CacheSnapshot css = snapshot.getCaches().get("cssSelector");
+            assertNotNull(snapshot.getCaches().keySet().toString(), css);
+            assertTrue(css.getHits() > 0);
+            assertTrue(snapshot.export().containsKey("command.get.latency.p99"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void waitIsSeparated() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        driver.setMetrics(metrics);
+        try {
+            driver.get(PAGE);
+            driver.findElement(By.id("b")).click();
+            assertTrue(driver.waitForIdle(Duration.ofSeconds(10)));
+            assertEquals("done", driver.getTitle());
+
+            final DriverMetricsSnapshot.CommandSnapshot waitForIdle =
+                    metrics.snapshot().getCommands().get("waitForIdle");
+            assertEquals(1, waitForIdle.getCount());
+            assertTrue(waitForIdle.getWaitNanos() > waitForIdle.getWorkNanos());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Tests for {@link HtmlUnitDriver.ElementsMap}.
+ *
+ * @author agent (agent@local)
+ */
+public class ElementsMapTest {
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, false);
+        driver_.get("data:text/html,<html><body>"
+                + "<p>one</p><p>two</p><p>three</p><p>four</p>"
+                + "</body></html>");
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    @Test
+    public void sameWrapperForSameElement() {
+        final List<WebElement> first = driver_.findElements(By.tagName("p"));
+        final List<WebElement> second = driver_.findElements(By.tagName("p"));
+        for (int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+
+            final String id = Integer.toString(((HtmlUnitWebElement) first.get(i)).getId());
+            assertSame(first.get(i), driver_.toWebElement(id));
+        }
+        assertEquals(4, driver_.getElementsMap().size());
+
+        assertThrows(StaleElementReferenceException.class, () -> driver_.toWebElement("unknown"));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        driver_.getElementsMap().setMaxSize(3);
+
+        final List<WebElement> paragraphs = driver_.findElements(By.tagName("p"));
+        // the elements are wrapped on first access
+        for (final WebElement paragraph : paragraphs) {
+            assertEquals("p", paragraph.getTagName());
+        }
+        assertEquals(3, driver_.getElementsMap().size());
+
+        // the first one was evicted; the id is unknown but the wrapper still works
+        final HtmlUnitWebElement evicted = (HtmlUnitWebElement) paragraphs.get(0);
+        assertThrows(StaleElementReferenceException.class,
+            () -> driver_.toWebElement(Integer.toString(evicted.getId())));
+        assertEquals("one", evicted.getText());
+
+        // finding it again creates a new wrapper
+        final HtmlUnitWebElement found = (HtmlUnitWebElement) driver_.findElement(By.tagName("p"));
+        assertNotEquals(evicted.getId(), found.getId());
+        assertEquals(evicted, found);
+        assertEquals(3, driver_.getElementsMap().size());
+    }
+
+    @Test
+    public void wrappedOnFirstAccess() {
+        final List<WebElement> paragraphs = driver_.findElements(By.tagName("p"));
+        assertEquals(4, paragraphs.size());
+        assertEquals(0, driver_.getElementsMap().size());
+
+        assertEquals("two", paragraphs.get(1).getText());
+        assertEquals(1, driver_.getElementsMap().size());
+
+        assertEquals(4, driver_.countElements(By.tagName("p")));
+        assertEquals(0, driver_.countElements(By.tagName("div")));
+        assertEquals(1, driver_.getElementsMap().size());
+    }
+
+    @Test
+    public void notWrappedAfterNavigation() {
+        final List<WebElement> paragraphs = driver_.findElements(By.tagName("p"));
+        assertEquals("one", paragraphs.get(0).getText());
+        assertEquals(1, driver_.getElementsMap().size());
+
+        driver_.get("data:text/html,<html><body><p>other</p></body></html>");
+        assertEquals(0, driver_.getElementsMap().size());
+
+        // the page is gone; wrapping the element would keep it in the map
+        assertThrows(StaleElementReferenceException.class, () -> paragraphs.get(1));
+        assertEquals(0, driver_.getElementsMap().size());
+    }
+}
@@ -0,0 +1,108 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Tests for {@link HtmlUnitDriver#findAll(Map)}.
+ *
+ * @author agent (agent@local)
+ */
+public class FindAllTest {
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, false);
+        driver_.get("data:text/html,<html><body>"
+                + "<form id='login'>"
+                + "<input id='user' name='user' class='field'>"
+                + "<input id='pwd' name='pwd' class='field secret'>"
+                + "<button>Go</button>"
+                + "</form>"
+                + "<a href='%23'>Help</a>"
+                + "</body></html>");
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    @Test
+    public void sameAsFindElements() {
+        final Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("user", By.id("user"));
+        locators.put("pwd", By.name("pwd"));
+        locators.put("inputs", By.tagName("input"));
+        locators.put("fields", By.className("field"));
+        locators.put("secret", By.cssSelector("form input.secret"));
+        locators.put("help", By.linkText("Help"));
+        locators.put("button", By.xpath("//button"));
+        locators.put("missing", By.id("missing"));
+
+        final Map<String, List<WebElement>> found = driver_.findAll(locators);
+        assertEquals(new ArrayList<>(locators.keySet()), new ArrayList<>(found.keySet()));
+        for (final Map.Entry<String, By> entry : locators.entrySet()) {
+            assertEquals(entry.getKey(), driver_.findElements(entry.getValue()), found.get(entry.getKey()));
+        }
+        assertEquals(2, found.get("inputs").size());
+        assertTrue(found.get("missing").isEmpty());
+    }
+
+    @Test
+    public void elementScoped() {
+        final HtmlUnitWebElement form = (HtmlUnitWebElement) driver_.findElement(By.id("login"));
+
+        final Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("form", By.id("login"));
+        locators.put("inputs", By.cssSelector("input"));
+        locators.put("help", By.tagName("a"));
+
+        final Map<String, List<WebElement>> found = driver_.findAll(form, locators);
+        assertTrue(found.get("form").isEmpty());
+        assertEquals(form.findElements(By.cssSelector("input")), found.get("inputs"));
+        assertTrue(found.get("help").isEmpty());
+    }
+
+    @Test
+    public void errorsAreReported() {
+        final Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("user", By.id("user"));
+        locators.put("invalid", By.xpath("//["));
+
+        assertThrows(InvalidSelectorException.class, () -> driver_.findAll(locators));
+    }
+}
@@ -0,0 +1,159 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+
+import org.apache.http.auth.AuthScope;
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.DefaultCredentialsProvider;
+import org.junit.Test;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for {@link HtmlUnitDriverPool}.
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitDriverPoolTest {
+
+    @Test
+    public void reuseReleasedDriver() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+            final HtmlUnitDriver driver = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX, true));
+            driver.get("about:blank");
+            driver.switchTo().newWindow(WindowType.WINDOW);
+            assertEquals(2, driver.getWindowHandles().size());
+            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(3));
+            pool.release(driver);
+
+            final HtmlUnitDriver reused = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX, true));
+            assertSame(driver, reused);
+            assertEquals(1, reused.getWindowHandles().size());
+            assertEquals(Duration.ZERO, reused.manage().timeouts().getImplicitWaitTimeout());
+            assertEquals("about:blank", reused.getCurrentUrl());
+
+            assertEquals(2, pool.getBorrowCount());
+            assertEquals(1, pool.getCreatedCount());
+            pool.release(reused);
+        }
+    }
+
+    @Test
+    public void releaseClearsStorageAndCredentials() {
+        final String page = "data:text/html,<html><body>storage</body></html>";
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+            final HtmlUnitDriver driver = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX, true));
+            driver.get(page);
+            driver.executeScript("localStorage.setItem('token', 'secret');");
+            assertEquals("secret", driver.executeScript("return localStorage.getItem('token');"));
+            ((DefaultCredentialsProvider) driver.getWebClient().getCredentialsProvider()).addCredentials("user",
+                    "password".toCharArray());
+            pool.release(driver);
+
+            final HtmlUnitDriver reused = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX, true));
+            assertSame(driver, reused);
+            reused.get(page);
+            assertNull(reused.executeScript("return localStorage.getItem('token');"));
+            assertNull(reused.getWebClient().getCredentialsProvider().getCredentials(AuthScope.ANY));
+            pool.release(reused);
+        }
+    }
+
+    @Test
+    public void differentCapabilities() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+            final HtmlUnitDriver chrome = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.CHROME));
+            pool.release(chrome);
+
+            final HtmlUnitDriver firefox = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX));
+            assertNotSame(chrome, firefox);
+            assertEquals(BrowserVersion.FIREFOX, firefox.getBrowserVersion());
+            pool.release(firefox);
+
+            assertEquals(2, pool.getIdleCount());
+        }
+    }
+
+    @Test
+    public void exhausted() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(1, 1, Duration.ofMinutes(1), Duration.ofMillis(50))) {
+            final HtmlUnitDriver driver = pool.borrow(new HtmlUnitDriverOptions());
+            try {
+                pool.borrow(new HtmlUnitDriverOptions());
+                fail("WebDriverException expected");
+            }
+            catch (final WebDriverException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Timed out waiting for a pooled driver"));
+            }
+            pool.release(driver);
+        }
+    }
+
+    @Test
+    public void exhaustedEvictsIdleOfOtherKey() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(1, 1, Duration.ofMinutes(1), Duration.ofMillis(50))) {
+            final HtmlUnitDriver chrome = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.CHROME));
+            pool.release(chrome);
+
+            final HtmlUnitDriver firefox = pool.borrow(new HtmlUnitDriverOptions(BrowserVersion.FIREFOX));
+            assertEquals(BrowserVersion.FIREFOX, firefox.getBrowserVersion());
+            assertEquals(1, pool.getEvictedCount());
+            assertEquals(1, pool.getTotalCount());
+            pool.release(firefox);
+        }
+    }
+
+    @Test
+    public void quitDriverIsNotReused() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+            final HtmlUnitDriver driver = pool.borrow(new HtmlUnitDriverOptions());
+            driver.quit();
+            pool.release(driver);
+
+            assertEquals(0, pool.getTotalCount());
+            assertNotSame(driver, pool.borrow(new HtmlUnitDriverOptions()));
+        }
+    }
+
+    @Test
+    public void evictIdle() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool(2, 2, Duration.ZERO, Duration.ofSeconds(1))) {
+            pool.release(pool.borrow(new HtmlUnitDriverOptions()));
+            assertEquals(1, pool.evictIdle());
+            assertEquals(0, pool.getTotalCount());
+            assertEquals(1, pool.getEvictedCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void releaseUnknownDriver() {
+        try (HtmlUnitDriverPool pool = new HtmlUnitDriverPool()) {
+            pool.release(new HtmlUnitDriver());
+        }
+    }
+}
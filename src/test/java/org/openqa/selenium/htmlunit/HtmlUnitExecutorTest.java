@@ -17,7 +17,17 @@
 
 package org.openqa.selenium.htmlunit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.htmlunit.BrowserVersion;
 import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
 
 /**
  * Executor tests.
@@ -42,4 +52,71 @@ public void testExecutorImmediate() {
         driver.runAsync(() -> {
         });
     }
+
+    @Test
+    public void sharedExecutorMode() {
+        verifyExecutorMode("shared");
+    }
+
+    @Test
+    public void sharedExecutorGrowsOnDemand() throws Exception {
+        // long running commands of many sessions must not delay each other
+        final int tasks = 64;
+        final CountDownLatch started = new CountDownLatch(tasks);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Executor executor = HtmlUnitExecutors.getExecutor(HtmlUnitExecutors.SHARED);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void virtualExecutorMode() {
+        // falls back to the shared executor on runtimes without virtual threads
+        verifyExecutorMode("virtual");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedExecutorMode() {
+        new HtmlUnitDriver(new HtmlUnitDriverOptions().setExecutorMode("unknown"));
+    }
+
+    private static void verifyExecutorMode(final String executorMode) {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(
+                new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true).setExecutorMode(executorMode));
+        try {
+            driver.get("data:text/html,<html><body>"
+                    + "<button id='b' onclick='document.title = confirm(\"hello\")'>confirm</button>"
+                    + "<input id='i'></body></html>");
+
+            // the alert hands the control back while the command waits on the executor thread
+            driver.findElement(By.id("b")).click();
+            assertEquals("hello", driver.switchTo().alert().getText());
+            driver.switchTo().alert().accept();
+
+            // waits until the click is done
+            driver.findElement(By.id("i")).sendKeys("x");
+            assertEquals("true", driver.getTitle());
+
+            assertEquals("done", driver.executeAsyncScript(
+                    "var callback = arguments[0]; window.setTimeout(function() { callback('done'); }, 10);"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
 }
@@ -17,9 +17,15 @@
 
 package org.openqa.selenium.htmlunit;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.htmlunit.junit.BrowserRunner;
@@ -139,4 +145,66 @@ public void memoryLeak() throws Exception {
             }
         }
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void rect() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body>\n"
+                + "<div id='tester' style='position: absolute; left: 10px; top: 20px; width: 30px; height: 40px'>"
+                + "</div>\n"
+                + "</body></html>";
+        final WebDriver webDriver = loadPage2(html);
+        final WebElement div = webDriver.findElement(By.id("tester"));
+
+        assertEquals(new Point(10, 20), div.getLocation());
+        assertEquals(new Dimension(30, 40), div.getSize());
+        assertEquals(new Rectangle(10, 20, 40, 30), div.getRect());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void rectOfUnsizedElements() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body>\n"
+                + "<div id='block'>some text</div>\n"
+                + "<span id='inline'>abc</span>\n"
+                + "</body></html>";
+        final WebDriver webDriver = loadPage2(html);
+
+        final WebElement div = webDriver.findElement(By.id("block"));
+        // the resolved layout values, not the (missing) declared ones
+        assertEquals(new Dimension(1256, 18), div.getSize());
+        assertEquals(new Rectangle(div.getLocation(), div.getSize()), div.getRect());
+
+        final WebElement span = webDriver.findElement(By.id("inline"));
+        assertEquals(new Dimension(1256, 18), span.getSize());
+        assertEquals(new Rectangle(span.getLocation(), span.getSize()), span.getRect());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void staleAfterAncestorRemoved() throws Exception {
+        final String html = "<html><head></head>\n"
+                + "<body>\n"
+                + "<div id='outer'><div><span id='tester'>abc</span></div></div>\n"
+                + "<p id='other'>xyz</p>\n"
+                + "</body></html>";
+        final WebDriver webDriver = loadPage2(html);
+        final WebElement span = webDriver.findElement(By.id("tester"));
+        assertEquals("abc", span.getText());
+
+        // removing some other node does not make the element stale
+        ((JavascriptExecutor) webDriver).executeScript("document.getElementById('other').remove();");
+        assertEquals("abc", span.getText());
+
+        ((JavascriptExecutor) webDriver).executeScript("document.getElementById('outer').remove();");
+        Assert.assertThrows(StaleElementReferenceException.class, () -> span.getText());
+    }
 }
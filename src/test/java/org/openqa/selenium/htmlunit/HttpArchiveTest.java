@@ -0,0 +1,108 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.net.URL;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.WebClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for the record and replay modes of the http archive.
+ *
+ * @author agent (agent@local)
+ */
+public class HttpArchiveTest {
+
+    private static final String URL = "http://localhost:12345/";
+
+    private File archive_;
+
+    @Before
+    public void setUp() throws Exception {
+        archive_ = File.createTempFile("huArchive", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        archive_.delete();
+    }
+
+    @Test
+    public void recordAndReplay() throws Exception {
+        final MockWebConnection recorded = new MockWebConnection();
+        recorded.setResponse(new URL(URL), "<html><head><title>recorded</title>"
+                + "<script src='app.js'></script></head><body></body></html>");
+        recorded.setResponse(new URL(URL + "app.js"), "document.title += ' script';", "text/javascript");
+
+        HtmlUnitDriver driver = newDriver("record", recorded);
+        try {
+            driver.get(URL);
+            assertEquals("recorded script", driver.getTitle());
+            assertEquals(2, recorded.getRequestCount());
+        }
+        finally {
+            driver.quit();
+        }
+
+        // the responses of the connection are not used any longer
+        final MockWebConnection changed = new MockWebConnection();
+        changed.setDefaultResponse("<html><head><title>live</title></head></html>");
+
+        driver = newDriver("replay", changed);
+        try {
+            driver.get(URL);
+            assertEquals("recorded script", driver.getTitle());
+
+            driver.get(URL + "unknown");
+            assertEquals(404, driver.getWebClient().getCurrentWindow().getEnclosedPage()
+                    .getWebResponse().getStatusCode());
+            assertEquals(0, changed.getRequestCount());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedMode() {
+        newDriver("unknown", new MockWebConnection());
+    }
+
+    private HtmlUnitDriver newDriver(final String mode, final MockWebConnection connection) {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true)
+                .setHttpArchiveMode(mode)
+                .setHttpArchive(archive_);
+        return new HtmlUnitDriver(options) {
+            @Override
+            protected WebClient newWebClient(final BrowserVersion version) {
+                final WebClient client = super.newWebClient(version);
+                client.setWebConnection(connection);
+                return client;
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Tests for the implicit wait.
+ *
+ * @author agent (agent@local)
+ */
+public class ImplicitWaitTest {
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        driver_ = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        driver_.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    @Test
+    public void elementAddedLater() {
+        driver_.get("data:text/html,<html><body><script>"
+                + "window.setTimeout(function() {"
+                + "  var div = document.createElement('div'); div.id = 'later'; document.body.appendChild(div);"
+                + "}, 300);"
+                + "</script></body></html>");
+
+        final long start = System.currentTimeMillis();
+        assertEquals("later", driver_.findElement(By.id("later")).getAttribute("id"));
+        // found right after the change, not at the next recheck
+        assertTrue(System.currentTimeMillis() - start < DomChangeWaiter.RECHECK_INTERVAL);
+    }
+
+    @Test
+    public void attributeChangedLater() {
+        driver_.get("data:text/html,<html><body><div id='d'></div><script>"
+                + "window.setTimeout(function() { document.getElementById('d').className = 'done'; }, 300);"
+                + "</script></body></html>");
+
+        assertEquals(1, driver_.findElements(By.className("done")).size());
+    }
+
+    @Test
+    public void elementScopedAddedLater() {
+        driver_.get("data:text/html,<html><body><div id='parent'></div><script>"
+                + "window.setTimeout(function() {"
+                + "  document.getElementById('parent').innerHTML = '<span>child</span>';"
+                + "}, 300);"
+                + "</script></body></html>");
+
+        final WebElement parent = driver_.findElement(By.id("parent"));
+        assertEquals("child", parent.findElement(By.tagName("span")).getText());
+    }
+
+    @Test
+    public void notFound() {
+        driver_.get("data:text/html,<html><body></body></html>");
+        driver_.manage().timeouts().implicitlyWait(Duration.ofMillis(300));
+
+        final long start = System.currentTimeMillis();
+        assertTrue(driver_.findElements(By.id("missing")).isEmpty());
+        try {
+            driver_.findElement(By.id("missing"));
+            fail("NoSuchElementException expected");
+        }
+        catch (final NoSuchElementException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - start >= 600);
+    }
+}
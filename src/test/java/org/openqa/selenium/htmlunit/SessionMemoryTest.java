@@ -0,0 +1,205 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URL;
+import java.util.Collections;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.WebClient;
+import org.htmlunit.util.NameValuePair;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for {@link HtmlUnitDriver#getMemoryUsage()} and the
+ * {@link org.openqa.selenium.htmlunit.options.HtmlUnitOption#MEMORY_BUDGET memory budget}.
+ *
+ * @author agent (agent@local)
+ */
+public class SessionMemoryTest {
+
+    private static final String URL = "http://localhost:12345/";
+
+    private static final String SMALL_PAGE = "data:text/html,<html><head><title>small</title></head>"
+            + "<body><p id='p'>small</p></body></html>";
+
+    private static final String LARGE_PAGE = "data:text/html,<html><head><title>large</title></head><body>"
+            + "<script>for (var i = 0; i < 2000; i++) {"
+            + "  var d = document.createElement('div'); d.className = 'item'; d.textContent = 'item ' + i;"
+            + "  document.body.appendChild(d); }</script>"
+            + "</body></html>";
+
+    @Test
+    public void usage() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(new HtmlUnitDriverOptions().setJavaScriptEnabled(true));
+        try {
+            driver.get(SMALL_PAGE);
+            final SessionMemoryUsage small = driver.getMemoryUsage();
+            assertTrue(small.getDomBytes() > 0);
+            assertEquals(0, small.getElementsMapBytes());
+            assertEquals(0, small.getBudget());
+            assertFalse(small.isOverBudget());
+
+            driver.get(LARGE_PAGE);
+            final SessionMemoryUsage large = driver.getMemoryUsage();
+            assertTrue(large.getDomBytes() > small.getDomBytes() + 2000 * 300);
+            // one more history entry
+            assertTrue(small.getHistoryBytes() > 0);
+            assertTrue(large.getHistoryBytes() > small.getHistoryBytes());
+
+            // the wrappers of the lazy list are created on access
+            for (final WebElement element : driver.findElements(By.className("item"))) {
+                element.getTagName();
+            }
+            final SessionMemoryUsage wrapped = driver.getMemoryUsage();
+            assertTrue(wrapped.getElementsMapBytes() >= 2000 * 100);
+            assertEquals(wrapped.getDomBytes() + wrapped.getElementsMapBytes() + wrapped.getHistoryBytes()
+                    + wrapped.getCacheBytes(), wrapped.getTotalBytes());
+            assertEquals(wrapped.getTotalBytes(), wrapped.export().get("memory.total"));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void trim() throws Exception {
+        final MockWebConnection connection = new MockWebConnection();
+        final StringBuilder scripts = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            connection.setResponse(new URL(URL + "app" + i + ".js"), "var app" + i + " = " + i + ";", 200, "OK",
+                    "text/javascript", Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600")));
+            scripts.append("<script src='app").append(i).append(".js'></script>");
+        }
+        connection.setResponse(new URL(URL), "<html><head><title>scripts</title>" + scripts + "</head></html>");
+        connection.setResponse(new URL(URL + "small"), "<html><head><title>small</title></head></html>");
+
+        // the page fits, the page together with the cached scripts does not
+        final HtmlUnitDriver driver = new HtmlUnitDriver(new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true)
+                .setMemoryBudget(100_000)) {
+            @Override
+            protected WebClient newWebClient(final BrowserVersion version) {
+                final WebClient client = super.newWebClient(version);
+                client.setWebConnection(connection);
+                return client;
+            }
+        };
+        try {
+            driver.get(URL);
+            assertEquals("scripts", driver.getTitle());
+            assertEquals(0, driver.getWebClient().getCache().getSize());
+
+            // the history entries are still there
+            driver.get(URL + "small");
+            driver.navigate().back();
+            assertEquals("scripts", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void checkThrottled() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(new HtmlUnitDriverOptions()
+                .setJavaScriptEnabled(true).setMemoryBudget(100_000));
+        try {
+            driver.get(SMALL_PAGE);
+
+            // growing the page by a script is detected with one of the next checks
+            try {
+                driver.executeScript("for (var i = 0; i < 2000; i++) {"
+                        + "  var d = document.createElement('div'); d.textContent = 'item ' + i;"
+                        + "  document.body.appendChild(d); }");
+                for (int i = 0; i < 20; i++) {
+                    driver.executeScript("return 1;");
+                }
+                fail("WebDriverException expected");
+            }
+            catch (final WebDriverException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("exceeded its memory budget"));
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void overBudget() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(new HtmlUnitDriverOptions()
+                .setJavaScriptEnabled(true).setMemoryBudget(100_000));
+        try {
+            driver.get(SMALL_PAGE);
+            assertEquals("small", driver.getTitle());
+
+            try {
+                driver.get(LARGE_PAGE);
+                fail("WebDriverException expected");
+            }
+            catch (final WebDriverException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("exceeded its memory budget"));
+            }
+
+            try {
+                driver.getTitle();
+                fail("NoSuchSessionException expected");
+            }
+            catch (final NoSuchSessionException e) {
+                // expected
+            }
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void otherSessionsUnaffected() {
+        final HtmlUnitDriver limited = new HtmlUnitDriver(new HtmlUnitDriverOptions()
+                .setJavaScriptEnabled(true).setMemoryBudget(100_000));
+        final HtmlUnitDriver unlimited = new HtmlUnitDriver(new HtmlUnitDriverOptions().setJavaScriptEnabled(true));
+        try {
+            unlimited.get(LARGE_PAGE);
+            try {
+                limited.executeScript("document.location = arguments[0];", LARGE_PAGE);
+                limited.findElement(By.tagName("p"));
+                fail("WebDriverException expected");
+            }
+            catch (final WebDriverException e) {
+                // expected
+            }
+            assertEquals("large", unlimited.getTitle());
+        }
+        finally {
+            limited.quit();
+            unlimited.quit();
+        }
+    }
+}
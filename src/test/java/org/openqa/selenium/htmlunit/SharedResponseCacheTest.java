@@ -0,0 +1,211 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.WebClient;
+import org.htmlunit.util.Cookie;
+import org.htmlunit.util.NameValuePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for {@link SharedResponseCache}.
+ *
+ * @author agent (agent@local)
+ */
+public class SharedResponseCacheTest {
+
+    private static final String URL = "http://localhost:12345/";
+    private static final String SCRIPT = "document.title += ' script';";
+
+    @Before
+    public void setUp() {
+        SharedResponseCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        SharedResponseCache.setMaxSizeInBytes(SharedResponseCache.DEFAULT_MAX_SIZE_IN_BYTES);
+        SharedResponseCache.setOffHeap(false);
+        SharedResponseCache.clear();
+    }
+
+    @Test
+    public void sharedBetweenDrivers() throws Exception {
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600"));
+        assertEquals(2, load("on", headers));
+        assertEquals(1, load("on", headers));
+
+        assertEquals(1, SharedResponseCache.getSize());
+        assertEquals(1, SharedResponseCache.getHitCount());
+        assertEquals(SCRIPT.getBytes(StandardCharsets.UTF_8).length, SharedResponseCache.getBytesServed());
+        assertTrue(SharedResponseCache.getHitRatio() > 0);
+        assertTrue(SharedResponseCache.getSizeInBytes() > SCRIPT.length());
+    }
+
+    @Test
+    public void offHeap() throws Exception {
+        SharedResponseCache.setOffHeap(true);
+
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600"));
+        assertEquals(2, load("on", headers));
+        assertEquals(1, load("on", headers));
+        assertEquals(1, SharedResponseCache.getHitCount());
+    }
+
+    @Test
+    public void respectCacheHeaders() throws Exception {
+        assertEquals(2, load("on", Collections.emptyList()));
+        assertEquals(2, load("on", Collections.emptyList()));
+
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600, private"));
+        assertEquals(2, load("on", headers));
+        assertEquals(2, load("on", headers));
+
+        assertEquals(0, SharedResponseCache.getSize());
+        assertEquals(0, SharedResponseCache.getHitCount());
+    }
+
+    @Test
+    public void immutable() throws Exception {
+        assertEquals(2, load("immutable", Collections.emptyList()));
+        assertEquals(1, load("immutable", Collections.emptyList()));
+
+        // no-store is still respected
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "no-store"));
+        SharedResponseCache.clear();
+        assertEquals(2, load("immutable", headers));
+        assertEquals(2, load("immutable", headers));
+    }
+
+    @Test
+    public void maxSizeInBytes() throws Exception {
+        SharedResponseCache.setMaxSizeInBytes(10);
+
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600"));
+        assertEquals(2, load("on", headers));
+        assertEquals(2, load("on", headers));
+        assertEquals(0, SharedResponseCache.getSize());
+        assertEquals(0, SharedResponseCache.getSizeInBytes());
+    }
+
+    @Test
+    public void notSharedWithCookies() throws Exception {
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600"));
+        assertEquals(2, load("on", headers, "alice"));
+        assertEquals(2, load("on", headers, "bob"));
+        assertEquals(2, load("immutable", headers, "alice"));
+        assertEquals(2, load("immutable", headers, "bob"));
+
+        assertEquals(0, SharedResponseCache.getSize());
+        assertEquals(0, SharedResponseCache.getHitCount());
+    }
+
+    @Test
+    public void documentsNotShared() throws Exception {
+        final List<NameValuePair> headers =
+                Collections.singletonList(new NameValuePair("Cache-Control", "max-age=3600"));
+        for (int i = 0; i < 2; i++) {
+            final MockWebConnection connection = new MockWebConnection();
+            connection.setResponse(new URL(URL), "{\"user\":\"alice\"}", 200, "OK", "application/json", headers);
+
+            final HtmlUnitDriver driver = newDriver("on", connection, null);
+            try {
+                driver.get(URL);
+                assertEquals(1, connection.getRequestCount());
+            }
+            finally {
+                driver.quit();
+            }
+        }
+        assertEquals(0, SharedResponseCache.getSize());
+        assertEquals(0, SharedResponseCache.getHitCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedMode() {
+        newDriver("unknown", new MockWebConnection(), null);
+    }
+
+    /**
+     * Loads the page using a new driver.
+     *
+     * @return the number of requests sent
+     */
+    private static int load(final String mode, final List<NameValuePair> scriptHeaders) throws Exception {
+        return load(mode, scriptHeaders, null);
+    }
+
+    /**
+     * Loads the page using a new driver having the given session cookie.
+     *
+     * @return the number of requests sent
+     */
+    private static int load(final String mode, final List<NameValuePair> scriptHeaders, final String session)
+            throws Exception {
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setResponse(new URL(URL), "<html><head><title>page</title>"
+                + "<script src='app.js'></script></head><body></body></html>");
+        connection.setResponse(new URL(URL + "app.js"), SCRIPT, 200, "OK", "text/javascript", scriptHeaders);
+
+        final HtmlUnitDriver driver = newDriver(mode, connection, session);
+        try {
+            driver.get(URL);
+            assertEquals("page script", driver.getTitle());
+            return connection.getRequestCount();
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    private static HtmlUnitDriver newDriver(final String mode, final MockWebConnection connection,
+            final String session) {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true)
+                .setSharedResponseCache(mode);
+        return new HtmlUnitDriver(options) {
+            @Override
+            protected WebClient newWebClient(final BrowserVersion version) {
+                final WebClient client = super.newWebClient(version);
+                client.setWebConnection(connection);
+                if (session != null) {
+                    client.getCookieManager().addCookie(new Cookie("localhost", "session", session));
+                }
+                return client;
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URL;
+
+import org.htmlunit.BrowserVersion;
+import org.htmlunit.MockWebConnection;
+import org.htmlunit.WebClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for {@link SharedScriptCache}.
+ *
+ * @author agent (agent@local)
+ */
+public class SharedScriptCacheTest {
+
+    private static final String URL = "http://localhost:12345/";
+
+    @Before
+    public void setUp() {
+        SharedScriptCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        SharedScriptCache.setMaxSize(SharedScriptCache.DEFAULT_MAX_SIZE);
+        SharedScriptCache.clear();
+    }
+
+    @Test
+    public void sharedBetweenDrivers() throws Exception {
+        load(true, BrowserVersion.BEST_SUPPORTED);
+        final long compiled = SharedScriptCache.getMissCount();
+        assertEquals(0, SharedScriptCache.getHitCount());
+
+        load(true, BrowserVersion.BEST_SUPPORTED);
+        assertEquals(compiled, SharedScriptCache.getMissCount());
+        assertEquals(compiled, SharedScriptCache.getHitCount());
+    }
+
+    @Test
+    public void perBrowserVersion() throws Exception {
+        load(true, BrowserVersion.FIREFOX);
+        final long compiled = SharedScriptCache.getMissCount();
+
+        load(true, BrowserVersion.CHROME);
+        assertEquals(2 * compiled, SharedScriptCache.getMissCount());
+        assertEquals(0, SharedScriptCache.getHitCount());
+    }
+
+    @Test
+    public void notUsedByDefault() throws Exception {
+        load(false, BrowserVersion.BEST_SUPPORTED);
+        assertEquals(0, SharedScriptCache.getMissCount());
+        assertEquals(0, SharedScriptCache.getSize());
+    }
+
+    @Test
+    public void maxSize() throws Exception {
+        SharedScriptCache.setMaxSize(1);
+
+        load(true, BrowserVersion.BEST_SUPPORTED);
+        assertEquals(1, SharedScriptCache.getSize());
+    }
+
+    private static void load(final boolean sharedScriptCache, final BrowserVersion version) throws Exception {
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setResponse(new URL(URL), "<html><head><title>page</title>"
+                + "<script src='app.js'></script>"
+                + "<script>document.title += ' inline';</script></head><body></body></html>");
+        connection.setResponse(new URL(URL + "app.js"), "document.title += ' script';", "text/javascript");
+
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions(version, true)
+                .setSharedScriptCache(sharedScriptCache);
+        final HtmlUnitDriver driver = new HtmlUnitDriver(options) {
+            @Override
+            protected WebClient newWebClient(final BrowserVersion browserVersion) {
+                final WebClient client = super.newWebClient(browserVersion);
+                client.setWebConnection(connection);
+                return client;
+            }
+        };
+        try {
+            driver.get(URL);
+            assertEquals("page script inline", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
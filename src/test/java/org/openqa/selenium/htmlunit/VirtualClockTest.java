@@ -0,0 +1,124 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for the virtual clock.
+ *
+ * @author agent (agent@local)
+ */
+public class VirtualClockTest {
+
+    /** The real time the tests are allowed to spend on timers of a minute. */
+    private static final long MAX_REAL_MILLIS = 10_000;
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        driver_ = new HtmlUnitDriver(
+                new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true).setVirtualClock(true));
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+    }
+
+    @Test
+    public void implicitWait() {
+        driver_.get("data:text/html,<html><body><script>"
+                + "window.setTimeout(function() {"
+                + "  var p = document.createElement('p'); p.id = 'late'; document.body.appendChild(p);"
+                + "}, 60000);"
+                + "</script></body></html>");
+        driver_.manage().timeouts().implicitlyWait(Duration.ofMinutes(2));
+
+        final long start = System.currentTimeMillis();
+        driver_.findElement(By.id("late"));
+        assertTrue(System.currentTimeMillis() - start < MAX_REAL_MILLIS);
+    }
+
+    @Test
+    public void implicitWaitTimesOut() {
+        driver_.get("data:text/html,<html><body><script>"
+                + "window.setInterval(function() { document.title = document.title + 'x'; }, 1000);"
+                + "</script></body></html>");
+        driver_.manage().timeouts().implicitlyWait(Duration.ofMillis(3500));
+
+        assertTrue(driver_.findElements(By.id("never")).isEmpty());
+        assertEquals("xxx", driver_.getTitle());
+    }
+
+    @Test
+    public void executeAsyncScript() {
+        driver_.get("data:text/html,<html><body></body></html>");
+        driver_.manage().timeouts().scriptTimeout(Duration.ofMinutes(2));
+
+        final long start = System.currentTimeMillis();
+        assertEquals("done", driver_.executeAsyncScript(
+                "var callback = arguments[0]; window.setTimeout(function() { callback('done'); }, 60000);"));
+        assertTrue(System.currentTimeMillis() - start < MAX_REAL_MILLIS);
+    }
+
+    @Test(expected = ScriptTimeoutException.class)
+    public void executeAsyncScriptTimesOut() {
+        driver_.get("data:text/html,<html><body></body></html>");
+        driver_.manage().timeouts().scriptTimeout(Duration.ofMinutes(1));
+
+        driver_.executeAsyncScript(
+                "var callback = arguments[0]; window.setTimeout(function() { callback('done'); }, 120000);");
+    }
+
+    @Test
+    public void advanceTime() {
+        driver_.get("data:text/html,<html><body><script>"
+                + "var count = 0;"
+                + "window.setInterval(function() { count++; }, 1000);"
+                + "window.setTimeout(function() { document.title = count; }, 2500);"
+                + "</script></body></html>");
+
+        driver_.advanceTime(Duration.ofSeconds(5));
+        assertEquals("2", driver_.getTitle());
+        assertEquals(5L, driver_.executeScript("return count;"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void advanceTimeWithoutVirtualClock() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(true);
+        try {
+            driver.advanceTime(Duration.ofSeconds(1));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
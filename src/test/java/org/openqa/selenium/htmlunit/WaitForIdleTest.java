@@ -0,0 +1,91 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.htmlunit.BrowserVersion;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+
+/**
+ * Tests for {@link HtmlUnitDriver#waitForIdle(Duration)}.
+ *
+ * @author agent (agent@local)
+ */
+public class WaitForIdleTest {
+
+    private static final String TIMEOUT_CHAIN = "data:text/html,<html><body>"
+            + "<button id='b' onclick='start()'>start</button><script>"
+            + "function start() {"
+            + "  window.setTimeout(function() {"
+            + "    window.setTimeout(function() { document.title = 'done'; }, 200);"
+            + "  }, 200);"
+            + "}"
+            + "</script></body></html>";
+
+    @Test
+    public void idleAfterTimers() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        try {
+            driver.get(TIMEOUT_CHAIN);
+            driver.executeScript("start();");
+
+            assertTrue(driver.waitForIdle(Duration.ofSeconds(10)));
+            assertEquals("done", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void neverIdle() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+        try {
+            driver.get("data:text/html,<html><body><script>"
+                    + "window.setInterval(function() { document.title = document.title + 'x'; }, 50);"
+                    + "</script></body></html>");
+
+            assertFalse(driver.waitForIdle(Duration.ofMillis(300)));
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void waitAfterClick() {
+        final HtmlUnitDriver driver = new HtmlUnitDriver(
+                new HtmlUnitDriverOptions(BrowserVersion.BEST_SUPPORTED, true).setWaitForIdleTimeout(10_000));
+        try {
+            driver.get(TIMEOUT_CHAIN);
+            driver.findElement(By.id("b")).click();
+
+            assertEquals("done", driver.getTitle());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+}
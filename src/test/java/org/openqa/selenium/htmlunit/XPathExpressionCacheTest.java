@@ -0,0 +1,134 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Tests for {@link XPathExpressionCache}.
+ *
+ * @author agent (agent@local)
+ */
+public class XPathExpressionCacheTest {
+
+    private HtmlUnitDriver driver_;
+
+    @Before
+    public void setUp() {
+        XPathExpressionCache.clear();
+        driver_ = new HtmlUnitDriver();
+        driver_.get("data:text/html,<html><body>"
+                + "<div id='a' name='n'></div>"
+                + "<div id='b'><span id='x' name='n'></span><span id='x'></span><span id=\"q'q\"></span></div>"
+                + "</body></html>");
+    }
+
+    @After
+    public void tearDown() {
+        driver_.quit();
+        XPathExpressionCache.setMaxSize(XPathExpressionCache.DEFAULT_MAX_SIZE);
+        XPathExpressionCache.clear();
+    }
+
+    @Test
+    public void repeatedLookupsAreCached() {
+        assertEquals(2, driver_.findElements(By.xpath("//div")).size());
+        assertEquals(0, XPathExpressionCache.getHitCount());
+        assertEquals(1, XPathExpressionCache.getMissCount());
+
+        assertEquals("a", driver_.findElement(By.xpath("//div")).getAttribute("id"));
+        assertEquals("b", driver_.findElements(By.xpath("//div")).get(1).getAttribute("id"));
+
+        assertEquals(2, XPathExpressionCache.getHitCount());
+        assertEquals(1, XPathExpressionCache.getMissCount());
+        assertEquals(1, XPathExpressionCache.getSize());
+    }
+
+    @Test
+    public void elementScoped() {
+        final WebElement b = driver_.findElement(By.id("b"));
+        assertEquals(3, b.findElements(By.xpath(".//span")).size());
+        assertEquals("x", b.findElement(By.xpath(".//span")).getAttribute("id"));
+        assertEquals(1, XPathExpressionCache.getHitCount());
+    }
+
+    @Test
+    public void invalidExpressionIsNotCached() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                driver_.findElements(By.xpath("//div["));
+                fail("InvalidSelectorException expected");
+            }
+            catch (final InvalidSelectorException e) {
+                // expected
+            }
+        }
+        assertEquals(0, XPathExpressionCache.getSize());
+    }
+
+    @Test
+    public void prefixedExpressionIsNotCached() {
+        assertEquals(2, driver_.findElements(By.xpath("//child::div")).size());
+        assertEquals(1, XPathExpressionCache.getSize());
+
+        try {
+            driver_.findElements(By.xpath("//foo:div"));
+            fail("InvalidSelectorException expected");
+        }
+        catch (final InvalidSelectorException e) {
+            // expected
+        }
+        assertEquals(1, XPathExpressionCache.getSize());
+    }
+
+    @Test
+    public void disabled() {
+        XPathExpressionCache.setMaxSize(0);
+        assertEquals(2, driver_.findElements(By.xpath("//div")).size());
+        assertEquals(2, driver_.findElements(By.xpath("//div")).size());
+        assertEquals(0, XPathExpressionCache.getSize());
+        assertEquals(0, XPathExpressionCache.getHitCount());
+    }
+
+    @Test
+    public void elementScopedIdAndNameDoNotUseXPath() {
+        final WebElement b = driver_.findElement(By.id("b"));
+        assertEquals(2, b.findElements(By.id("x")).size());
+        assertEquals("n", b.findElement(By.id("x")).getAttribute("name"));
+        assertEquals(1, b.findElements(By.name("n")).size());
+        assertEquals("SPAN", b.findElement(By.id("q'q")).getTagName().toUpperCase());
+        assertEquals(0, b.findElements(By.id("a")).size());
+        try {
+            b.findElement(By.id("a"));
+            fail("NoSuchElementException expected");
+        }
+        catch (final NoSuchElementException e) {
+            // expected
+        }
+        assertEquals(0, XPathExpressionCache.getMissCount());
+    }
+}
@@ -22,6 +22,7 @@
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.htmlunit.WebDriverTestCase;
@@ -180,4 +181,26 @@ public void missingHref() throws Exception {
         final WebElement elem = body.findElement(By.linkText("Link 1"));
         assertEquals("Link 1", elem.getText());
     }
+
+    @Test
+    public void textChangedByScript() throws Exception {
+        final String html = "<html>\n"
+                        + "<head>\n"
+                        + "</head>\n"
+                        + "<body>\n"
+                        + "  <a id='testId'>TestA</a>\n"
+                        + "</body>\n"
+                        + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+        assertEquals(1, driver.findElements(By.linkText("TestA")).size());
+
+        ((JavascriptExecutor) driver).executeScript("document.getElementById('testId').firstChild.data = 'TestB';");
+        assertEquals(0, driver.findElements(By.linkText("TestA")).size());
+        assertEquals(1, driver.findElements(By.linkText("TestB")).size());
+
+        ((JavascriptExecutor) driver).executeScript(
+                "var a = document.createElement('a'); a.textContent = 'TestB'; document.body.appendChild(a);");
+        assertEquals(2, driver.findElements(By.linkText("TestB")).size());
+    }
 }
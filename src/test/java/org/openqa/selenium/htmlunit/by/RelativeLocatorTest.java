@@ -17,11 +17,13 @@
 
 package org.openqa.selenium.htmlunit.by;
 
+import static org.junit.Assert.fail;
 import static org.openqa.selenium.By.cssSelector;
 import static org.openqa.selenium.By.tagName;
 import static org.openqa.selenium.By.xpath;
 import static org.openqa.selenium.support.locators.RelativeLocator.with;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -293,6 +295,46 @@ public void ensureNoRepeatedElements() throws Exception {
         assertEquals(a, cells.get(1));
     }
 
+    @Test
+    public void elementScoped() throws Exception {
+        final String html = "<html>\n"
+                + "<head>\n"
+                + "  <style>\n"
+                + "    .c {\n"
+                + "      position: absolute;\n"
+                + "      height: 20px;\n"
+                + "      width: 20px;\n"
+                + "    }\n"
+                + "  </style>\n"
+                + "</head>\n"
+                + "<body>\n"
+                + "  <div id='anchor' class='c' style='left:0;top:0;'></div>\n"
+                + "  <div id='inside'>\n"
+                + "    <div id='a' class='c' style='left:0;top:100;'></div>\n"
+                + "    <div id='b' class='c' style='left:0;top:50;'></div>\n"
+                + "  </div>\n"
+                + "  <div id='outside' class='c' style='left:0;top:200;'></div>\n"
+                + "</body>\n"
+                + "</html>\n";
+
+        final WebDriver driver = loadPage2(html);
+
+        final WebElement inside = driver.findElement(By.id("inside"));
+        final List<WebElement> below = inside.findElements(with(tagName("div")).below(By.id("anchor")));
+        final List<String> ids = below.stream().map(e -> e.getAttribute("id")).collect(Collectors.toList());
+        assertEquals(Arrays.asList("b", "a"), ids);
+
+        assertEquals("b", inside.findElement(with(tagName("div")).below(By.id("anchor"))).getAttribute("id"));
+
+        try {
+            inside.findElement(with(tagName("div")).above(By.id("anchor")));
+            fail("NoSuchElementException expected");
+        }
+        catch (final NoSuchElementException e) {
+            assertTrue(e.getMessage().contains("Cannot locate an element using"));
+        }
+    }
+
     @Test
     public void nearLocatorShouldFindNearElements() throws Exception {
         final String html = getFileContent("relative_locators.html");
@@ -0,0 +1,94 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link InMemoryDriverMetrics}.
+ *
+ * @author agent (agent@local)
+ */
+public class InMemoryDriverMetricsTest {
+
+    @Test
+    public void commands() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        metrics.commandCompleted("get", 100, 50, false);
+        metrics.commandCompleted("get", 200, 0, true);
+        metrics.commandCompleted("findElement", 10, 0, false);
+
+        final DriverMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals("[findElement, get]", snapshot.getCommands().keySet().toString());
+
+        final DriverMetricsSnapshot.CommandSnapshot get = snapshot.getCommands().get("get");
+        assertEquals(2, get.getCount());
+        assertEquals(1, get.getFailures());
+        assertEquals(300, get.getWorkNanos());
+        assertEquals(50, get.getWaitNanos());
+        assertEquals(200, get.getLatency().getMax());
+    }
+
+    @Test
+    public void caches() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        metrics.cacheAccessed("xpath", true);
+        metrics.cacheAccessed("xpath", true);
+        metrics.cacheAccessed("xpath", true);
+        metrics.cacheAccessed("xpath", false);
+
+        final DriverMetricsSnapshot.CacheSnapshot xpath = metrics.snapshot().getCaches().get("xpath");
+        assertEquals(3, xpath.getHits());
+        assertEquals(1, xpath.getMisses());
+        assertEquals(0.75, xpath.getHitRatio(), 0);
+    }
+
+    @Test
+    public void snapshotIsDetached() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        metrics.commandCompleted("get", 100, 0, false);
+        final DriverMetricsSnapshot snapshot = metrics.snapshot();
+        metrics.commandCompleted("get", 100, 0, false);
+        metrics.reset();
+
+        assertEquals(1, snapshot.getCommands().get("get").getCount());
+        assertTrue(metrics.snapshot().getCommands().isEmpty());
+    }
+
+    @Test
+    public void export() {
+        final InMemoryDriverMetrics metrics = new InMemoryDriverMetrics();
+        metrics.commandCompleted("get", 1000, 0, false);
+        metrics.cacheAccessed("cssSelector", false);
+
+        final Map<String, Number> values = metrics.snapshot().export();
+        assertEquals(1L, values.get("command.get.count"));
+        assertEquals(0L, values.get("command.get.failures"));
+        assertEquals(1000L, values.get("command.get.latency.max"));
+        assertEquals(1000L, values.get("command.get.work"));
+        assertEquals(0L, values.get("command.get.wait"));
+        assertEquals(0L, values.get("cache.cssSelector.hits"));
+        assertEquals(1L, values.get("cache.cssSelector.misses"));
+        assertEquals(0.0, values.get("cache.cssSelector.hitRatio"));
+    }
+}
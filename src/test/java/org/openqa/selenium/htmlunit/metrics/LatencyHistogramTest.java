@@ -0,0 +1,96 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ *
+ * @author agent (agent@local)
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 0.001);
+        assertWithinBucket(500_000, histogram.getValueAtPercentile(50));
+        assertWithinBucket(900_000, histogram.getValueAtPercentile(90));
+        assertWithinBucket(990_000, histogram.getValueAtPercentile(99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100), 1_000_000 / LatencyHistogram.SUB_BUCKETS);
+    }
+
+    @Test
+    public void buckets() {
+        for (long value = 0; value < 100_000; value++) {
+            final long lowerBound = LatencyHistogram.lowerBoundOf(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " -> " + lowerBound, lowerBound <= value);
+            assertTrue(value + " -> " + lowerBound, value - lowerBound <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertTrue(LatencyHistogram.bucketOf(Long.MAX_VALUE) < (64 - 4) * LatencyHistogram.SUB_BUCKETS);
+    }
+
+    @Test
+    public void negative() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void copy() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        final LatencyHistogram copy = histogram.copy();
+        histogram.record(20);
+
+        assertEquals(1, copy.getCount());
+        assertEquals(10, copy.getMax());
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+
+    private static void assertWithinBucket(final long expected, final long actual) {
+        assertTrue(expected + " vs. " + actual, actual <= expected);
+        assertTrue(expected + " vs. " + actual, expected - actual <= expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
@@ -18,6 +18,8 @@
 package org.openqa.selenium.htmlunit.options;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.openqa.selenium.htmlunit.options.BrowserVersionTraitNames.optSystemTimezone;
 import static org.openqa.selenium.htmlunit.options.HtmlUnitOption.HOME_PAGE;
 import static org.openqa.selenium.htmlunit.options.HtmlUnitOption.PRINT_CONTENT_ON_FAILING_STATUS_CODE;
@@ -81,6 +83,78 @@ public void verifyEncodeAndDecode() {
         assertEquals("Options object serialize/deserialize mismatch", options, decoded);
     }
 
+    @Test
+    public void verifyExecutorMode() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setExecutorMode("virtual");
+        assertEquals("virtual", options.getCapability(HtmlUnitOptionNames.optExecutorMode));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertEquals("virtual", decoded.getExecutorMode());
+
+        assertEquals("dedicated", new HtmlUnitDriverOptions().getExecutorMode());
+    }
+
+    @Test
+    public void verifyVirtualClock() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setVirtualClock(true);
+        assertEquals(true, options.getCapability(HtmlUnitOptionNames.optVirtualClock));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertTrue(decoded.isVirtualClock());
+
+        assertFalse(new HtmlUnitDriverOptions().isVirtualClock());
+    }
+
+    @Test
+    public void verifyWaitForIdleTimeout() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setWaitForIdleTimeout(5000);
+        assertEquals(5000L, options.getCapability(HtmlUnitOptionNames.optWaitForIdleTimeout));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertEquals(5000L, decoded.getWaitForIdleTimeout());
+
+        assertEquals(0L, new HtmlUnitDriverOptions().getWaitForIdleTimeout());
+    }
+
+    @Test
+    public void verifySharedResponseCache() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setSharedResponseCache("immutable");
+        assertEquals("immutable", options.getCapability(HtmlUnitOptionNames.optSharedResponseCache));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertEquals("immutable", decoded.getSharedResponseCache());
+
+        assertEquals("off", new HtmlUnitDriverOptions().getSharedResponseCache());
+    }
+
+    @Test
+    public void verifySharedScriptCache() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setSharedScriptCache(true);
+        assertEquals(true, options.getCapability(HtmlUnitOptionNames.optSharedScriptCache));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertTrue(decoded.isSharedScriptCache());
+
+        assertFalse(new HtmlUnitDriverOptions().isSharedScriptCache());
+    }
+
+    @Test
+    public void verifyMemoryBudget() {
+        final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions().setMemoryBudget(64_000_000L);
+        assertEquals(64_000_000L, options.getCapability(HtmlUnitOptionNames.optMemoryBudget));
+
+        final HtmlUnitDriverOptions decoded = new HtmlUnitDriverOptions(options.asMap());
+        assertEquals("Options object serialize/deserialize mismatch", options, decoded);
+        assertEquals(64_000_000L, decoded.getMemoryBudget());
+
+        assertEquals(0L, new HtmlUnitDriverOptions().getMemoryBudget());
+    }
+
     @Test
     public void verifyFirefoxESRBrowserVersion() {
         final HtmlUnitDriverOptions options = new HtmlUnitDriverOptions(BrowserVersion.FIREFOX_ESR);
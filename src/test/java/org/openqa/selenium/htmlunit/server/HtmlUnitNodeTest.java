@@ -0,0 +1,273 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Tests for {@link HtmlUnitNode}.
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitNodeTest {
+
+    @Test
+    public void status() {
+        try (HtmlUnitNode node = new HtmlUnitNode(1, Duration.ZERO)) {
+            Map<String, Object> status = node.getStatus();
+            assertEquals(Boolean.TRUE, status.get("ready"));
+            assertEquals(0, status.get("sessions"));
+            assertEquals(1, status.get("maxSessions"));
+
+            newSession(node, Collections.emptyMap());
+            status = (Map<String, Object>) node.execute("GET", "/status", Collections.emptyMap());
+            assertEquals(Boolean.FALSE, status.get("ready"));
+            assertEquals("HtmlUnit node is at capacity", status.get("message"));
+        }
+    }
+
+    @Test
+    public void admission() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            final String first = newSession(node, Collections.emptyMap());
+            newSession(node, Collections.emptyMap());
+            try {
+                newSession(node, Collections.emptyMap());
+                fail("SessionNotCreatedException expected");
+            }
+            catch (final SessionNotCreatedException e) {
+                // expected
+            }
+
+            node.execute("DELETE", "/session/" + first, Collections.emptyMap());
+            assertEquals(1, node.getSessionCount());
+            newSession(node, Collections.emptyMap());
+            assertEquals(2, node.getSessionCount());
+        }
+    }
+
+    @Test
+    public void onlyHtmlUnit() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            newSession(node, Map.of("browserName", "firefox"));
+            fail("SessionNotCreatedException expected");
+        }
+        catch (final SessionNotCreatedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void nodeDefaults() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            final Map<String, Object> shared = newSessionResponse(node, Collections.emptyMap());
+            assertEquals("shared", options(shared).get("executorMode"));
+            assertEquals(Boolean.TRUE, options(shared).get("sharedScriptCache"));
+
+            final Map<String, Object> dedicated = newSessionResponse(node,
+                    Map.of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("executorMode", "dedicated")));
+            // the requested options win; default values are not reported
+            assertNull(options(dedicated).get("executorMode"));
+            assertEquals(Boolean.TRUE, options(dedicated).get("sharedScriptCache"));
+        }
+    }
+
+    @Test
+    public void sessionMemoryBudget() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            node.setSessionMemoryBudget(64_000_000L);
+            assertEquals(64_000_000L, options(newSessionResponse(node, Collections.emptyMap())).get("memoryBudget"));
+
+            final Map<String, Object> requested = newSessionResponse(node,
+                    Map.of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("memoryBudget", 1_000_000L)));
+            assertEquals(1_000_000L, options(requested).get("memoryBudget"));
+        }
+    }
+
+    @Test
+    public void sessionMemoryBudgetIsLimit() {
+        try (HtmlUnitNode node = new HtmlUnitNode(4, Duration.ZERO)) {
+            node.setSessionMemoryBudget(64_000_000L);
+
+            // neither disabling nor raising the budget escapes the limit of the node
+            assertEquals(64_000_000L, options(newSessionResponse(node,
+                    Map.of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("memoryBudget", 0L)))).get("memoryBudget"));
+            assertEquals(64_000_000L, options(newSessionResponse(node,
+                    Map.of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("memoryBudget", 128_000_000L))))
+                    .get("memoryBudget"));
+            assertEquals(64_000_000L, options(newSessionResponse(node,
+                    Map.of("memoryBudget", 128_000_000L))).get("memoryBudget"));
+        }
+    }
+
+    @Test
+    public void closingLastWindowEndsSession() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            final String id = newSession(node, Collections.emptyMap());
+            final List<?> handles = (List<?>) node.execute("DELETE", "/session/" + id + "/window",
+                    Collections.emptyMap());
+            assertTrue(handles.isEmpty());
+            assertEquals(0, node.getSessionCount());
+        }
+    }
+
+    @Test
+    public void evictIdle() throws Exception {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ofMillis(50))) {
+            final String id = newSession(node, Collections.emptyMap());
+            assertEquals(0, node.evictIdle());
+
+            Thread.sleep(100);
+            assertEquals(1, node.evictIdle());
+            assertEquals(0, node.getSessionCount());
+            try {
+                node.execute("GET", "/session/" + id + "/title", Collections.emptyMap());
+                fail("NoSuchSessionException expected");
+            }
+            catch (final NoSuchSessionException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void evictIdleSkipsBusySessions() throws Exception {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ofMillis(50))) {
+            final String id = newSession(node, Collections.emptyMap());
+            final Object[] result = new Object[1];
+            final Thread command = new Thread(() -> result[0] = node.execute("POST", "/session/" + id + "/execute/sync",
+                    Map.of("script", "var end = Date.now() + 500; while (Date.now() < end) {} return 'done';",
+                            "args", Collections.emptyList())));
+            command.start();
+
+            Thread.sleep(200);
+            assertEquals(0, node.evictIdle());
+            command.join();
+            assertEquals("done", result[0]);
+            assertEquals(1, node.getSessionCount());
+        }
+    }
+
+    @Test
+    public void hostFilesRejected() throws Exception {
+        final File archive = File.createTempFile("node", ".har");
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            for (final Map<String, Object> capabilities : List.of(
+                    Map.<String, Object>of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS,
+                            Map.of("httpArchiveMode", "record", "httpArchive", archive.getPath())),
+                    Map.<String, Object>of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("httpArchiveMode", "replay")),
+                    Map.<String, Object>of("httpArchive", archive.getPath()),
+                    Map.<String, Object>of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS,
+                            Map.of("tempFileDirectory", archive.getParent())))) {
+                try {
+                    newSession(node, capabilities);
+                    fail("SessionNotCreatedException expected");
+                }
+                catch (final SessionNotCreatedException e) {
+                    // expected
+                }
+            }
+            assertEquals(0, node.getSessionCount());
+            assertEquals(0, archive.length());
+        }
+        finally {
+            archive.delete();
+        }
+    }
+
+    @Test
+    public void capabilitiesAreJson() {
+        try (HtmlUnitNode node = new HtmlUnitNode(1, Duration.ZERO)) {
+            final Map<String, Object> response = newSessionResponse(node,
+                    Map.of(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS, Map.of("sharedResponseCache", "on")));
+            assertEquals("on", options(response).get("sharedResponseCache"));
+
+            // the response has to be valid json
+            new Json().toJson(response);
+        }
+    }
+
+    @Test
+    public void commands() {
+        try (HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO)) {
+            final String id = newSession(node, Collections.emptyMap());
+            node.execute("POST", "/session/" + id + "/url",
+                    Map.of("url", "data:text/html,<title>t</title><p id='p'>x</p>"));
+            assertEquals("t", node.execute("GET", "/session/" + id + "/title", Collections.emptyMap()));
+
+            final Map<?, ?> element = (Map<?, ?>) node.execute("POST", "/session/" + id + "/element",
+                    Map.of("using", "css selector", "value", "#p"));
+            final Object elementId = element.get(NodeSession.ELEMENT_KEY);
+            assertEquals("x", node.execute("GET", "/session/" + id + "/element/" + elementId + "/text",
+                    Collections.emptyMap()));
+            assertNull(node.execute("GET", "/session/" + id + "/element/" + elementId + "/attribute/title",
+                    Collections.emptyMap()));
+
+            try {
+                node.execute("GET", "/session/" + id + "/unknown", Collections.emptyMap());
+                fail("UnsupportedCommandException expected");
+            }
+            catch (final UnsupportedCommandException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void closeQuitsSessions() {
+        final HtmlUnitNode node = new HtmlUnitNode(2, Duration.ZERO);
+        newSession(node, Collections.emptyMap());
+        node.close();
+        assertEquals(0, node.getSessionCount());
+        assertFalse(node.getStatus().isEmpty());
+    }
+
+    private static String newSession(final HtmlUnitNode node, final Map<String, Object> alwaysMatch) {
+        return (String) newSessionResponse(node, alwaysMatch).get("sessionId");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> newSessionResponse(final HtmlUnitNode node,
+            final Map<String, Object> alwaysMatch) {
+        return (Map<String, Object>) node.execute("POST", "/session",
+                Map.of("capabilities", Map.of("alwaysMatch", alwaysMatch)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> options(final Map<String, Object> response) {
+        final Map<String, Object> capabilities = (Map<String, Object>) response.get("capabilities");
+        return (Map<String, Object>) capabilities.get(HtmlUnitDriverOptions.HTMLUNIT_OPTIONS);
+    }
+}
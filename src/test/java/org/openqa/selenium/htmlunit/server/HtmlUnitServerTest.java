@@ -0,0 +1,175 @@
+// Licensed to the Software Freedom Conservancy (SFC) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The SFC licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.openqa.selenium.htmlunit.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.WebServerTestCase;
+import org.openqa.selenium.htmlunit.options.HtmlUnitDriverOptions;
+import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+/**
+ * Tests for {@link HtmlUnitServer}; drives the sessions using a {@link RemoteWebDriver}.
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitServerTest extends WebServerTestCase {
+
+    private static final String PAGE = "<html><head><title>node</title></head><body>"
+            + "<div id='d'><span class='item'>one</span><span class='item'>two</span></div>"
+            + "<input id='i' value=''>"
+            + "<button id='b' onclick='document.title = \"clicked\"'>go</button>"
+            + "<button id='a' onclick='alert(\"hello\")'>alert</button>"
+            + "</body></html>";
+
+    private HtmlUnitServer server_;
+
+    @Before
+    public void startServer() throws Exception {
+        getMockWebConnection().setResponse(URL_FIRST, PAGE);
+        startWebServer(getMockWebConnection());
+
+        server_ = new HtmlUnitServer(new HtmlUnitNode(4, Duration.ZERO), 0);
+        server_.start();
+    }
+
+    @After
+    public void stopServer() {
+        server_.close();
+    }
+
+    @Test
+    public void commands() throws Exception {
+        final RemoteWebDriver driver = newDriver();
+        try {
+            assertEquals(1, server_.getNode().getSessionCount());
+
+            driver.get(URL_FIRST.toString());
+            assertEquals("node", driver.getTitle());
+
+            final List<WebElement> items = driver.findElement(By.id("d")).findElements(By.className("item"));
+            assertEquals(2, items.size());
+            assertEquals("two", items.get(1).getText());
+            assertEquals("item", items.get(0).getDomAttribute("class"));
+
+            final WebElement input = driver.findElement(By.id("i"));
+            input.sendKeys("abc");
+            assertEquals("abc", input.getDomProperty("value"));
+
+            assertEquals(3L, driver.executeScript("return arguments[0] + arguments[1];", 1, 2));
+            assertEquals("one", driver.executeScript("return arguments[0].textContent;", items.get(0)));
+            final Object found = driver.executeScript("return document.getElementById('b');");
+            assertEquals(driver.findElement(By.id("b")), found);
+
+            driver.findElement(By.id("b")).click();
+            assertEquals("clicked", driver.getTitle());
+
+            driver.findElement(By.id("a")).click();
+            assertEquals("hello", driver.switchTo().alert().getText());
+            driver.switchTo().alert().accept();
+
+            new Actions(driver).click(driver.findElement(By.id("i"))).sendKeys("d").perform();
+            assertEquals("abcd", input.getDomProperty("value"));
+
+            try {
+                driver.findElement(By.id("missing"));
+                fail("NoSuchElementException expected");
+            }
+            catch (final NoSuchElementException e) {
+                // expected
+            }
+        }
+        finally {
+            driver.quit();
+        }
+        assertEquals(0, server_.getNode().getSessionCount());
+    }
+
+    @Test
+    public void cookies() throws Exception {
+        final RemoteWebDriver driver = newDriver();
+        try {
+            driver.get(URL_FIRST.toString());
+            driver.executeScript("document.cookie = 'a=1';");
+            driver.manage().addCookie(new Cookie("b", "2"));
+            assertEquals("1", driver.manage().getCookieNamed("a").getValue());
+            assertEquals("a=1; b=2", driver.executeScript("return document.cookie;"));
+
+            driver.manage().deleteCookieNamed("a");
+            assertNull(driver.manage().getCookieNamed("a"));
+            driver.manage().deleteAllCookies();
+            assertTrue(driver.manage().getCookies().isEmpty());
+        }
+        finally {
+            driver.quit();
+        }
+    }
+
+    @Test
+    public void sessionsAreIsolated() throws Exception {
+        final RemoteWebDriver first = newDriver();
+        final RemoteWebDriver second = newDriver();
+        try {
+            first.get("data:text/html,<title>first</title>");
+            second.get("data:text/html,<title>second</title>");
+            assertEquals(Arrays.asList("first", "second"), Arrays.asList(first.getTitle(), second.getTitle()));
+            assertEquals(2, server_.getNode().getSessionCount());
+        }
+        finally {
+            first.quit();
+            second.quit();
+        }
+    }
+
+    @Test
+    public void bindsToLoopbackByDefault() throws Exception {
+        assertEquals("localhost", server_.getUrl().getHost());
+
+        try (HtmlUnitServer server = new HtmlUnitServer(new HtmlUnitNode(1, Duration.ZERO), "127.0.0.1", 0)) {
+            server.start();
+            assertTrue(server.getUrl().getPort() != server_.getUrl().getPort());
+
+            final RemoteWebDriver driver = new RemoteWebDriver(server.getUrl().toURL(), new HtmlUnitDriverOptions());
+            try {
+                assertEquals(1, server.getNode().getSessionCount());
+            }
+            finally {
+                driver.quit();
+            }
+        }
+    }
+
+    private RemoteWebDriver newDriver() throws Exception {
+        return new RemoteWebDriver(server_.getUrl().toURL(), new HtmlUnitDriverOptions().setJavaScriptEnabled(true));
+    }
+}